@@ -0,0 +1,352 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.flow;
+
+import com.zz.langchecker.Tokenizer;
+import com.zz.langchecker.TokenizerResponse;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Reactive streams stage which tokenizes phrases on an executor, keeping backpressure of the downstream.
+ * <p>
+ * Upstream demand is requested in batches of {@code batchSize}, at most {@code 2 * batchSize * (parallelism + 1)}
+ * phrases rounded up to a power of two are requested but not yet emitted. Up to {@code parallelism} tasks
+ * on the executor tokenize received phrases and emit ready responses after every batch.
+ * Responses are emitted in the order of phrases, or as soon as they are ready if {@code ordered} is false.
+ * <p>
+ * Only one subscriber is supported. If the tokenizer throws or the executor rejects a task, upstream is cancelled
+ * and the error is signalled downstream.
+ */
+public final class TokenizerProcessor implements Flow.Processor<String, TokenizerResponse> {
+  private final Tokenizer tokenizer;
+  private final Executor executor;
+  private final int parallelism;
+  private final int batchSize;
+  private final boolean ordered;
+
+  private final Queue<Phrase> inputs = new ConcurrentLinkedQueue<>();
+  // response to phrase with sequence number s is in slot s & mask until emitted
+  private final int mask;
+  private final AtomicReferenceArray<TokenizerResponse> results;
+  private final Queue<TokenizerResponse> unorderedResults = new ConcurrentLinkedQueue<>();
+
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+  private final AtomicLong demand = new AtomicLong();
+  private final AtomicInteger workers = new AtomicInteger();
+  private final AtomicInteger wip = new AtomicInteger();
+
+  private volatile Flow.Subscription upstream;
+  private volatile Flow.Subscriber<? super TokenizerResponse> downstream;
+  // number of phrases received, written by upstream only
+  private volatile long received;
+  private volatile boolean done;
+  private volatile Throwable error;
+  private volatile boolean cancelled;
+
+  // accessed in drain() only
+  private long emitted;
+  private long requested;
+  private boolean terminated;
+
+  /**
+   * @param tokenizer thread-safe tokenizer
+   * @param executor executor for tokenization tasks
+   * @param parallelism max number of concurrent tasks on the executor
+   * @param batchSize number of phrases requested from upstream and tokenized by a task at once
+   * @param ordered if false responses are emitted in order of completion
+   */
+  public TokenizerProcessor(Tokenizer tokenizer, Executor executor, int parallelism, int batchSize, boolean ordered) {
+    if (parallelism < 1 || batchSize < 1) {
+      throw new IllegalArgumentException("parallelism and batchSize should be positive");
+    }
+    this.tokenizer = tokenizer;
+    this.executor = executor;
+    this.parallelism = parallelism;
+    this.batchSize = batchSize;
+    this.ordered = ordered;
+
+    int capacity = capacity(parallelism, batchSize);
+    this.mask = capacity - 1;
+    this.results = new AtomicReferenceArray<>(ordered ? capacity : 0);
+  }
+
+  /**
+   * @return max number of phrases requested but not yet emitted, the smallest power of two not less than
+   *     {@code 2 * batchSize * (parallelism + 1)}
+   */
+  static int capacity(int parallelism, int batchSize) {
+    long phrases = 2L * batchSize * (parallelism + 1);
+    if (phrases > 1 << 30) {
+      throw new IllegalArgumentException("2 * batchSize * (parallelism + 1) should not exceed 2^30");
+    }
+    return Integer.highestOneBit((int) phrases * 2 - 1);
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super TokenizerResponse> subscriber) {
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new NoSubscription());
+      subscriber.onError(new IllegalStateException("TokenizerProcessor supports only one subscriber"));
+      return;
+    }
+    subscriber.onSubscribe(new Subscription());
+    downstream = subscriber;
+    drain();
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (upstream != null) {
+      subscription.cancel();
+      return;
+    }
+    upstream = subscription;
+    drain();
+  }
+
+  @Override
+  public void onNext(String item) {
+    long sequence = received;
+    inputs.offer(new Phrase(sequence, item));
+    received = sequence + 1;
+
+    if (workers.get() < parallelism) {
+      if (workers.incrementAndGet() <= parallelism) {
+        try {
+          executor.execute(new Worker());
+        } catch (Throwable e) {
+          // onNext must not throw, rejection is signalled downstream
+          workers.decrementAndGet();
+          fail(e);
+        }
+      } else {
+        workers.decrementAndGet();
+      }
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    error = throwable;
+    done = true;
+    drain();
+  }
+
+  @Override
+  public void onComplete() {
+    done = true;
+    drain();
+  }
+
+  /**
+   * Emits ready responses, signals termination and requests upstream. Runs on one thread at a time,
+   * a call during drain makes the draining thread loop once more.
+   */
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    do {
+      Flow.Subscriber<? super TokenizerResponse> subscriber = downstream;
+      if (subscriber != null && !terminated) {
+        if (cancelled) {
+          terminated = true;
+          clear();
+        } else {
+          emit(subscriber);
+          terminate(subscriber);
+          requestUpstream();
+        }
+      }
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void emit(Flow.Subscriber<? super TokenizerResponse> subscriber) {
+    long limit = demand.get();
+    long count = 0;
+    while (count < limit && !cancelled) {
+      TokenizerResponse response;
+      if (ordered) {
+        int slot = (int) emitted & mask;
+        response = results.get(slot);
+        if (response != null) {
+          results.set(slot, null);
+        }
+      } else {
+        response = unorderedResults.poll();
+      }
+      if (response == null) {
+        break;
+      }
+      emitted++;
+      count++;
+      subscriber.onNext(response);
+    }
+    if (count > 0) {
+      demand.addAndGet(-count);
+    }
+  }
+
+  private void terminate(Flow.Subscriber<? super TokenizerResponse> subscriber) {
+    Throwable throwable = error;
+    if (throwable != null) {
+      terminated = true;
+      clear();
+      subscriber.onError(throwable);
+    } else if (done && emitted == received) {
+      terminated = true;
+      subscriber.onComplete();
+    }
+  }
+
+  private void requestUpstream() {
+    Flow.Subscription subscription = upstream;
+    if (subscription == null || terminated || done) {
+      return;
+    }
+    // request a batch while it fits into the buffer and downstream demand exceeds phrases in flight
+    long batches = 0;
+    long wanted = emitted + Math.min(demand.get(), mask + 1);
+    while (requested < wanted && requested + batchSize <= emitted + mask + 1) {
+      requested += batchSize;
+      batches++;
+    }
+    if (batches > 0) {
+      subscription.request(batches * batchSize);
+    }
+  }
+
+  /** Cancels upstream and signals {@code e} downstream. */
+  private void fail(Throwable e) {
+    Flow.Subscription subscription = upstream;
+    if (subscription != null) {
+      subscription.cancel();
+    }
+    error = e;
+    done = true;
+    drain();
+  }
+
+  private void clear() {
+    inputs.clear();
+    for (int i = 0; i < results.length(); i++) {
+      results.set(i, null);
+    }
+    unorderedResults.clear();
+  }
+
+  private static final class Phrase {
+    final long sequence;
+    final String input;
+
+    Phrase(long sequence, String input) {
+      this.sequence = sequence;
+      this.input = input;
+    }
+  }
+
+  private final class Worker implements Runnable {
+    @Override
+    public void run() {
+      while (true) {
+        Phrase phrase = inputs.poll();
+        if (phrase == null) {
+          workers.decrementAndGet();
+          // a phrase could be received after poll(), while this worker was counted as running
+          if (cancelled || inputs.isEmpty()) {
+            return;
+          }
+          if (workers.incrementAndGet() > parallelism) {
+            workers.decrementAndGet();
+            return;
+          }
+          continue;
+        }
+
+        for (int i = 0; phrase != null && !cancelled; i++) {
+          TokenizerResponse response;
+          try {
+            response = tokenizer.tokenize(phrase.input);
+          } catch (Throwable e) {
+            workers.decrementAndGet();
+            fail(e);
+            return;
+          }
+          if (ordered) {
+            results.set((int) phrase.sequence & mask, response);
+          } else {
+            unorderedResults.offer(response);
+          }
+          phrase = i + 1 < batchSize ? inputs.poll() : null;
+        }
+        drain();
+      }
+    }
+  }
+
+  private final class Subscription implements Flow.Subscription {
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        error = new IllegalArgumentException("Non-positive request: " + n);
+        cancelUpstream();
+      } else {
+        long current;
+        do {
+          current = demand.get();
+        } while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      cancelUpstream();
+      drain();
+    }
+
+    private void cancelUpstream() {
+      Flow.Subscription subscription = upstream;
+      if (subscription != null) {
+        subscription.cancel();
+      }
+    }
+  }
+
+  private static final class NoSubscription implements Flow.Subscription {
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+    }
+  }
+}
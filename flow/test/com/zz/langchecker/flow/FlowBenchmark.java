@@ -0,0 +1,86 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.flow;
+
+import com.google.common.base.Stopwatch;
+import com.zz.langchecker.LangSwitcherTokenizer;
+import com.zz.langchecker.Tokenizer;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link TokenizerProcessor} against a blocking loop over the same phrases.
+ * <p>
+ * Usage: {@code FlowBenchmark [parallelism] [batchSize]}
+ */
+public class FlowBenchmark {
+  private static final int PHRASES = 500000;
+  private static final int PASSES = 5;
+
+  public static void main(String[] args) throws InterruptedException {
+    int parallelism = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+    int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+    Tokenizer tokenizer = LangSwitcherTokenizer.create();
+    List<String> phrases = TokenizerProcessorTest.phrases(PHRASES);
+
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      for (int pass = 0; pass < PASSES; pass++) {
+        System.out.println("blocking loop:        " + blocking(tokenizer, phrases));
+        System.out.println("processor, ordered:   " + processor(tokenizer, phrases, executor, parallelism, batchSize, true));
+        System.out.println("processor, unordered: " + processor(tokenizer, phrases, executor, parallelism, batchSize, false));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static String blocking(Tokenizer tokenizer, List<String> phrases) {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    int corrected = 0;
+    for (String phrase : phrases) {
+      if (tokenizer.tokenize(phrase).corrected().isPresent()) {
+        corrected++;
+      }
+    }
+    return throughput(stopwatch, phrases.size()) + ", corrected " + corrected;
+  }
+
+  private static String processor(
+      Tokenizer tokenizer,
+      List<String> phrases,
+      ExecutorService executor,
+      int parallelism,
+      int batchSize,
+      boolean ordered) throws InterruptedException {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    TokenizerProcessor processor = new TokenizerProcessor(tokenizer, executor, parallelism, batchSize, ordered);
+    TokenizerProcessorTest.Collector collector = new TokenizerProcessorTest.Collector(Long.MAX_VALUE);
+    processor.subscribe(collector);
+    new TokenizerProcessorTest.ListPublisher(phrases).subscribe(processor);
+    collector.await();
+    return throughput(stopwatch, collector.results.size());
+  }
+
+  private static String throughput(Stopwatch stopwatch, int count) {
+    return String.format("%.0f phrases/s", count * 1e9 / stopwatch.elapsed(TimeUnit.NANOSECONDS));
+  }
+}
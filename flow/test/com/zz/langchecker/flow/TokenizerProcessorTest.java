@@ -0,0 +1,318 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.flow;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Lists;
+import com.zz.langchecker.LangSwitcherTokenizer;
+import com.zz.langchecker.Tokenizer;
+import com.zz.langchecker.TokenizerResponse;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class TokenizerProcessorTest {
+  private static final LangSwitcherTokenizer TOKENIZER = LangSwitcherTokenizer.create();
+
+  @Test
+  public void tokenizesInOrder() throws InterruptedException {
+    List<String> phrases = phrases(10000);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      TokenizerProcessor processor = new TokenizerProcessor(TOKENIZER, executor, 4, 16, true);
+      Collector collector = new Collector(Long.MAX_VALUE);
+      processor.subscribe(collector);
+      new ListPublisher(phrases).subscribe(processor);
+
+      check(collector.await());
+      check(collector.error == null);
+      check(collector.results).is(expected(phrases));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void tokenizesAllUnordered() throws InterruptedException {
+    List<String> phrases = phrases(10000);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      TokenizerProcessor processor = new TokenizerProcessor(TOKENIZER, executor, 4, 16, false);
+      Collector collector = new Collector(Long.MAX_VALUE);
+      processor.subscribe(collector);
+      new ListPublisher(phrases).subscribe(processor);
+
+      check(collector.await());
+      check(ImmutableMultiset.copyOf(collector.results)).is(ImmutableMultiset.copyOf(expected(phrases)));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void requestsUpstreamInBatchesWithinDemand() throws InterruptedException {
+    List<String> phrases = phrases(1000);
+    ListPublisher publisher = new ListPublisher(phrases);
+    TokenizerProcessor processor = new TokenizerProcessor(TOKENIZER, DirectExecutor.INSTANCE, 1, 8, true);
+    Collector collector = new Collector(0);
+    processor.subscribe(collector);
+    publisher.subscribe(processor);
+
+    check(publisher.requested.get()).is(0L);
+    collector.subscription.request(3);
+    check(collector.results.size()).is(3);
+    check(publisher.requested.get()).is(8L);
+
+    collector.subscription.request(100);
+    check(collector.results.size()).is(103);
+    // demand is met, so only the rest of the last batch is requested, see boundsPhrasesInFlight()
+    check(publisher.requested.get()).is(104L);
+
+    collector.subscription.request(Long.MAX_VALUE);
+    check(collector.await());
+    check(collector.results).is(expected(phrases));
+  }
+
+  @Test
+  public void boundsPhrasesInFlight() {
+    check(TokenizerProcessor.capacity(1, 8)).is(32);
+    check(TokenizerProcessor.capacity(4, 16)).is(256);
+    check(TokenizerProcessor.capacity(3, 8)).is(64);
+
+    // tasks are queued and not run, so nothing is emitted
+    final List<Runnable> tasks = Lists.newArrayList();
+    Executor queue = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        tasks.add(command);
+      }
+    };
+    ListPublisher publisher = new ListPublisher(phrases(1000));
+    // at most 2 * 8 * (1 + 1) phrases in flight
+    TokenizerProcessor processor = new TokenizerProcessor(TOKENIZER, queue, 1, 8, true);
+    Collector collector = new Collector(Long.MAX_VALUE);
+    processor.subscribe(collector);
+    publisher.subscribe(processor);
+
+    check(publisher.requested.get()).is(32L);
+    check(collector.results).isEmpty();
+
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+    check(collector.results.size()).is(1000);
+  }
+
+  @Test
+  public void signalsTokenizerError() throws InterruptedException {
+    Tokenizer failing = new Tokenizer() {
+      @Override
+      public TokenizerResponse tokenize(String input) {
+        if (input.equals("fail")) {
+          throw new IllegalStateException(input);
+        }
+        return TOKENIZER.tokenize(input);
+      }
+    };
+    ListPublisher publisher = new ListPublisher(ImmutableList.of("hello", "fail", "world"));
+    TokenizerProcessor processor = new TokenizerProcessor(failing, DirectExecutor.INSTANCE, 1, 1, true);
+    Collector collector = new Collector(Long.MAX_VALUE);
+    processor.subscribe(collector);
+    publisher.subscribe(processor);
+
+    check(collector.await());
+    check(collector.error instanceof IllegalStateException);
+    check(publisher.cancelled);
+    check(collector.results.size()).is(1);
+  }
+
+  @Test
+  public void signalsErrorsOfTokenizer() throws InterruptedException {
+    Tokenizer failing = new Tokenizer() {
+      @Override
+      public TokenizerResponse tokenize(String input) {
+        if (input.equals("fail")) {
+          throw new StackOverflowError();
+        }
+        return TOKENIZER.tokenize(input);
+      }
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ListPublisher publisher = new ListPublisher(ImmutableList.of("hello", "fail", "world"));
+      TokenizerProcessor processor = new TokenizerProcessor(failing, executor, 2, 1, true);
+      Collector collector = new Collector(Long.MAX_VALUE);
+      processor.subscribe(collector);
+      publisher.subscribe(processor);
+
+      check(collector.await());
+      check(collector.error instanceof StackOverflowError);
+      check(publisher.cancelled);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void signalsRejectedTask() throws InterruptedException {
+    Executor rejecting = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        throw new RejectedExecutionException("shut down");
+      }
+    };
+    ListPublisher publisher = new ListPublisher(ImmutableList.of("hello", "world"));
+    TokenizerProcessor processor = new TokenizerProcessor(TOKENIZER, rejecting, 1, 1, true);
+    Collector collector = new Collector(Long.MAX_VALUE);
+    processor.subscribe(collector);
+    publisher.subscribe(processor);
+
+    check(collector.await());
+    check(collector.error instanceof RejectedExecutionException);
+    check(publisher.cancelled);
+    check(collector.results).isEmpty();
+  }
+
+  @Test
+  public void rejectsSecondSubscriber() {
+    TokenizerProcessor processor = new TokenizerProcessor(TOKENIZER, DirectExecutor.INSTANCE, 1, 1, true);
+    processor.subscribe(new Collector(0));
+    Collector second = new Collector(0);
+    processor.subscribe(second);
+
+    check(second.error instanceof IllegalStateException);
+  }
+
+  static List<String> phrases(int count) {
+    List<String> phrases = Lists.newArrayList();
+    String[] samples = {"руддщ цщкв", "hello world", ",bkmzhl", "ghbdtn vbh", "<>HJ 4еуые", "xcvn"};
+    for (int i = 0; i < count; i++) {
+      phrases.add(samples[i % samples.length] + " " + i);
+    }
+    return phrases;
+  }
+
+  private static List<String> expected(List<String> phrases) {
+    List<String> expected = Lists.newArrayList();
+    for (String phrase : phrases) {
+      expected.add(TOKENIZER.tokenize(phrase).toString());
+    }
+    return expected;
+  }
+
+  enum DirectExecutor implements java.util.concurrent.Executor {
+    INSTANCE;
+
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  }
+
+  /** Emits phrases of the list on the thread which requests them. */
+  static final class ListPublisher implements Flow.Publisher<String> {
+    final List<String> phrases;
+    final AtomicLong requested = new AtomicLong();
+    volatile boolean cancelled;
+
+    ListPublisher(List<String> phrases) {
+      this.phrases = phrases;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super String> subscriber) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        int next;
+        boolean emitting;
+
+        @Override
+        public synchronized void request(long n) {
+          requested.addAndGet(n);
+          if (emitting) {
+            return;
+          }
+          emitting = true;
+          while (next < requested.get() && next < phrases.size() && !cancelled) {
+            subscriber.onNext(phrases.get(next++));
+          }
+          if (next == phrases.size() && !cancelled) {
+            next++;
+            subscriber.onComplete();
+          }
+          emitting = false;
+        }
+
+        @Override
+        public void cancel() {
+          cancelled = true;
+        }
+      });
+    }
+  }
+
+  static final class Collector implements Flow.Subscriber<TokenizerResponse> {
+    final List<String> results = Collections.synchronizedList(Lists.<String>newArrayList());
+    final CountDownLatch terminated = new CountDownLatch(1);
+    final long initialRequest;
+    volatile Flow.Subscription subscription;
+    volatile Throwable error;
+
+    Collector(long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (initialRequest > 0) {
+        subscription.request(initialRequest);
+      }
+    }
+
+    @Override
+    public void onNext(TokenizerResponse item) {
+      results.add(item.toString());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      terminated.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      terminated.countDown();
+    }
+
+    boolean await() throws InterruptedException {
+      return terminated.await(30, TimeUnit.SECONDS);
+    }
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generates {@link NgramSet} subclasses from {@code nonexistent*gram-*.txt} model files at build time.
+ * <p>
+ * For every file a class with the same n-grams in keys of the other layout is generated too (suffix
+ * {@code Switched}), see {@code LangChecker#checkSwitched}.
+ * <p>
+ * Each class keeps n-grams packed by {@link NgramSet#pack(String)} in a constant table addressed by
+ * a perfect hash ({@link NgramSet#slot}), so a lookup is one hash, one displacement and one comparison, and
+ * nothing is parsed at runtime. {@code GeneratedNgramSets} maps model file names to the generated sets.
+ * <p>
+ * Runs in {@code generate-sources} phase, compiled together with {@code NgramSet} and {@code Characters}.
+ * Usage: {@code NgramClassGenerator <model directory> <output directory>}
+ */
+public final class NgramClassGenerator {
+  private static final String PACKAGE = "com.zz.langchecker";
+  private static final String REGISTRY = "GeneratedNgramSets";
+  private static final String SWITCHED = "Switched";
+  private static final int SEEDS = 1000;
+
+  private NgramClassGenerator() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: NgramClassGenerator <model directory> <output directory>");
+      System.exit(2);
+    }
+
+    Path output = Paths.get(args[1]).resolve(PACKAGE.replace('.', '/'));
+    Files.createDirectories(output);
+
+    Map<String, String> classes = new TreeMap<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(args[0]), "nonexistent*gram-*.txt")) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        String className = className(name);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        write(output.resolve(className + ".java"), generateSet(name, className, lines));
+        classes.put(name, className);
+
+        Lang layout = lang(name).other();
+        write(output.resolve(className + SWITCHED + ".java"), generateSet(
+            name + " in keys of " + layout + " layout", className + SWITCHED, switchedTo(lines, layout)));
+      }
+    }
+    write(output.resolve(REGISTRY + ".java"), generateRegistry(classes));
+  }
+
+  /** @return language of model file name, {@code nonexistent2gram-en.txt -> EN} */
+  static Lang lang(String fileName) {
+    String suffix = fileName.substring(fileName.lastIndexOf('-') + 1, fileName.lastIndexOf('.'));
+    return Lang.valueOf(suffix.toUpperCase(Locale.ENGLISH));
+  }
+
+  /** @return n-grams as sequences of keys of the other {@code layout}, see {@link Characters#keysSwitchedTo} */
+  static List<String> switchedTo(List<String> ngrams, Lang layout) {
+    List<String> keys = new ArrayList<>();
+    for (String ngram : ngrams) {
+      keys.addAll(Characters.keysSwitchedTo(ngram, layout));
+    }
+    return keys;
+  }
+
+  /** @return class name for model file name, {@code nonexistent2gram-en.txt -> Nonexistent2gramEn} */
+  static String className(String fileName) {
+    StringBuilder className = new StringBuilder();
+    for (String part : fileName.substring(0, fileName.lastIndexOf('.')).split("-")) {
+      className.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+    }
+    return className.toString();
+  }
+
+  static String generateSet(String fileName, String className, List<String> lines) {
+    Set<Long> distinct = new LinkedHashSet<>();
+    for (String line : lines) {
+      distinct.add(NgramSet.pack(line));
+    }
+    long[] keys = new long[distinct.size()];
+    int k = 0;
+    for (long key : distinct) {
+      keys[k++] = key;
+    }
+
+    PerfectHash hash = PerfectHash.build(keys);
+
+    StringBuilder source = new StringBuilder()
+        .append("// Generated by NgramClassGenerator from ").append(fileName).append(", do not edit.\n")
+        .append("package ").append(PACKAGE).append(";\n\n")
+        .append("final class ").append(className).append(" extends NgramSet {\n")
+        .append("  static final NgramSet INSTANCE = new ").append(className).append("();\n\n")
+        .append("  private static final int SIZE = ").append(keys.length).append(";\n")
+        .append("  private static final long SEED = ").append(hex(hash.seed)).append(";\n")
+        .append("  private static final int BUCKET_SHIFT = ").append(hash.bucketShift).append(";\n")
+        .append("  private static final int MASK = ").append(hash.table.length - 1).append(";\n")
+        .append("  private static final int[] DISPLACEMENTS = {");
+    for (int i = 0; i < hash.displacements.length; i++) {
+      source.append(i % 16 == 0 ? "\n      " : " ").append(hash.displacements[i]).append(',');
+    }
+    source.append("\n  };\n")
+        .append("  // empty slots repeat an n-gram of another slot, so they never match\n")
+        .append("  private static final long[] NGRAMS = {");
+    for (int i = 0; i < hash.table.length; i++) {
+      source.append(i % 6 == 0 ? "\n      " : " ").append(hex(hash.table[i])).append(',');
+    }
+    return source.append("\n  };\n\n")
+        .append("  private ").append(className).append("() {\n  }\n\n")
+        .append("  @Override\n")
+        .append("  int size() {\n")
+        .append("    return SIZE;\n")
+        .append("  }\n\n")
+        .append("  @Override\n")
+        .append("  boolean contains(long packed) {\n")
+        .append("    return NGRAMS[slot(packed, SEED, DISPLACEMENTS, BUCKET_SHIFT, MASK)] == packed;\n")
+        .append("  }\n\n")
+        .append("  @Override\n")
+        .append("  long[] packed() {\n")
+        .append("    return packed(NGRAMS, SEED, DISPLACEMENTS, BUCKET_SHIFT);\n")
+        .append("  }\n")
+        .append("\n")
+        .append("  @Override\n")
+        .append("  long sizeInBytes() {\n")
+        .append("    // array header is 16 bytes\n")
+        .append("    return 8L * NGRAMS.length + 4L * DISPLACEMENTS.length + 2 * 16;\n")
+        .append("  }\n")
+        .append("}\n")
+        .toString();
+  }
+
+  static String generateRegistry(Map<String, String> classes) {
+    StringBuilder source = new StringBuilder()
+        .append("// Generated by NgramClassGenerator, do not edit.\n")
+        .append("package ").append(PACKAGE).append(";\n\n")
+        .append("final class ").append(REGISTRY).append(" {\n")
+        .append("  private ").append(REGISTRY).append("() {\n  }\n\n")
+        .append("  /** @return set generated from the bundled model file, null if there is no such file */\n")
+        .append("  static NgramSet of(String fileName) {\n")
+        .append("    switch (fileName) {\n");
+    for (Map.Entry<String, String> entry : classes.entrySet()) {
+      source.append("    case \"").append(entry.getKey()).append("\":\n")
+          .append("      return ").append(entry.getValue()).append(".INSTANCE;\n");
+    }
+    source.append("    default:\n")
+        .append("      return null;\n")
+        .append("    }\n")
+        .append("  }\n\n")
+        .append("  /**\n")
+        .append("   * @return generated set of n-grams of {@code ngrams} in keys of the other layout, null if there is none\n")
+        .append("   */\n")
+        .append("  static NgramSet switchedOf(NgramSet ngrams) {\n");
+    for (String className : classes.values()) {
+      source.append("    if (ngrams == ").append(className).append(".INSTANCE) {\n")
+          .append("      return ").append(className).append(SWITCHED).append(".INSTANCE;\n")
+          .append("    }\n");
+    }
+    return source.append("    return null;\n")
+        .append("  }\n")
+        .append("}\n")
+        .toString();
+  }
+
+  private static String hex(long value) {
+    return String.format(Locale.ENGLISH, "0x%XL", value);
+  }
+
+  private static void write(Path file, String source) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      writer.write(source);
+    }
+  }
+
+  /** Hash and displace over a table of power of two size, see {@link NgramSet#slot}. */
+  static final class PerfectHash {
+    final long seed;
+    final int bucketShift;
+    final int[] displacements;
+    final long[] table;
+
+    private PerfectHash(long seed, int bucketShift, int[] displacements, long[] table) {
+      this.seed = seed;
+      this.bucketShift = bucketShift;
+      this.displacements = displacements;
+      this.table = table;
+    }
+
+    /**
+     * @param keys distinct packed n-grams
+     * @throws IllegalArgumentException if there are no keys
+     */
+    static PerfectHash build(long[] keys) {
+      if (keys.length == 0) {
+        throw new IllegalArgumentException("No n-grams");
+      }
+      int size = Math.max(keys.length, 2);
+      // about 2 keys per bucket, at least 2 buckets, so bucket shift is less than 64
+      int buckets = Math.max(Integer.highestOneBit(size) / 2, 2);
+      int bucketShift = 64 - Integer.numberOfTrailingZeros(buckets);
+      for (int tableSize = Integer.highestOneBit(size * 2 - 1); ; tableSize *= 2) {
+        for (long seed = 0; seed < SEEDS; seed++) {
+          PerfectHash hash = build(keys, seed * 0x9E3779B97F4A7C15L, bucketShift, buckets, tableSize);
+          if (hash != null) {
+            return hash.verify(keys);
+          }
+        }
+      }
+    }
+
+    /** @return perfect hash or null if some of buckets can't be placed with the given seed */
+    private static PerfectHash build(long[] keys, long seed, int bucketShift, int bucketCount, int tableSize) {
+      int mask = tableSize - 1;
+      List<List<Long>> buckets = new ArrayList<>(bucketCount);
+      for (int i = 0; i < bucketCount; i++) {
+        buckets.add(new ArrayList<Long>());
+      }
+      for (long key : keys) {
+        buckets.get((int) (NgramSet.hash(key, seed) >>> bucketShift)).add(key);
+      }
+
+      Integer[] order = new Integer[bucketCount];
+      for (int i = 0; i < bucketCount; i++) {
+        order[i] = i;
+      }
+      final List<List<Long>> sizes = buckets;
+      // larger buckets first, while there are many free slots
+      Arrays.sort(order, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer a, Integer b) {
+          return sizes.get(b).size() - sizes.get(a).size();
+        }
+      });
+
+      int[] displacements = new int[bucketCount];
+      boolean[] used = new boolean[tableSize];
+      long[] table = new long[tableSize];
+      for (int bucket : order) {
+        List<Long> bucketKeys = buckets.get(bucket);
+        if (bucketKeys.isEmpty()) {
+          break;
+        }
+
+        int[] bases = new int[bucketKeys.size()];
+        for (int i = 0; i < bases.length; i++) {
+          bases[i] = (int) NgramSet.hash(bucketKeys.get(i), seed) & mask;
+          for (int j = 0; j < i; j++) {
+            if (bases[i] == bases[j]) {
+              // same slot for any displacement
+              return null;
+            }
+          }
+        }
+
+        int displacement = findDisplacement(bases, used);
+        if (displacement < 0) {
+          return null;
+        }
+        displacements[bucket] = displacement;
+        for (int i = 0; i < bases.length; i++) {
+          used[bases[i] ^ displacement] = true;
+          table[bases[i] ^ displacement] = bucketKeys.get(i);
+        }
+      }
+
+      for (int i = 0; i < tableSize; i++) {
+        if (!used[i]) {
+          table[i] = keys[0];
+        }
+      }
+      return new PerfectHash(seed, bucketShift, displacements, table);
+    }
+
+    private static int findDisplacement(int[] bases, boolean[] used) {
+      next:
+      for (int displacement = 0; displacement < used.length; displacement++) {
+        for (int base : bases) {
+          if (used[base ^ displacement]) {
+            continue next;
+          }
+        }
+        return displacement;
+      }
+      return -1;
+    }
+
+    private PerfectHash verify(long[] keys) {
+      int mask = table.length - 1;
+      for (long key : keys) {
+        int slot = NgramSet.slot(key, seed, displacements, bucketShift, mask);
+        if (table[slot] != key) {
+          throw new IllegalStateException("N-gram " + hex(key) + " is not found in slot " + slot);
+        }
+      }
+      return this;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.jfr;
+
+import com.zz.langchecker.LangSwitcherTokenizer;
+import com.zz.langchecker.ModelLoads;
+import com.zz.langchecker.Tokenizer;
+import com.zz.langchecker.TokenizerResponse;
+import java.nio.file.Path;
+
+/**
+ * Tokenizer which records Java Flight Recorder events: {@code com.zz.langchecker.Tokenize} for calls longer than
+ * the threshold (1 ms by default) and {@code com.zz.langchecker.ModelLoad} for model loading.
+ * <p>
+ * Model loads are reported by {@link ModelLoads} wherever they happen: initialization of the bundled model and its
+ * n-gram sets and loads and reloads of a model directory, also by
+ * {@link com.zz.langchecker.ReloadingTokenizer}. They are recorded once this class is initialized, the bundled model
+ * is recorded if it is first used by {@link #create(int)}.
+ * <p>
+ * When events are disabled or the call is shorter than the threshold only two timestamps are taken,
+ * fields of the event are set only if it is committed. Settings for JDK Mission Control are in
+ * {@code com/zz/langchecker/jfr/langchecker.jfc}.
+ */
+public final class JfrTokenizer implements Tokenizer {
+  static {
+    ModelLoads.addListener(new ModelLoadRecorder());
+  }
+
+  private final Tokenizer delegate;
+
+  public JfrTokenizer(Tokenizer delegate) {
+    this.delegate = delegate;
+  }
+
+  /** @return tokenizer with the bundled model, see {@link LangSwitcherTokenizer#create(int)} */
+  public static JfrTokenizer create(int minTokenLength) {
+    return new JfrTokenizer(LangSwitcherTokenizer.create(minTokenLength));
+  }
+
+  /** @return tokenizer with the model from directory, see {@link LangSwitcherTokenizer#load(Path, int)} */
+  public static JfrTokenizer load(Path directory, int minTokenLength) {
+    return new JfrTokenizer(LangSwitcherTokenizer.load(directory, minTokenLength));
+  }
+
+  @Override
+  public TokenizerResponse tokenize(String input) {
+    TokenizeEvent event = new TokenizeEvent();
+    event.begin();
+    TokenizerResponse response = delegate.tokenize(input);
+    event.end();
+
+    if (event.shouldCommit()) {
+      event.inputLength = input.length();
+      event.tokenCount = response.tokens().size();
+      event.corrected = response.corrected().isPresent();
+      event.commit();
+    }
+    return response;
+  }
+}
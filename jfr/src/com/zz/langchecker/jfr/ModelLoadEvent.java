@@ -0,0 +1,43 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Loading of n-gram vocabularies and exceptions, recorded with any duration: it happens rarely.
+ */
+@Name(ModelLoadEvent.NAME)
+@Label("Model Load")
+@Description("Loading of n-gram vocabularies and exceptions")
+@Category({"LangChecker"})
+final class ModelLoadEvent extends Event {
+  static final String NAME = "com.zz.langchecker.ModelLoad";
+
+  @Label("Source")
+  @Description("Model directory, 'bundled' or 'bundled n-grams'")
+  String source;
+
+  @Label("Failure")
+  String failure;
+}
@@ -0,0 +1,46 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.jfr;
+
+import com.google.common.base.Optional;
+import com.zz.langchecker.ModelLoadListener;
+
+/**
+ * Records {@link ModelLoadEvent}s for loads reported by {@link com.zz.langchecker.ModelLoads}.
+ */
+final class ModelLoadRecorder implements ModelLoadListener {
+  @Override
+  public Load started(final String source) {
+    final ModelLoadEvent event = new ModelLoadEvent();
+    event.begin();
+    return new Load() {
+      @Override
+      public void finished(Optional<Throwable> failure) {
+        event.end();
+        if (event.shouldCommit()) {
+          event.source = source;
+          if (failure.isPresent()) {
+            event.failure = failure.get().toString();
+          }
+          event.commit();
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Call of {@link com.zz.langchecker.Tokenizer#tokenize(String)} which took longer than the threshold.
+ */
+@Name(TokenizeEvent.NAME)
+@Label("Tokenize")
+@Description("Keyboard layout correction of a phrase")
+@Category({"LangChecker"})
+@Threshold("1 ms")
+@StackTrace(false)
+final class TokenizeEvent extends Event {
+  static final String NAME = "com.zz.langchecker.Tokenize";
+
+  @Label("Input Length")
+  @Description("Number of UTF-16 chars of the input")
+  int inputLength;
+
+  @Label("Token Count")
+  int tokenCount;
+
+  @Label("Corrected")
+  boolean corrected;
+}
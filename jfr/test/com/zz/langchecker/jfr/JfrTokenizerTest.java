@@ -0,0 +1,196 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.jfr;
+
+import com.zz.langchecker.LangSwitcherTokenizer;
+import com.zz.langchecker.ReloadingTokenizer;
+import com.zz.langchecker.Tokenizer;
+import com.zz.langchecker.TokenizerResponse;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class JfrTokenizerTest {
+  @Test
+  public void recordsTokenizeCalls() throws IOException {
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable(TokenizeEvent.NAME).withThreshold(Duration.ZERO);
+      recording.start();
+
+      JfrTokenizer tokenizer = JfrTokenizer.create(0);
+      tokenizer.tokenize("руддщ цщкв");
+      tokenizer.tokenize("hello");
+
+      recording.stop();
+      events = events(recording);
+    }
+
+    RecordedEvent corrected = find(events, TokenizeEvent.NAME, 0);
+    check(corrected.getInt("inputLength")).is(10);
+    check(corrected.getInt("tokenCount")).is(2);
+    check(corrected.getBoolean("corrected"));
+    check(!find(events, TokenizeEvent.NAME, 1).getBoolean("corrected"));
+  }
+
+  @Test
+  public void recordsModelLoads() throws IOException {
+    Path directory = Files.createTempDirectory("langchecker");
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable(ModelLoadEvent.NAME);
+      recording.start();
+
+      JfrTokenizer.load(directory, 0);
+      try (ReloadingTokenizer reloading = ReloadingTokenizer.watch(directory, 0)) {
+        check(reloading.reload());
+      }
+
+      recording.stop();
+      events = events(recording);
+    } finally {
+      Files.delete(directory);
+    }
+
+    List<String> sources = new ArrayList<>();
+    for (RecordedEvent event : events) {
+      if (event.getEventType().getName().equals(ModelLoadEvent.NAME)) {
+        check(event.getString("failure") == null);
+        sources.add(event.getString("source"));
+      }
+    }
+    // loaded by the tokenizer, and the initial load and the reload of ReloadingTokenizer
+    check(sources).isOf(directory.toString(), directory.toString(), directory.toString());
+  }
+
+  @Test
+  public void recordsFailedModelLoads() throws IOException {
+    Path directory = Files.createTempDirectory("langchecker");
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable(ModelLoadEvent.NAME);
+      recording.start();
+
+      Files.write(directory.resolve("exceptions.csv"), "no separator\n".getBytes(StandardCharsets.UTF_8));
+      try {
+        JfrTokenizer.load(directory, 0);
+        throw new AssertionError("Invalid model is loaded");
+      } catch (RuntimeException expected) {
+        // reported by the event
+      }
+
+      recording.stop();
+      events = events(recording);
+    } finally {
+      Files.delete(directory.resolve("exceptions.csv"));
+      Files.delete(directory);
+    }
+
+    RecordedEvent modelLoad = find(events, ModelLoadEvent.NAME, 0);
+    check(modelLoad.getString("source")).is(directory.toString());
+    check(modelLoad.getString("failure") != null);
+  }
+
+  @Test
+  public void skipsFastCallsWithDefaultThreshold() throws IOException {
+    final TokenizerResponse response = LangSwitcherTokenizer.create().tokenize("руддщ цщкв");
+    JfrTokenizer tokenizer = new JfrTokenizer(new Tokenizer() {
+      @Override
+      public TokenizerResponse tokenize(String input) {
+        if (input.equals("slow")) {
+          try {
+            Thread.sleep(5);
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        }
+        return response;
+      }
+    });
+
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable(TokenizeEvent.NAME);
+      recording.start();
+
+      for (int i = 0; i < 1000; i++) {
+        tokenizer.tokenize("fast");
+      }
+      tokenizer.tokenize("slow");
+
+      recording.stop();
+      events = events(recording);
+    }
+
+    int tokenizeEvents = 0;
+    for (RecordedEvent event : events) {
+      if (event.getEventType().getName().equals(TokenizeEvent.NAME)) {
+        tokenizeEvents++;
+        check(event.getDuration().compareTo(Duration.ofMillis(1)) >= 0);
+      }
+    }
+    // the slow call, fast ones only if paused by GC or JIT
+    check(tokenizeEvents >= 1);
+    check(tokenizeEvents < 100);
+    check(find(events, TokenizeEvent.NAME, tokenizeEvents - 1).getInt("inputLength")).is(4);
+  }
+
+  @Test
+  public void settingsProfileIsValid() throws Exception {
+    Configuration configuration;
+    try (Reader reader = new InputStreamReader(
+        JfrTokenizer.class.getResourceAsStream("langchecker.jfc"), StandardCharsets.UTF_8)) {
+      configuration = Configuration.create(reader);
+    }
+
+    check(configuration.getSettings().get(TokenizeEvent.NAME + "#threshold")).is("1 ms");
+  }
+
+  private static List<RecordedEvent> events(Recording recording) throws IOException {
+    Path file = Files.createTempFile("langchecker", ".jfr");
+    try {
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static RecordedEvent find(List<RecordedEvent> events, String name, int index) {
+    int found = 0;
+    for (RecordedEvent event : events) {
+      if (event.getEventType().getName().equals(name) && found++ == index) {
+        return event;
+      }
+    }
+    throw new AssertionError("No " + name + " #" + index + " in " + events);
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.lucene;
+
+import com.zz.langchecker.LangSwitcherTokenizer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.LowerCaseFilter;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+
+/**
+ * Splits text by whitespace, corrects keyboard layout of terms and lowercases them.
+ * Use {@link #forIndex()} at index time and {@link #forQuery()} at query time.
+ */
+public final class LangSwitcherAnalyzer extends Analyzer {
+  private final LangSwitcherTokenizer tokenizer;
+  private final boolean preserveOriginal;
+
+  public LangSwitcherAnalyzer(LangSwitcherTokenizer tokenizer, boolean preserveOriginal) {
+    this.tokenizer = tokenizer;
+    this.preserveOriginal = preserveOriginal;
+  }
+
+  /** @return analyzer which keeps original terms next to corrected ones */
+  public static LangSwitcherAnalyzer forIndex() {
+    return new LangSwitcherAnalyzer(LangSwitcherTokenizer.create(), true);
+  }
+
+  /** @return analyzer which replaces terms by corrected ones */
+  public static LangSwitcherAnalyzer forQuery() {
+    return new LangSwitcherAnalyzer(LangSwitcherTokenizer.create(), false);
+  }
+
+  @Override
+  protected TokenStreamComponents createComponents(String fieldName) {
+    Tokenizer source = new WhitespaceTokenizer();
+    TokenStream result = new LangSwitcherFilter(source, tokenizer, preserveOriginal);
+    return new TokenStreamComponents(source, new LowerCaseFilter(result));
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.lucene;
+
+import com.google.common.base.Optional;
+import com.zz.langchecker.LangSwitcherTokenizer;
+import com.zz.langchecker.TermCorrector;
+import java.io.IOException;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+
+/**
+ * Corrects keyboard layout of each term in its term buffer, using {@link TermCorrector}.
+ * Terms which can't be corrected in place go through {@link LangSwitcherTokenizer#tokenize(String)}.
+ * <p>
+ * With {@code preserveOriginal} (useful at index time) corrected term is followed by the original one
+ * at the same position, without it (query time) only corrected term is emitted.
+ */
+public final class LangSwitcherFilter extends TokenFilter {
+  private final CharTermAttribute termAttribute = addAttribute(CharTermAttribute.class);
+  private final PositionIncrementAttribute positionIncrementAttribute =
+      addAttribute(PositionIncrementAttribute.class);
+
+  private final LangSwitcherTokenizer tokenizer;
+  private final TermCorrector termCorrector;
+  private final boolean preserveOriginal;
+
+  private State original;
+
+  public LangSwitcherFilter(TokenStream input, LangSwitcherTokenizer tokenizer, boolean preserveOriginal) {
+    super(input);
+    this.tokenizer = tokenizer;
+    this.termCorrector = tokenizer.termCorrector();
+    this.preserveOriginal = preserveOriginal;
+  }
+
+  public LangSwitcherFilter(TokenStream input, LangSwitcherTokenizer tokenizer) {
+    this(input, tokenizer, false);
+  }
+
+  @Override
+  public boolean incrementToken() throws IOException {
+    if (original != null) {
+      restoreState(original);
+      positionIncrementAttribute.setPositionIncrement(0);
+      original = null;
+      return true;
+    }
+
+    if (!input.incrementToken()) {
+      return false;
+    }
+
+    State state = preserveOriginal ? captureState() : null;
+    if (correct() && preserveOriginal) {
+      original = state;
+    }
+    return true;
+  }
+
+  private boolean correct() {
+    switch (termCorrector.correct(termAttribute.buffer(), 0, termAttribute.length())) {
+    case CORRECTED:
+      return true;
+    case UNSUPPORTED:
+      Optional<String> corrected = tokenizer.tokenize(termAttribute.toString()).corrected();
+      if (corrected.isPresent()) {
+        termAttribute.setEmpty().append(corrected.get());
+        return true;
+      }
+      return false;
+    default:
+      return false;
+    }
+  }
+
+  @Override
+  public void reset() throws IOException {
+    super.reset();
+    original = null;
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.lucene;
+
+import com.zz.langchecker.LangSwitcherTokenizer;
+import java.util.Map;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.util.TokenFilterFactory;
+
+/**
+ * Factory for {@link LangSwitcherFilter}, registered as {@code langSwitcher}.
+ * <p>
+ * Parameters: {@code preserveOriginal} (default false), {@code minTokenLength} (default 0).
+ */
+public class LangSwitcherFilterFactory extends TokenFilterFactory {
+  private final LangSwitcherTokenizer tokenizer;
+  private final boolean preserveOriginal;
+
+  public LangSwitcherFilterFactory(Map<String, String> args) {
+    super(args);
+    this.preserveOriginal = getBoolean(args, "preserveOriginal", false);
+    this.tokenizer = LangSwitcherTokenizer.create(getInt(args, "minTokenLength", 0));
+    if (!args.isEmpty()) {
+      throw new IllegalArgumentException("Unknown parameters: " + args);
+    }
+  }
+
+  @Override
+  public TokenStream create(TokenStream input) {
+    return new LangSwitcherFilter(input, tokenizer, preserveOriginal);
+  }
+}
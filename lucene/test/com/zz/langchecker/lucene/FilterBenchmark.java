@@ -0,0 +1,100 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.lucene;
+
+import com.google.common.base.Stopwatch;
+import com.zz.langchecker.LangSwitcherTokenizer;
+import java.io.IOException;
+import java.io.StringReader;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+/**
+ * Compares {@link LangSwitcherFilter} with the filter which converts each term to String and back.
+ */
+public class FilterBenchmark {
+  private static final String[] WORDS = {
+      "hello", "world", "руддщ", "цщкв", "beautiful", "источник", "игшдвштп", "xfcnbwf", "flhtc",
+      "Ghbdtn", "vbh", "<.hj", "lesson", "утопия", "gbhfvblf", "афдсщт", "борт", "24", "r.i.p."};
+
+  private static final int TERMS = 2000000;
+
+  public static void main(String[] args) throws IOException {
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    String text = text();
+
+    for (int i = 0; i < 5; i++) {
+      System.out.println("in place:   " + run(new LangSwitcherFilter(source(text), tokenizer)));
+      System.out.println("round trip: " + run(new RoundTripFilter(source(text), tokenizer)));
+    }
+  }
+
+  private static String text() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < TERMS; i++) {
+      text.append(WORDS[i % WORDS.length]).append(' ');
+    }
+    return text.toString();
+  }
+
+  private static Tokenizer source(String text) {
+    Tokenizer source = new WhitespaceTokenizer();
+    source.setReader(new StringReader(text));
+    return source;
+  }
+
+  private static String run(TokenStream stream) throws IOException {
+    CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    long chars = 0;
+
+    stream.reset();
+    while (stream.incrementToken()) {
+      chars += term.length();
+    }
+    stream.end();
+    stream.close();
+
+    stopwatch.stop();
+    return stopwatch + ", " + chars + " chars";
+  }
+
+  private static final class RoundTripFilter extends TokenFilter {
+    private final CharTermAttribute termAttribute = addAttribute(CharTermAttribute.class);
+    private final LangSwitcherTokenizer tokenizer;
+
+    RoundTripFilter(TokenStream input, LangSwitcherTokenizer tokenizer) {
+      super(input);
+      this.tokenizer = tokenizer;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+      if (!input.incrementToken()) {
+        return false;
+      }
+      String corrected = tokenizer.tokenize(termAttribute.toString()).toString();
+      termAttribute.setEmpty().append(corrected);
+      return true;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.lucene;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.zz.langchecker.LangSwitcherTokenizer;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class LangSwitcherFilterTest {
+  private static final LangSwitcherTokenizer TOKENIZER = LangSwitcherTokenizer.create();
+
+  @Test
+  public void correctsTerms() throws IOException {
+    check(terms(filter("hello word руддщ цщкдв ,bkmzhl <.hj 4еуые", false)))
+        .isOf("hello", "word", "hello", "world", "бильярд", "Бюро", "4test");
+  }
+
+  @Test
+  public void preservesOriginalAtSamePosition() throws IOException {
+    TokenStream stream = filter("руддщ world", true);
+    CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+    PositionIncrementAttribute positionIncrement = stream.addAttribute(PositionIncrementAttribute.class);
+
+    List<String> terms = Lists.newArrayList();
+    stream.reset();
+    while (stream.incrementToken()) {
+      terms.add(term.toString() + "/" + positionIncrement.getPositionIncrement());
+    }
+    stream.end();
+    stream.close();
+
+    check(terms).isOf("hello/1", "руддщ/0", "world/1");
+  }
+
+  @Test
+  public void analyzerLowercasesCorrectedTerms() throws IOException {
+    Analyzer analyzer = LangSwitcherAnalyzer.forQuery();
+
+    check(terms(analyzer.tokenStream("field", "<>HJ Ghbdtn"))).isOf("бюро", "привет");
+  }
+
+  private static TokenStream filter(String text, boolean preserveOriginal) {
+    Tokenizer source = new WhitespaceTokenizer();
+    source.setReader(new StringReader(text));
+    return new LangSwitcherFilter(source, TOKENIZER, preserveOriginal);
+  }
+
+  private static List<String> terms(TokenStream stream) throws IOException {
+    CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+    ImmutableList.Builder<String> terms = ImmutableList.builder();
+    stream.reset();
+    while (stream.incrementToken()) {
+      terms.add(term.toString());
+    }
+    stream.end();
+    stream.close();
+    return terms.build();
+  }
+}
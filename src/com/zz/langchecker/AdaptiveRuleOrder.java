@@ -0,0 +1,243 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Orders rules of {@link LangChecker} per language by the observed traffic, so that cheap rules
+ * which reject most often run first.
+ * <p>
+ * One of {@code samplePeriod} checks evaluates all rules and records time and verdict of every rule.
+ * After every {@code reorderInterval} samples rules are sorted by nanoseconds spent per rejection and
+ * statistics are halved, so the order follows changes of the traffic. Other checks stop at the first
+ * rejecting rule. Rules are independent, so the verdict is the same for any order.
+ * <p>
+ * Instances are thread-safe and can be shared by tokenizers, see {@link LangSwitcherTokenizer#withRuleOrder}.
+ */
+public final class AdaptiveRuleOrder {
+  public static final int DEFAULT_SAMPLE_PERIOD = 64;
+  public static final int DEFAULT_REORDER_INTERVAL = 4096;
+
+  private static final CheckerRule[] RULES = CheckerRule.values();
+  // cost of System.nanoTime() itself, subtracted from sampled time of rules
+  private static final long TIMER_NANOS = timerNanos();
+
+  private final int samplePeriod;
+  private final int reorderInterval;
+  private final Map<Lang, Statistics> statistics = Maps.newEnumMap(Lang.class);
+
+  AdaptiveRuleOrder(int samplePeriod, int reorderInterval) {
+    if (samplePeriod < 1 || reorderInterval < 1) {
+      throw new IllegalArgumentException("samplePeriod and reorderInterval should be positive");
+    }
+    this.samplePeriod = samplePeriod;
+    this.reorderInterval = reorderInterval;
+    for (Lang lang : Lang.values()) {
+      statistics.put(lang, new Statistics());
+    }
+  }
+
+  public static AdaptiveRuleOrder create() {
+    return create(DEFAULT_SAMPLE_PERIOD, DEFAULT_REORDER_INTERVAL);
+  }
+
+  /**
+   * @param samplePeriod one of {@code samplePeriod} checks is sampled
+   * @param reorderInterval number of samples between reorderings
+   */
+  public static AdaptiveRuleOrder create(int samplePeriod, int reorderInterval) {
+    return new AdaptiveRuleOrder(samplePeriod, reorderInterval);
+  }
+
+  /**
+   * @param language {@code "en"} or {@code "ru"}
+   * @return current order of rules for words of {@code language}
+   */
+  public List<CheckerRule> order(String language) {
+    return ImmutableList.copyOf(statistics.get(Lang.of(language)).order);
+  }
+
+  /**
+   * @param language {@code "en"} or {@code "ru"}
+   * @return sampled statistics of rules for words of {@code language}, halved at every reordering, in the current order
+   */
+  public List<RuleStatistics> statistics(String language) {
+    Statistics current = statistics.get(Lang.of(language));
+    ImmutableList.Builder<RuleStatistics> builder = ImmutableList.builder();
+    for (CheckerRule rule : current.order) {
+      int i = rule.ordinal();
+      builder.add(new RuleStatistics(
+          rule, current.evaluated.get(i), current.rejected.get(i), current.nanos.get(i)));
+    }
+    return builder.build();
+  }
+
+  /**
+   * @param language {@code "en"} or {@code "ru"}
+   * @return number of reorderings for words of {@code language}
+   */
+  public int reorderings(String language) {
+    return statistics.get(Lang.of(language)).reorderings.get();
+  }
+
+  /**
+   * @param lang language of the word, statistics are collected per language
+   * @param keys rules of the language in keys of the layout the word is typed in
+   */
+  boolean check(LangChecker checker, Lang lang, LangChecker.KeySpace keys, char[] chars, int start, int end) {
+    Statistics current = statistics.get(lang);
+    if (samplePeriod == 1 || ThreadLocalRandom.current().nextInt(samplePeriod) == 0) {
+      return checkSampled(current, checker, keys, chars, start, end);
+    }
+
+    for (CheckerRule rule : current.order) {
+      if (checker.rejects(rule, keys, chars, start, end)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean checkSampled(
+      Statistics current, LangChecker checker, LangChecker.KeySpace keys, char[] chars, int start, int end) {
+    boolean accepted = true;
+    for (CheckerRule rule : RULES) {
+      long startNanos = System.nanoTime();
+      boolean rejects = checker.rejects(rule, keys, chars, start, end);
+      long nanos = System.nanoTime() - startNanos - TIMER_NANOS;
+
+      int i = rule.ordinal();
+      current.evaluated.incrementAndGet(i);
+      current.nanos.addAndGet(i, Math.max(nanos, 0));
+      if (rejects) {
+        current.rejected.incrementAndGet(i);
+        accepted = false;
+      }
+    }
+
+    if (current.samples.incrementAndGet() % reorderInterval == 0) {
+      current.reorder();
+    }
+    return accepted;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (Lang lang : Lang.values()) {
+      String language = lang.name().toLowerCase(Locale.ROOT);
+      builder.append(language).append(": ").append(statistics(language)).append('\n');
+    }
+    return builder.toString();
+  }
+
+  private static long timerNanos() {
+    long min = Long.MAX_VALUE;
+    for (int i = 0; i < 1000; i++) {
+      long start = System.nanoTime();
+      min = Math.min(min, System.nanoTime() - start);
+    }
+    return min;
+  }
+
+  private static final class Statistics {
+    final AtomicLongArray evaluated = new AtomicLongArray(RULES.length);
+    final AtomicLongArray rejected = new AtomicLongArray(RULES.length);
+    final AtomicLongArray nanos = new AtomicLongArray(RULES.length);
+    final AtomicInteger samples = new AtomicInteger();
+    final AtomicInteger reorderings = new AtomicInteger();
+    // replaced as a whole, checks read a consistent order
+    volatile CheckerRule[] order = RULES.clone();
+
+    /** Called by the thread which took the last sample of the interval, others keep checking with the old order. */
+    void reorder() {
+      final double[] nanosPerRejection = new double[RULES.length];
+      for (int i = 0; i < RULES.length; i++) {
+        long rejections = rejected.get(i);
+        // rules which didn't reject anything go last, in the fixed order
+        nanosPerRejection[i] = rejections == 0 ? Double.POSITIVE_INFINITY : (double) nanos.get(i) / rejections;
+      }
+
+      CheckerRule[] newOrder = RULES.clone();
+      Arrays.sort(newOrder, new Comparator<CheckerRule>() {
+        @Override
+        public int compare(CheckerRule a, CheckerRule b) {
+          return Double.compare(nanosPerRejection[a.ordinal()], nanosPerRejection[b.ordinal()]);
+        }
+      });
+      order = newOrder;
+
+      for (int i = 0; i < RULES.length; i++) {
+        evaluated.addAndGet(i, -evaluated.get(i) / 2);
+        rejected.addAndGet(i, -rejected.get(i) / 2);
+        nanos.addAndGet(i, -nanos.get(i) / 2);
+      }
+      reorderings.incrementAndGet();
+    }
+  }
+
+  public static final class RuleStatistics {
+    private final CheckerRule rule;
+    private final long evaluated;
+    private final long rejected;
+    private final long nanos;
+
+    RuleStatistics(CheckerRule rule, long evaluated, long rejected, long nanos) {
+      this.rule = rule;
+      this.evaluated = evaluated;
+      this.rejected = rejected;
+      this.nanos = nanos;
+    }
+
+    public CheckerRule rule() {
+      return rule;
+    }
+
+    /** @return number of sampled checks */
+    public long evaluated() {
+      return evaluated;
+    }
+
+    /** @return number of sampled checks rejected by the rule */
+    public long rejected() {
+      return rejected;
+    }
+
+    /** @return time spent by the rule in sampled checks */
+    public long nanos() {
+      return nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ENGLISH, "%s: %.1f%% rejected, %.1f ns",
+          rule, evaluated == 0 ? 0 : rejected * 100.0 / evaluated, evaluated == 0 ? 0 : (double) nanos / evaluated);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tokenizes a batch of inputs splitting each distinct canonical form once: inputs which differ only in case
+ * (or in apostrophe variants, fullwidth forms etc., see {@link Canonicalizer}) share tokens, and the corrected
+ * phrase of each input is restored with its own upper case chars. Responses are the same as of
+ * {@link LangSwitcherTokenizer#tokenize(String)}.
+ * <p>
+ * Canonical forms are looked up by 64-bit hash in an open addressing table of primitive arrays, which is reused
+ * by batches; equal hashes are confirmed by comparing chars. {@link WorkBudget} limits splitting of each distinct
+ * canonical form, {@link SlowInputs} are not recorded.
+ * <p>
+ * Instances keep reusable buffers, so they are not thread-safe.
+ *
+ * @see LangSwitcherTokenizer#batchDeduplicator()
+ */
+public final class BatchDeduplicator {
+  private static final int EMPTY = -1;
+  private static final long SEED = 0x9E3779B97F4A7C15L;
+
+  private final LangSwitcherTokenizer tokenizer;
+  private final Canonicalizer canonicalizer = new Canonicalizer();
+
+  // open addressing table: hash of canonical form and index of its distinct input
+  private long[] hashes = new long[16];
+  private int[] indexes = new int[16];
+  private final List<String> canonicals = Lists.newArrayList();
+  private final List<List<Token>> tokens = Lists.newArrayList();
+  private final List<TokenizerResponse> responses = Lists.newArrayList();
+
+  private int lastBatchSize;
+  private int lastDistinct;
+
+  BatchDeduplicator(LangSwitcherTokenizer tokenizer) {
+    this.tokenizer = tokenizer;
+  }
+
+  /**
+   * @return responses of {@code inputs} in the same order
+   */
+  public List<TokenizerResponse> tokenize(List<String> inputs) {
+    int mask = clear(inputs.size());
+    ImmutableList.Builder<TokenizerResponse> batch = ImmutableList.builder();
+    try {
+      for (String input : inputs) {
+        canonicalizer.canonicalize(input);
+        char[] chars = canonicalizer.chars();
+        int length = canonicalizer.length();
+        long hash = hash(chars, length);
+
+        int slot = (int) hash & mask;
+        int index;
+        while ((index = indexes[slot]) != EMPTY
+            && (hashes[slot] != hash || !equals(canonicals.get(index), chars, length))) {
+          slot = (slot + 1) & mask;
+        }
+
+        if (index == EMPTY) {
+          index = canonicals.size();
+          hashes[slot] = hash;
+          indexes[slot] = index;
+          String canonical = canonicalizer.canonical();
+          canonicals.add(canonical);
+          tokens.add(tokenizer.splitCall(canonical));
+          responses.add(null);
+        }
+
+        // inputs equal to the first one of their canonical form share its response
+        TokenizerResponse response = responses.get(index);
+        if (response == null || !response.original().equals(input)) {
+          TokenizerResponse own = tokenizer.response(input, canonicalizer, canonicals.get(index), tokens.get(index));
+          if (response == null) {
+            responses.set(index, own);
+          }
+          response = own;
+        }
+        batch.add(response);
+      }
+      lastBatchSize = inputs.size();
+      lastDistinct = canonicals.size();
+      return batch.build();
+    } finally {
+      // the batch is not retained
+      canonicals.clear();
+      tokens.clear();
+      responses.clear();
+    }
+  }
+
+  /** @return number of inputs in the last batch */
+  public int lastBatchSize() {
+    return lastBatchSize;
+  }
+
+  /** @return number of distinct canonical forms in the last batch, each of them was split once */
+  public int lastDistinct() {
+    return lastDistinct;
+  }
+
+  /** @return share of inputs of the last batch which reused tokens of another input, from 0 to 1 */
+  public double lastDedupRatio() {
+    return lastBatchSize == 0 ? 0 : 1 - (double) lastDistinct / lastBatchSize;
+  }
+
+  /** @return mask of the table for {@code size} inputs, the table is empty */
+  private int clear(int size) {
+    int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) * 2;
+    if (hashes.length < capacity) {
+      hashes = new long[capacity];
+      indexes = new int[capacity];
+    }
+    Arrays.fill(indexes, 0, capacity, EMPTY);
+    return capacity - 1;
+  }
+
+  static long hash(char[] chars, int length) {
+    long hash = length;
+    for (int i = 0; i < length; i++) {
+      hash = hash * 31 + chars[i];
+    }
+    return NgramSet.hash(hash, SEED);
+  }
+
+  private static boolean equals(String canonical, char[] chars, int length) {
+    if (canonical.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (canonical.charAt(i) != chars[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
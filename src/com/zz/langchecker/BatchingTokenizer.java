@@ -0,0 +1,309 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.Closeable;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous facade which collects calls from many threads into batches and tokenizes each batch
+ * on a dedicated worker thread, so the model stays hot in the cache of one core.
+ * <p>
+ * A batch is closed when it has {@code maxBatchSize} calls or when {@code maxDelay} has passed since
+ * submission of its first call, whichever comes first. Larger window gives larger batches and higher
+ * throughput for the price of latency; zero delay tokenizes whatever is queued without waiting.
+ * <p>
+ * Started by {@link #startDeduplicating} the facade splits identical canonical inputs of a batch once,
+ * see {@link BatchDeduplicator}, which pays off when the same queries come in bursts.
+ *
+ * @see #stats()
+ */
+public final class BatchingTokenizer implements Closeable {
+  private final Tokenizer tokenizer;
+  // null if calls are not deduplicated
+  private final BatchDeduplicator deduplicator;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final BlockingQueue<Call> queue = Queues.newLinkedBlockingQueue();
+  private final Thread worker;
+  private final Stats stats = new Stats();
+
+  private volatile boolean closed;
+
+  private BatchingTokenizer(
+      Tokenizer tokenizer, BatchDeduplicator deduplicator, int maxBatchSize, long maxDelayNanos) {
+    this.tokenizer = tokenizer;
+    this.deduplicator = deduplicator;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelayNanos;
+    this.worker = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        work();
+      }
+    }, "langchecker-batching");
+    this.worker.setDaemon(true);
+  }
+
+  /**
+   * @param tokenizer tokenizer called by the worker thread only
+   * @param maxBatchSize maximum number of calls in a batch
+   * @param maxDelay maximum time a call waits for its batch to fill
+   */
+  public static BatchingTokenizer start(Tokenizer tokenizer, int maxBatchSize, long maxDelay, TimeUnit unit) {
+    return start(tokenizer, null, maxBatchSize, maxDelay, unit);
+  }
+
+  /**
+   * Same as {@link #start}, but identical canonical inputs of a batch are split once.
+   *
+   * @see Stats#dedupRatio()
+   */
+  public static BatchingTokenizer startDeduplicating(
+      LangSwitcherTokenizer tokenizer, int maxBatchSize, long maxDelay, TimeUnit unit) {
+    return start(tokenizer, tokenizer.batchDeduplicator(), maxBatchSize, maxDelay, unit);
+  }
+
+  private static BatchingTokenizer start(
+      Tokenizer tokenizer, BatchDeduplicator deduplicator, int maxBatchSize, long maxDelay, TimeUnit unit) {
+    if (maxBatchSize < 1 || maxDelay < 0) {
+      throw new IllegalArgumentException("maxBatchSize should be positive and maxDelay non-negative");
+    }
+    BatchingTokenizer batchingTokenizer =
+        new BatchingTokenizer(tokenizer, deduplicator, maxBatchSize, unit.toNanos(maxDelay));
+    batchingTokenizer.worker.start();
+    return batchingTokenizer;
+  }
+
+  /**
+   * @return future of the response, failed with {@link RejectedExecutionException} if the facade is closed
+   */
+  public ListenableFuture<TokenizerResponse> submit(String input) {
+    if (closed) {
+      return Futures.immediateFailedFuture(new RejectedExecutionException("BatchingTokenizer is closed"));
+    }
+    Call call = new Call(input, System.nanoTime());
+    queue.add(call);
+    // the worker may have stopped between the check and add
+    if (closed && queue.remove(call)) {
+      call.future.setException(new RejectedExecutionException("BatchingTokenizer is closed"));
+    }
+    return call.future;
+  }
+
+  /** @return snapshot of batch sizes and queueing delays since start */
+  public Stats stats() {
+    synchronized (stats) {
+      return stats.copy();
+    }
+  }
+
+  private void work() {
+    List<Call> batch = Lists.newArrayListWithCapacity(maxBatchSize);
+    try {
+      while (!closed) {
+        Call first = queue.take();
+        batch.add(first);
+        queue.drainTo(batch, maxBatchSize - batch.size());
+
+        long deadline = first.submitNanos + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+          long remaining = deadline - System.nanoTime();
+          Call next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+          queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+
+        process(batch);
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      // closed
+    } finally {
+      // also if the worker dies by an error: later calls are rejected, pending ones are cancelled
+      closed = true;
+      for (Call call : batch) {
+        call.future.cancel(false);
+      }
+      for (Call call = queue.poll(); call != null; call = queue.poll()) {
+        call.future.cancel(false);
+      }
+    }
+  }
+
+  private void process(List<Call> batch) {
+    long startNanos = System.nanoTime();
+    long delayNanos = 0;
+    long maxDelayNanos = 0;
+    for (Call call : batch) {
+      long delay = startNanos - call.submitNanos;
+      delayNanos += delay;
+      maxDelayNanos = Math.max(maxDelayNanos, delay);
+    }
+    List<TokenizerResponse> responses = deduplicate(batch);
+    // recorded before futures are completed, so callers see stats of their batch
+    synchronized (stats) {
+      stats.add(batch.size(), responses != null ? deduplicator.lastDistinct() : batch.size(),
+          delayNanos, maxDelayNanos);
+    }
+
+    if (responses != null) {
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).future.set(responses.get(i));
+      }
+      return;
+    }
+    for (Call call : batch) {
+      try {
+        call.future.set(tokenizer.tokenize(call.input));
+      } catch (Throwable e) {
+        // errors like StackOverflowError fail the call, not the worker
+        call.future.setException(e);
+      }
+    }
+  }
+
+  /**
+   * @return responses of the batch or null if calls are not deduplicated or one of them failed,
+   *     the batch is then tokenized call by call
+   */
+  private List<TokenizerResponse> deduplicate(List<Call> batch) {
+    if (deduplicator == null) {
+      return null;
+    }
+    List<String> inputs = Lists.newArrayListWithCapacity(batch.size());
+    for (Call call : batch) {
+      inputs.add(call.input);
+    }
+    try {
+      return deduplicator.tokenize(inputs);
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+
+  /** Stops the worker after the current batch, calls which are not tokenized yet are cancelled. */
+  @Override
+  public void close() {
+    closed = true;
+    worker.interrupt();
+    if (Thread.currentThread() != worker) {
+      Uninterruptibles.joinUninterruptibly(worker);
+    }
+    for (Call call = queue.poll(); call != null; call = queue.poll()) {
+      call.future.cancel(false);
+    }
+  }
+
+  private static final class Call {
+    final String input;
+    final long submitNanos;
+    final SettableFuture<TokenizerResponse> future = SettableFuture.create();
+
+    Call(String input, long submitNanos) {
+      this.input = input;
+      this.submitNanos = submitNanos;
+    }
+  }
+
+  public static final class Stats {
+    private long batches;
+    private long calls;
+    private long distinctCalls;
+    private int maxBatchSize;
+    private long delayNanos;
+    private long maxDelayNanos;
+
+    private void add(int batchSize, int distinct, long batchDelayNanos, long batchMaxDelayNanos) {
+      batches++;
+      calls += batchSize;
+      distinctCalls += distinct;
+      maxBatchSize = Math.max(maxBatchSize, batchSize);
+      delayNanos += batchDelayNanos;
+      maxDelayNanos = Math.max(maxDelayNanos, batchMaxDelayNanos);
+    }
+
+    private Stats copy() {
+      Stats copy = new Stats();
+      copy.batches = batches;
+      copy.calls = calls;
+      copy.distinctCalls = distinctCalls;
+      copy.maxBatchSize = maxBatchSize;
+      copy.delayNanos = delayNanos;
+      copy.maxDelayNanos = maxDelayNanos;
+      return copy;
+    }
+
+    public long batches() {
+      return batches;
+    }
+
+    public long calls() {
+      return calls;
+    }
+
+    /** @return number of calls which were split, calls with the same canonical input in a batch count once */
+    public long distinctCalls() {
+      return distinctCalls;
+    }
+
+    /** @return share of calls which reused tokens of another call of their batch, 0 if not deduplicated */
+    public double dedupRatio() {
+      return calls == 0 ? 0 : 1 - (double) distinctCalls / calls;
+    }
+
+    public double averageBatchSize() {
+      return batches == 0 ? 0 : (double) calls / batches;
+    }
+
+    public int maxBatchSize() {
+      return maxBatchSize;
+    }
+
+    /** @return average time from submission to the start of the batch */
+    public double averageQueueDelay(TimeUnit unit) {
+      return calls == 0 ? 0 : (double) delayNanos / calls / unit.toNanos(1);
+    }
+
+    public long maxQueueDelay(TimeUnit unit) {
+      return unit.convert(maxDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ENGLISH,
+          "%d calls, %d batches, batch size %.1f avg %d max, queue delay %.1f us avg %d us max, dedup %.1f%%",
+          calls, batches, averageBatchSize(), maxBatchSize,
+          averageQueueDelay(TimeUnit.MICROSECONDS), maxQueueDelay(TimeUnit.MICROSECONDS), dedupRatio() * 100);
+    }
+  }
+}
@@ -0,0 +1,346 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corrects UTF-8 text files line by line.
+ * <p>
+ * Input is memory-mapped in blocks which end on line boundary, blocks are decoded and tokenized
+ * on a worker pool and written to output channel in input order.
+ * <p>
+ * Usage: {@code BulkCorrector [--threads N] [--block-size BYTES] [--changed-only] [--progress]
+ * [--range START END] <input> <output>}, {@code --range} corrects only bytes from {@code START} to {@code END}
+ * of input, which should start at line start, see {@link PartitionCoordinator}.
+ */
+public final class BulkCorrector {
+  public static final int DEFAULT_BLOCK_SIZE = 4 * 1024 * 1024;
+
+  private static final byte NEW_LINE = '\n';
+  private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+  private final Tokenizer tokenizer;
+  private final int threads;
+  private final int blockSize;
+  private final boolean changedOnly;
+
+  /**
+   * @param tokenizer thread-safe tokenizer
+   * @param threads number of worker threads
+   * @param blockSize approximate size of input block in bytes, block is extended to the end of line
+   * @param changedOnly if true only lines with {@link TokenizerResponse#corrected()} are written
+   */
+  public BulkCorrector(Tokenizer tokenizer, int threads, int blockSize, boolean changedOnly) {
+    if (threads < 1 || blockSize < 1) {
+      throw new IllegalArgumentException("threads and blockSize should be positive");
+    }
+    this.tokenizer = tokenizer;
+    this.threads = threads;
+    this.blockSize = blockSize;
+    this.changedOnly = changedOnly;
+  }
+
+  public static void main(String[] args) throws IOException {
+    int threads = Runtime.getRuntime().availableProcessors();
+    int blockSize = DEFAULT_BLOCK_SIZE;
+    boolean changedOnly = false;
+    boolean progress = false;
+    long start = 0;
+    long end = -1;
+
+    int i = 0;
+    for (; i < args.length && args[i].startsWith("--"); i++) {
+      switch (args[i]) {
+      case "--threads":
+        threads = Integer.parseInt(args[++i]);
+        break;
+      case "--block-size":
+        blockSize = Integer.parseInt(args[++i]);
+        break;
+      case "--changed-only":
+        changedOnly = true;
+        break;
+      case "--progress":
+        progress = true;
+        break;
+      case "--range":
+        start = Long.parseLong(args[++i]);
+        end = Long.parseLong(args[++i]);
+        break;
+      default:
+        usage();
+      }
+    }
+    if (args.length - i != 2) {
+      usage();
+    }
+
+    BulkCorrector corrector = new BulkCorrector(LangSwitcherTokenizer.create(), threads, blockSize, changedOnly);
+    Path input = Paths.get(args[i]);
+    Stats stats = corrector.correct(
+        input, start, end < 0 ? Files.size(input) : end, Paths.get(args[i + 1]), progress ? System.err : null);
+    System.err.println(stats);
+  }
+
+  private static void usage() {
+    System.err.println(
+        "Usage: BulkCorrector [--threads N] [--block-size BYTES] [--changed-only] [--progress] [--range START END] "
+            + "<input> <output>");
+    System.exit(2);
+  }
+
+  /**
+   * @param progress stream to report progress to every second, may be null
+   */
+  public Stats correct(Path input, Path output, PrintStream progress) throws IOException {
+    return correct(input, 0, Files.size(input), output, progress);
+  }
+
+  /**
+   * Corrects bytes of {@code input} from {@code start} to {@code end}.
+   *
+   * @param start start of a line in input
+   * @param progress stream to report progress to every second, may be null
+   * @throws IOException also if a line is longer than 2 GB, it can't be mapped
+   */
+  public Stats correct(Path input, long start, long end, Path output, PrintStream progress) throws IOException {
+    if (start < 0 || end < start) {
+      throw new IllegalArgumentException("Invalid range: " + start + ".." + end);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder().setNameFormat("bulk-corrector-%d").setDaemon(true).build());
+    try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+         FileChannel out = FileChannel.open(output,
+             StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      return correct(in, start, Math.min(end, in.size()), out, executor, progress);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Stats correct(
+      FileChannel in, long start, long end, FileChannel out, ExecutorService executor, PrintStream progress)
+      throws IOException {
+    Stats stats = new Stats();
+    long position = start;
+    long lastProgress = System.nanoTime();
+    // blocks in flight, bounded to keep memory proportional to the number of threads
+    Queue<Future<Block>> pending = Queues.newArrayDeque();
+
+    while (position < end || !pending.isEmpty()) {
+      while (position < end && pending.size() < threads * 2) {
+        ByteBuffer block = nextBlock(in, position, end);
+        position += block.remaining();
+        pending.add(executor.submit(new BlockTask(block)));
+      }
+
+      Block block = await(pending.remove());
+      while (block.output.hasRemaining()) {
+        out.write(block.output);
+      }
+      stats.add(block);
+
+      if (progress != null && System.nanoTime() - lastProgress > PROGRESS_INTERVAL) {
+        lastProgress = System.nanoTime();
+        progress.println(String.format(Locale.ENGLISH, "%5.1f%% %s",
+            stats.bytesRead * 100.0 / Math.max(end - start, 1), stats));
+      }
+    }
+
+    stats.finish();
+    return stats;
+  }
+
+  /**
+   * Maps block of at least {@code blockSize} bytes, which ends with new line or at {@code end}.
+   *
+   * @throws IOException if a line doesn't fit into a mapped buffer
+   */
+  private ByteBuffer nextBlock(FileChannel in, long position, long end) throws IOException {
+    long length = Math.min(blockSize, end - position);
+    while (true) {
+      ByteBuffer block = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+      if (position + length == end) {
+        return block;
+      }
+
+      for (int i = block.limit() - 1; i >= 0; i--) {
+        if (block.get(i) == NEW_LINE) {
+          block.limit(i + 1);
+          return block;
+        }
+      }
+
+      // line is longer than block
+      long grown = Math.min(Math.min(length * 2, Integer.MAX_VALUE), end - position);
+      if (grown == length) {
+        throw new IOException("line longer than 2 GB");
+      }
+      length = grown;
+    }
+  }
+
+  private static Block await(Future<Block> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  private final class BlockTask implements Callable<Block> {
+    private final ByteBuffer input;
+
+    BlockTask(ByteBuffer input) {
+      this.input = input;
+    }
+
+    @Override
+    public Block call() throws CharacterCodingException {
+      CharsetDecoder decoder = Charsets.UTF_8.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      int bytesRead = input.remaining();
+      CharBuffer chars = decoder.decode(input);
+
+      StringBuilder corrected = new StringBuilder(chars.length());
+      int lines = 0;
+      int changedLines = 0;
+      int start = 0;
+      int length = chars.length();
+      while (start < length) {
+        int end = start;
+        while (end < length && chars.get(end) != NEW_LINE) {
+          end++;
+        }
+        int next = end < length ? end + 1 : end;
+        // keep \r of \r\n line ending out of the tokenizer
+        if (end > start && chars.get(end - 1) == '\r') {
+          end--;
+        }
+
+        TokenizerResponse response = tokenizer.tokenize(chars.subSequence(start, end).toString());
+        lines++;
+        if (response.corrected().isPresent()) {
+          changedLines++;
+        }
+        if (!changedOnly || response.corrected().isPresent()) {
+          corrected.append(response).append(chars, end, next);
+          if (changedOnly && next == end) {
+            corrected.append((char) NEW_LINE);
+          }
+        }
+
+        start = next;
+      }
+
+      return new Block(bytesRead, Charsets.UTF_8.newEncoder().encode(CharBuffer.wrap(corrected)), lines, changedLines);
+    }
+  }
+
+  private static final class Block {
+    final int bytesRead;
+    final ByteBuffer output;
+    final int lines;
+    final int changedLines;
+
+    Block(int bytesRead, ByteBuffer output, int lines, int changedLines) {
+      this.bytesRead = bytesRead;
+      this.output = output;
+      this.lines = lines;
+      this.changedLines = changedLines;
+    }
+  }
+
+  public static final class Stats {
+    private final long startNanos = System.nanoTime();
+    private long nanos;
+    private long bytesRead;
+    private long bytesWritten;
+    private long lines;
+    private long changedLines;
+
+    private void add(Block block) {
+      bytesRead += block.bytesRead;
+      bytesWritten += block.output.limit();
+      lines += block.lines;
+      changedLines += block.changedLines;
+      nanos = System.nanoTime() - startNanos;
+    }
+
+    private void finish() {
+      nanos = System.nanoTime() - startNanos;
+    }
+
+    public long bytesRead() {
+      return bytesRead;
+    }
+
+    public long bytesWritten() {
+      return bytesWritten;
+    }
+
+    public long lines() {
+      return lines;
+    }
+
+    public long changedLines() {
+      return changedLines;
+    }
+
+    public long elapsed(TimeUnit unit) {
+      return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+      double seconds = Math.max(nanos, 1) / 1e9;
+      return String.format(Locale.ENGLISH, "%d lines, %d changed, %.1f MB read, %.1f MB/s, %.0f lines/s",
+          lines, changedLines, bytesRead / 1e6, bytesRead / 1e6 / seconds, lines / seconds);
+    }
+  }
+}
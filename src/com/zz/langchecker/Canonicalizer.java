@@ -0,0 +1,203 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.Arrays;
+
+/**
+ * Canonical form of input: lower case, one apostrophe, ASCII instead of fullwidth forms and
+ * plain space instead of no-break spaces, produced together with the mask of upper case chars in one pass.
+ * <p>
+ * Chars below {@code U+0500} (ASCII, Latin-1 and Cyrillic, including {@code Ё}) are mapped by table, other
+ * chars by simple case mapping, so the result doesn't depend on default locale and has the length of input.
+ * Chars which are Russian letters in upper case on the other layout ({@code <, >, :, "} etc.) are marked
+ * as upper case, see {@link Characters#isPossibleRuInUppercase(char)}.
+ * <p>
+ * Instances keep reusable buffers, so they are not thread-safe.
+ */
+final class Canonicalizer {
+  private static final char APOSTROPHE = '\'';
+  private static final int TABLE_SIZE = 0x500;
+  private static final char FULLWIDTH_FIRST = '\uFF01';
+  private static final char FULLWIDTH_LAST = '\uFF5E';
+  private static final int FULLWIDTH_OFFSET = FULLWIDTH_FIRST - '!';
+
+  private static final char[] CANONICAL = new char[TABLE_SIZE];
+  private static final boolean[] UPPER_CASE = new boolean[TABLE_SIZE];
+
+  static {
+    for (char ch = 0; ch < TABLE_SIZE; ch++) {
+      CANONICAL[ch] = Character.toLowerCase(ch);
+      UPPER_CASE[ch] = Character.isUpperCase(ch) || Characters.isPossibleRuInUppercase(ch);
+    }
+    CANONICAL['`'] = APOSTROPHE;
+    // no-break space
+    CANONICAL['\u00A0'] = ' ';
+    // modifier letter apostrophe
+    CANONICAL['\u02BC'] = APOSTROPHE;
+  }
+
+  private char[] chars = new char[64];
+  private long[] upperCase = new long[1];
+  private int length;
+
+  /** Canonicalizes {@code input} into the buffer of this instance, see {@link #chars()}. */
+  void canonicalize(String input) {
+    ensureCapacity(input.length());
+    input.getChars(0, length, chars, 0);
+    canonicalizeChars();
+  }
+
+  /** Same as {@link #canonicalize(String)} for {@code length} chars of {@code input} from {@code offset}. */
+  void canonicalize(char[] input, int offset, int length) {
+    ensureCapacity(length);
+    System.arraycopy(input, offset, chars, 0, length);
+    canonicalizeChars();
+  }
+
+  private void ensureCapacity(int length) {
+    this.length = length;
+    if (chars.length < length) {
+      chars = new char[Math.max(length, chars.length * 2)];
+    }
+    int words = (length + 63) >>> 6;
+    if (upperCase.length < words) {
+      upperCase = new long[Math.max(words, upperCase.length * 2)];
+    } else {
+      Arrays.fill(upperCase, 0, words, 0);
+    }
+  }
+
+  private void canonicalizeChars() {
+    for (int i = 0; i < length; i++) {
+      char ch = chars[i];
+      if (ch < TABLE_SIZE) {
+        chars[i] = CANONICAL[ch];
+        if (UPPER_CASE[ch]) {
+          upperCase[i >>> 6] |= 1L << i;
+        }
+      } else {
+        chars[i] = canonicalBeyondTable(ch);
+        if (isUpperCaseBeyondTable(ch)) {
+          upperCase[i >>> 6] |= 1L << i;
+        }
+      }
+    }
+  }
+
+  /** @return buffer with canonical form of the last input in {@code [0, length())} */
+  char[] chars() {
+    return chars;
+  }
+
+  int length() {
+    return length;
+  }
+
+  String canonical() {
+    return new String(chars, 0, length);
+  }
+
+  boolean isUpperCase(int i) {
+    return (upperCase[i >>> 6] & 1L << i) != 0;
+  }
+
+  /**
+   * @param corrected correction of the canonical form of {@code input}
+   * @return {@code corrected} with upper case of {@code input}, unchanged chars are taken from {@code input} as is
+   */
+  String restore(String input, String corrected) {
+    int correctedLength = corrected.length();
+    char[] restored = new char[correctedLength];
+    corrected.getChars(0, correctedLength, restored, 0);
+    boolean sameLength = correctedLength == length;
+    for (int i = 0; i < Math.min(correctedLength, length); i++) {
+      if (sameLength && restored[i] == chars[i]) {
+        restored[i] = input.charAt(i);
+      } else if (isUpperCase(i)) {
+        restored[i] = Character.toUpperCase(restored[i]);
+      }
+    }
+    return new String(restored);
+  }
+
+  /**
+   * Same as {@link #restore(String, String)} for {@code correctedLength} chars of {@code corrected},
+   * writes as many chars as fit into {@code destination} from {@code destinationStart}.
+   *
+   * @param input chars of the input from {@code inputStart}
+   */
+  void restore(
+      char[] input, int inputStart, char[] corrected, int correctedLength, char[] destination, int destinationStart) {
+    int restoredLength = Math.min(correctedLength, destination.length - destinationStart);
+    boolean sameLength = correctedLength == length;
+    for (int i = 0; i < restoredLength; i++) {
+      char ch = corrected[i];
+      if (i >= length) {
+        destination[destinationStart + i] = ch;
+      } else if (sameLength && ch == chars[i]) {
+        destination[destinationStart + i] = input[inputStart + i];
+      } else {
+        destination[destinationStart + i] = isUpperCase(i) ? Character.toUpperCase(ch) : ch;
+      }
+    }
+  }
+
+  static char canonical(char ch) {
+    return ch < TABLE_SIZE ? CANONICAL[ch] : canonicalBeyondTable(ch);
+  }
+
+  static boolean isUpperCase(char ch) {
+    return ch < TABLE_SIZE ? UPPER_CASE[ch] : isUpperCaseBeyondTable(ch);
+  }
+
+  static String canonical(String input) {
+    char[] canonical = input.toCharArray();
+    for (int i = 0; i < canonical.length; i++) {
+      canonical[i] = canonical(canonical[i]);
+    }
+    return new String(canonical);
+  }
+
+  private static char canonicalBeyondTable(char ch) {
+    if (ch >= FULLWIDTH_FIRST && ch <= FULLWIDTH_LAST) {
+      return canonical((char) (ch - FULLWIDTH_OFFSET));
+    }
+    switch (ch) {
+    // left and right single quotation marks, prime
+    case '\u2018':
+    case '\u2019':
+    case '\u2032':
+      return APOSTROPHE;
+    // figure space, narrow no-break space
+    case '\u2007':
+    case '\u202F':
+      return ' ';
+    default:
+      return Character.toLowerCase(ch);
+    }
+  }
+
+  private static boolean isUpperCaseBeyondTable(char ch) {
+    if (ch >= FULLWIDTH_FIRST && ch <= FULLWIDTH_LAST) {
+      return UPPER_CASE[ch - FULLWIDTH_OFFSET];
+    }
+    return Character.isUpperCase(ch);
+  }
+}
@@ -68,6 +68,10 @@ enum CharType {
       this.mask = 0;
     }
 
+    public void clear() {
+      this.mask = 0;
+    }
+
     public void add(CharType charType) {
       this.mask |= charType.mask;
     }
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Chars;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -70,8 +71,8 @@ final class Characters {
 
   private static final char[] POSSIBLE_RU_IN_UPPERCASE = {'<', '~', ':', '{', '}', '"', '>'};
 
-  private static final Map<Character, Character> SWITCH_RU_FROM_EN; static {
-    SWITCH_RU_FROM_EN = ImmutableMap.<Character, Character>builder()
+  // switch maps as tables indexed by char, to switch without boxing
+  private static final char[] SWITCH_TABLE_RU = switchTable(ImmutableMap.<Character, Character>builder()
         .put('f', 'а')
         .put(',', 'б').put('<', 'б')
         .put('d', 'в')
@@ -105,11 +106,9 @@ final class Characters {
         .put('\'', 'э').put('"', 'э')
         .put('.', 'ю').put('>', 'ю')
         .put('z', 'я')
-        .build();
-  }
+        .build());
 
-  private static final Map<Character, Character> SWITCH_EN_FROM_RU; static {
-    SWITCH_EN_FROM_RU = ImmutableMap.<Character, Character>builder()
+  private static final char[] SWITCH_TABLE_EN = switchTable(ImmutableMap.<Character, Character>builder()
         .put('ф', 'a')
         .put('и', 'b')
         .put('с', 'c')
@@ -143,25 +142,115 @@ final class Characters {
         .put('х', '[')
         .put('ъ', ']')
         .put('ю', '.')
-        .build();
-  }
+        .build());
 
-  private static final Map<Lang, Map<Character, Character>> KEYBOARD_LAYOUTS =
-      ImmutableMap.of(Lang.RU, SWITCH_RU_FROM_EN, Lang.EN, SWITCH_EN_FROM_RU);
+  // keys of English (Russian) layout by char of the other layout they are switched to, see keysSwitchedTo
+  private static final char[][] KEYS_EN = keysTable(SWITCH_TABLE_RU);
+  private static final char[][] KEYS_RU = keysTable(SWITCH_TABLE_EN);
 
   private Characters() {
   }
 
+  private static char[] switchTable(Map<Character, Character> switchMap) {
+    char max = 0;
+    for (char ch : switchMap.keySet()) {
+      max = (char) Math.max(max, ch);
+    }
+    char[] table = new char[max + 1];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (char) i;
+    }
+    for (Map.Entry<Character, Character> entry : switchMap.entrySet()) {
+      table[entry.getKey()] = entry.getValue();
+    }
+    return table;
+  }
+
+  private static char[][] keysTable(char[] switchTable) {
+    char max = 0;
+    for (char ch : switchTable) {
+      max = (char) Math.max(max, ch);
+    }
+    char[][] keys = new char[max + 1][];
+    Arrays.fill(keys, new char[0]);
+    for (char key = 0; key < switchTable.length; key++) {
+      char ch = switchTable[key];
+      if (ch != key) {
+        keys[ch] = Arrays.copyOf(keys[ch], keys[ch].length + 1);
+        keys[ch][keys[ch].length - 1] = key;
+      }
+    }
+    return keys;
+  }
+
+  /** @return approximate heap size of the tables switching to {@code destinationLang} in bytes */
+  static long switchTablesSizeInBytes(Lang destinationLang) {
+    char[] switchTable = destinationLang == Lang.RU ? SWITCH_TABLE_RU : SWITCH_TABLE_EN;
+    char[][] keys = destinationLang == Lang.RU ? KEYS_EN : KEYS_RU;
+    // array header is 16 bytes, empty arrays of keys are the same instance
+    long size = 2L * switchTable.length + 4L * keys.length + 3 * 16;
+    for (char[] chars : keys) {
+      size += chars.length == 0 ? 0 : 2 * chars.length + 16;
+    }
+    return size;
+  }
+
   public static String switchLang(String word, Lang destinationLang) {
-    Map<Character, Character> switchTable = KEYBOARD_LAYOUTS.get(destinationLang);
     char[] chars = word.toCharArray();
-    for (int i = 0; i < chars.length; i++) {
-      Character replacement = switchTable.get(chars[i]);
-      if (replacement != null) {
-        chars[i] = replacement;
+    switchLang(chars, 0, chars.length, destinationLang, chars, 0);
+    return new String(chars);
+  }
+
+  /**
+   * Switches {@code chars} from {@code start} to {@code end} to {@code destinationLang} keyboard layout
+   * and writes them to {@code destination} from {@code destinationStart}, source and destination can be the same.
+   */
+  public static void switchLang(
+      char[] chars,
+      int start,
+      int end,
+      Lang destinationLang,
+      char[] destination,
+      int destinationStart) {
+    for (int i = start, j = destinationStart; i < end; i++, j++) {
+      destination[j] = switchLang(chars[i], destinationLang);
+    }
+  }
+
+  public static char switchLang(char ch, Lang destinationLang) {
+    char[] switchTable = destinationLang == Lang.RU ? SWITCH_TABLE_RU : SWITCH_TABLE_EN;
+    return ch < switchTable.length ? switchTable[ch] : ch;
+  }
+
+  /**
+   * @return keys of {@code layout} which are switched to {@code ch} of the other layout, for example
+   *     {@code ',', '<'} for {@code 'б'} and {@link Lang#EN}
+   */
+  static char[] keysSwitchedTo(char ch, Lang layout) {
+    char[][] keys = layout == Lang.EN ? KEYS_EN : KEYS_RU;
+    return ch < keys.length ? keys[ch].clone() : new char[0];
+  }
+
+  /**
+   * @return all sequences of keys of {@code layout} which are switched to {@code word} of the other layout,
+   *     chars which no key is switched to (like {@code *}) are kept as is
+   */
+  static List<String> keysSwitchedTo(String word, Lang layout) {
+    List<String> sequences = Lists.newArrayList("");
+    for (char ch : word.toCharArray()) {
+      char[] keys = keysSwitchedTo(ch, layout);
+      if (keys.length == 0) {
+        keys = new char[] {ch};
+      }
+      List<String> longer = Lists.newArrayListWithCapacity(sequences.size() * keys.length);
+      for (String sequence : sequences) {
+        for (char key : keys) {
+          longer.add(sequence + key);
+        }
       }
+      sequences = longer;
     }
-    return new String(chars);
+    return sequences;
   }
 
   public static Function<String, String> switchLangFunction(final Lang destinationLang) {
@@ -302,11 +391,20 @@ final class Characters {
     return false;
   }
 
+  public static boolean hasVowel(Lang lang, char[] chars, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (isVowel(lang, chars[i])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public static List<Integer> uppercasePositions(String str) {
     List<Integer> uppercasePositions = Lists.newArrayListWithCapacity(str.length());
     char[] chars = str.toCharArray();
     for (int i = 0; i < chars.length; i++) {
-      if (Character.isUpperCase(chars[i]) || isPossibleRuInUppercase(chars[i])) {
+      if (Canonicalizer.isUpperCase(chars[i])) {
         uppercasePositions.add(i);
       }
     }
@@ -328,15 +426,66 @@ final class Characters {
     return s.toString();
   }
 
+  /**
+   * @param length length of the phrase the chars from {@code start} to {@code end} are taken from
+   * @return true if the chars are a URL scheme followed by {@code //}, like {@code https:} of {@code https://}
+   */
+  public static boolean isUrlScheme(char[] chars, int start, int end, int length) {
+    if (end - start < 2 || chars[end - 1] != ':' || end + 1 >= length || chars[end] != '/' || chars[end + 1] != '/') {
+      return false;
+    }
+    for (int i = start; i < end - 1; i++) {
+      if (chars[i] < 'a' || chars[i] > 'z') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the chars from {@code start} to {@code end} are a host name right after {@code ://},
+   *     like {@code ya.ru} of {@code https://ya.ru}
+   */
+  public static boolean isUrlHost(char[] chars, int start, int end) {
+    return start >= 3 && chars[start - 3] == ':' && chars[start - 2] == '/' && chars[start - 1] == '/'
+        && isHostName(chars, start, end);
+  }
+
+  /**
+   * @return true if the chars from {@code start} to {@code end} look like a host name with a top-level domain,
+   *     like {@code example.com}: labels of ASCII letters separated by dots, the last one of 2 to 6 letters
+   */
+  private static boolean isHostName(char[] chars, int start, int end) {
+    int labelStart = start;
+    boolean hasDot = false;
+    for (int i = start; i < end; i++) {
+      char ch = chars[i];
+      if (ch == '.') {
+        if (i == labelStart) {
+          return false;
+        }
+        hasDot = true;
+        labelStart = i + 1;
+      } else if (ch < 'a' || ch > 'z') {
+        return false;
+      }
+    }
+    return hasDot && end - labelStart >= 2 && end - labelStart <= 6;
+  }
+
   public static boolean isAbbreviation(String str) {
-    if (str.length() < 3) {
+    return isAbbreviation(str.toCharArray(), 0, str.length());
+  }
+
+  /** Same as {@link #isAbbreviation(String)} for the chars from {@code start} to {@code end}. */
+  public static boolean isAbbreviation(char[] chars, int start, int end) {
+    if (end - start < 3) {
       return false;
     }
 
-    char[] chars = str.toCharArray();
-    for (int i = 0; i < chars.length; i++) {
+    for (int i = start; i < end; i++) {
       char ch = chars[i];
-      if (i % 2 == 0) {
+      if ((i - start) % 2 == 0) {
         if (!Character.isLetter(ch)) {
           return false;
         }
@@ -0,0 +1,40 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+/**
+ * Rules of {@link LangChecker}, each of them rejects a word on its own, so the verdict doesn't depend on their order.
+ * Constants are declared in the fixed order of checks.
+ */
+public enum CheckerRule {
+  /** Word without vowels. */
+  NO_VOWEL,
+  /** Run of 6 consonants. */
+  CONSONANT_6GRAM,
+  /** Nonexistent first 4 letters. */
+  FIRST_4GRAM,
+  /** Nonexistent first run of 3 vowels. */
+  VOWEL_3GRAM,
+  /** Nonexistent first run of 4 consonants. */
+  CONSONANT_4GRAM,
+  /** Nonexistent 2 letters at the start or at the end of the word. */
+  EDGE_2GRAM,
+  /** Nonexistent 2 letters inside the word. */
+  INNER_2GRAM
+}
@@ -0,0 +1,48 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Optional;
+
+/**
+ * Bundled model, loaded once and shared by all tokenizers created with {@link LangSwitcherTokenizer#create()}.
+ * <p>
+ * N-gram sets are generated classes, {@code exceptions.csv} is parsed here.
+ * Native image initializes this class at build time, so resources are parsed during the image build.
+ * Initialization is reported to {@link ModelLoads} listeners.
+ */
+final class DefaultModel {
+  static final LangChecker LANG_CHECKER;
+  static final ExceptionDictionary EXCEPTIONS;
+
+  static {
+    ModelLoadListener.Load load = ModelLoads.started(ModelLoads.BUNDLED);
+    try {
+      LANG_CHECKER = LangChecker.create();
+      EXCEPTIONS = LangSwitcherTokenizer.readExceptions(ModelResources.bundled());
+    } catch (RuntimeException | Error e) {
+      load.finished(Optional.<Throwable>of(e));
+      throw e;
+    }
+    load.finished(Optional.<Throwable>absent());
+  }
+
+  private DefaultModel() {
+  }
+}
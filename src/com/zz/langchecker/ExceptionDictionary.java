@@ -0,0 +1,436 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Immutable dictionary of exceptions: words with forced correction.
+ * <p>
+ * Keys are placed by minimal perfect hash (hash and displace): every key gets its own slot in
+ * {@code [0, size)}, so a lookup is one hash of the key chars, one displacement and one comparison.
+ * Keys and values of all entries are stored in a single char array.
+ * Lookups take a char range or a string, without substring.
+ * <p>
+ * A dictionary can override another one, see {@link #overriding(ExceptionDictionary)}: its own entries are found
+ * first, slots of the overridden dictionary follow its own slots.
+ */
+final class ExceptionDictionary {
+  private static final ExceptionDictionary EMPTY =
+      new ExceptionDictionary(0, new int[1], new int[1], new int[0], new char[0], 0, null);
+
+  private static final int AVERAGE_BUCKET_SIZE = 3;
+  private static final long DISPLACEMENT_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  private final int size;
+  // 0 - empty bucket, > 0 - displacement, < 0 - slot of single key bucket as -(slot + 1)
+  private final int[] displacements;
+  // entry in slot i: key chars[offsets[i], offsets[i] + keyLengths[i]), value follows key up to offsets[i + 1]
+  private final int[] offsets;
+  private final int[] keyLengths;
+  private final char[] chars;
+  private final long seed;
+  // overridden dictionary, null if there is none
+  private final ExceptionDictionary base;
+
+  private ExceptionDictionary(
+      int size, int[] displacements, int[] offsets, int[] keyLengths, char[] chars, long seed, ExceptionDictionary base) {
+    this.size = size;
+    this.displacements = displacements;
+    this.offsets = offsets;
+    this.keyLengths = keyLengths;
+    this.chars = chars;
+    this.seed = seed;
+    this.base = base;
+  }
+
+  static ExceptionDictionary of() {
+    return EMPTY;
+  }
+
+  static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return dictionary with entries of this one, which override entries of {@code base} with the same keys;
+   *     entries are not copied, so the size of the result is the size of this dictionary
+   */
+  ExceptionDictionary overriding(ExceptionDictionary base) {
+    if (base.size() == 0) {
+      return this;
+    }
+    if (size == 0) {
+      return base;
+    }
+    return new ExceptionDictionary(size, displacements, offsets, keyLengths, chars, seed, base);
+  }
+
+  /** @return number of slots, including slots of overridden dictionary */
+  int size() {
+    return base == null ? size : size + base.size();
+  }
+
+  boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /** @return slot of the key, -1 if there is no such key */
+  int find(char[] key, int start, int end) {
+    int slot = findOwn(key, start, end);
+    if (slot >= 0 || base == null) {
+      return slot;
+    }
+    slot = base.find(key, start, end);
+    return slot < 0 ? -1 : size + slot;
+  }
+
+  /** @return slot of the key, -1 if there is no such key */
+  int find(String key) {
+    int slot = findOwn(key);
+    if (slot >= 0 || base == null) {
+      return slot;
+    }
+    slot = base.find(key);
+    return slot < 0 ? -1 : size + slot;
+  }
+
+  private int findOwn(char[] key, int start, int end) {
+    if (size == 0) {
+      return -1;
+    }
+
+    long hash = seed;
+    for (int i = start; i < end; i++) {
+      hash = step(hash, key[i]);
+    }
+    int slot = slot(finish(hash));
+
+    int keyStart = offsets[slot];
+    int keyLength = keyLengths[slot];
+    if (keyLength != end - start) {
+      return -1;
+    }
+    for (int i = 0; i < keyLength; i++) {
+      if (chars[keyStart + i] != key[start + i]) {
+        return -1;
+      }
+    }
+    return slot;
+  }
+
+  private int findOwn(String key) {
+    if (size == 0) {
+      return -1;
+    }
+
+    int length = key.length();
+    long hash = seed;
+    for (int i = 0; i < length; i++) {
+      hash = step(hash, key.charAt(i));
+    }
+    int slot = slot(finish(hash));
+
+    int keyStart = offsets[slot];
+    if (keyLengths[slot] != length) {
+      return -1;
+    }
+    for (int i = 0; i < length; i++) {
+      if (chars[keyStart + i] != key.charAt(i)) {
+        return -1;
+      }
+    }
+    return slot;
+  }
+
+  boolean containsKey(String key) {
+    return find(key) >= 0;
+  }
+
+  String key(int slot) {
+    if (slot >= size) {
+      return base.key(slot - size);
+    }
+    return new String(chars, offsets[slot], keyLengths[slot]);
+  }
+
+  String value(int slot) {
+    if (slot >= size) {
+      return base.value(slot - size);
+    }
+    int valueStart = offsets[slot] + keyLengths[slot];
+    return new String(chars, valueStart, offsets[slot + 1] - valueStart);
+  }
+
+  int valueLength(int slot) {
+    if (slot >= size) {
+      return base.valueLength(slot - size);
+    }
+    return offsets[slot + 1] - offsets[slot] - keyLengths[slot];
+  }
+
+  /** Copies value of the entry in {@code slot} to {@code destination} from {@code destinationStart}. */
+  void copyValue(int slot, char[] destination, int destinationStart) {
+    if (slot >= size) {
+      base.copyValue(slot - size, destination, destinationStart);
+      return;
+    }
+    int valueStart = offsets[slot] + keyLengths[slot];
+    System.arraycopy(chars, valueStart, destination, destinationStart, offsets[slot + 1] - valueStart);
+  }
+
+  /** @return approximate heap size of the dictionary in bytes, without overridden dictionary */
+  long sizeInBytes() {
+    // array header is 16 bytes
+    return 4L * (displacements.length + offsets.length + keyLengths.length) + 2L * chars.length + 4 * 16;
+  }
+
+  private int slot(long hash) {
+    int displacement = displacements[bucket(hash, displacements.length)];
+    return displacement < 0
+        ? -displacement - 1
+        : reduce(mix(hash + displacement * DISPLACEMENT_MULTIPLIER), size);
+  }
+
+  private static long step(long hash, char ch) {
+    return (hash ^ ch) * 0x100000001B3L;
+  }
+
+  private static long finish(long hash) {
+    return mix(hash);
+  }
+
+  // murmur3 finalizer
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private static int bucket(long hash, int buckets) {
+    return reduce(hash >>> 32 ^ hash << 32, buckets);
+  }
+
+  // maps high 32 bits of hash to [0, n) without division
+  private static int reduce(long hash, int n) {
+    return (int) (((hash >>> 32) * n) >>> 32);
+  }
+
+  static final class Builder {
+    private final StringBuilder chars = new StringBuilder();
+    private int[] offsets = new int[16];
+    private int[] keyLengths = new int[16];
+    private int size;
+
+    private Builder() {
+    }
+
+    Builder put(String key, String value) {
+      if (size + 1 >= offsets.length) {
+        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        keyLengths = Arrays.copyOf(keyLengths, keyLengths.length * 2);
+      }
+      offsets[size] = chars.length();
+      keyLengths[size] = key.length();
+      chars.append(key).append(value);
+      size++;
+      return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there are duplicate keys
+     */
+    ExceptionDictionary build() {
+      if (size == 0) {
+        return EMPTY;
+      }
+
+      offsets[size] = chars.length();
+      char[] entries = new char[chars.length()];
+      chars.getChars(0, entries.length, entries, 0);
+
+      for (long seed = 0x811C9DC5L; ; seed++) {
+        ExceptionDictionary dictionary = build(entries, seed);
+        if (dictionary != null) {
+          return dictionary;
+        }
+      }
+    }
+
+    /** @return dictionary or null if two different keys have the same hash with the given seed */
+    private ExceptionDictionary build(char[] entries, long seed) {
+      long[] hashes = new long[size];
+      for (int i = 0; i < size; i++) {
+        long hash = seed;
+        for (int j = offsets[i]; j < offsets[i] + keyLengths[i]; j++) {
+          hash = step(hash, entries[j]);
+        }
+        hashes[i] = finish(hash);
+      }
+
+      int bucketCount = (size + AVERAGE_BUCKET_SIZE - 1) / AVERAGE_BUCKET_SIZE;
+      int[][] buckets = buckets(hashes, bucketCount);
+      // larger buckets first, while there are many free slots
+      Integer[] order = new Integer[bucketCount];
+      for (int i = 0; i < bucketCount; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, new LargerBucketFirst(buckets));
+
+      int[] displacements = new int[bucketCount];
+      int[] entryOfSlot = new int[size];
+      Arrays.fill(entryOfSlot, -1);
+      int[] slots = new int[0];
+      int nextFreeSlot = 0;
+
+      for (int bucket : order) {
+        int[] keys = buckets[bucket];
+        if (keys.length == 0) {
+          break;
+        }
+
+        if (keys.length == 1) {
+          while (entryOfSlot[nextFreeSlot] >= 0) {
+            nextFreeSlot++;
+          }
+          entryOfSlot[nextFreeSlot] = keys[0];
+          displacements[bucket] = -nextFreeSlot - 1;
+          continue;
+        }
+
+        if (slots.length < keys.length) {
+          slots = new int[keys.length];
+        }
+        for (int displacement = 1; ; displacement++) {
+          if (displacement == Integer.MAX_VALUE) {
+            return null;
+          }
+          if (place(keys, hashes, displacement, entryOfSlot, slots)) {
+            displacements[bucket] = displacement;
+            break;
+          }
+          if (displacement == 1 && hasSameHashes(keys, hashes, entries)) {
+            return null;
+          }
+        }
+      }
+
+      int[] slotOffsets = new int[size + 1];
+      int[] slotKeyLengths = new int[size];
+      char[] slotChars = new char[entries.length];
+      int offset = 0;
+      for (int slot = 0; slot < size; slot++) {
+        int entry = entryOfSlot[slot];
+        int length = offsets[entry + 1] - offsets[entry];
+        System.arraycopy(entries, offsets[entry], slotChars, offset, length);
+        slotOffsets[slot] = offset;
+        slotKeyLengths[slot] = keyLengths[entry];
+        offset += length;
+      }
+      slotOffsets[size] = offset;
+
+      return new ExceptionDictionary(size, displacements, slotOffsets, slotKeyLengths, slotChars, seed, null);
+    }
+
+    private int[][] buckets(long[] hashes, int bucketCount) {
+      int[] counts = new int[bucketCount];
+      for (long hash : hashes) {
+        counts[bucket(hash, bucketCount)]++;
+      }
+      int[][] buckets = new int[bucketCount][];
+      for (int i = 0; i < bucketCount; i++) {
+        buckets[i] = new int[counts[i]];
+        counts[i] = 0;
+      }
+      for (int i = 0; i < hashes.length; i++) {
+        int bucket = bucket(hashes[i], bucketCount);
+        buckets[bucket][counts[bucket]++] = i;
+      }
+      return buckets;
+    }
+
+    private boolean place(int[] keys, long[] hashes, int displacement, int[] entryOfSlot, int[] slots) {
+      for (int i = 0; i < keys.length; i++) {
+        int slot = reduce(mix(hashes[keys[i]] + displacement * DISPLACEMENT_MULTIPLIER), size);
+        if (entryOfSlot[slot] >= 0) {
+          return false;
+        }
+        for (int j = 0; j < i; j++) {
+          if (slots[j] == slot) {
+            return false;
+          }
+        }
+        slots[i] = slot;
+      }
+      for (int i = 0; i < keys.length; i++) {
+        entryOfSlot[slots[i]] = keys[i];
+      }
+      return true;
+    }
+
+    /**
+     * @return true if two keys have the same hash, so they can't be placed with any displacement
+     * @throws IllegalArgumentException if two keys are equal
+     */
+    private boolean hasSameHashes(int[] keys, long[] hashes, char[] entries) {
+      for (int i = 0; i < keys.length; i++) {
+        for (int j = i + 1; j < keys.length; j++) {
+          if (hashes[keys[i]] == hashes[keys[j]]) {
+            if (sameKeys(keys[i], keys[j], entries)) {
+              throw new IllegalArgumentException("Duplicate exception: "
+                  + new String(entries, offsets[keys[i]], keyLengths[keys[i]]));
+            }
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private boolean sameKeys(int a, int b, char[] entries) {
+      if (keyLengths[a] != keyLengths[b]) {
+        return false;
+      }
+      for (int i = 0; i < keyLengths[a]; i++) {
+        if (entries[offsets[a] + i] != entries[offsets[b] + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** Orders buckets by size, larger first. */
+  private static final class LargerBucketFirst implements Comparator<Integer> {
+    private final int[][] buckets;
+
+    LargerBucketFirst(int[][] buckets) {
+      this.buckets = buckets;
+    }
+
+    @Override
+    public int compare(Integer a, Integer b) {
+      return buckets[b].length - buckets[a].length;
+    }
+  }
+}
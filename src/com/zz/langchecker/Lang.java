@@ -19,5 +19,23 @@
 package com.zz.langchecker;
 
 enum Lang {
-  RU, EN
+  RU, EN;
+
+  /** @return the language of the other keyboard layout */
+  Lang other() {
+    return this == RU ? EN : RU;
+  }
+
+  /**
+   * @param language {@code "en"} or {@code "ru"}, as languages are named in the public API
+   * @throws IllegalArgumentException for other languages
+   */
+  static Lang of(String language) {
+    for (Lang lang : values()) {
+      if (lang.name().equalsIgnoreCase(language)) {
+        return lang;
+      }
+    }
+    throw new IllegalArgumentException("Unknown language: " + language);
+  }
 }
@@ -19,127 +19,438 @@
 package com.zz.langchecker;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.io.Resources;
 import java.io.IOException;
+import java.net.URL;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 final class LangChecker {
-  final Map<Lang, Set<String>> nonexistent2gram;
-  final Map<Lang, Set<String>> nonexistent3gram;
-  final Map<Lang, Set<String>> nonexistentFirst4gram;
-  final Map<Lang, Set<String>> nonexistent4gram;
+  final Map<Lang, NgramSet> nonexistent2gram;
+  final Map<Lang, NgramSet> nonexistent3gram;
+  final Map<Lang, NgramSet> nonexistentFirst4gram;
+  final Map<Lang, NgramSet> nonexistent4gram;
+  // rules of words typed in the layout of their language
+  private final Map<Lang, KeySpace> keySpaces;
+  // rules of words of the other language typed in the layout of the key, see checkSwitched
+  private final Map<Lang, KeySpace> switchedKeySpaces;
+  // null for the fixed order of rules
+  private final AdaptiveRuleOrder ruleOrder;
 
   public LangChecker(
-      Map<Lang, Set<String>> nonexistent2gram,
-      Map<Lang, Set<String>> nonexistent3gram,
-      Map<Lang, Set<String>> nonexistentFirst4gram,
-      Map<Lang, Set<String>> nonexistent4gram) {
+      Map<Lang, NgramSet> nonexistent2gram,
+      Map<Lang, NgramSet> nonexistent3gram,
+      Map<Lang, NgramSet> nonexistentFirst4gram,
+      Map<Lang, NgramSet> nonexistent4gram) {
     this.nonexistent2gram = nonexistent2gram;
     this.nonexistent3gram = nonexistent3gram;
     this.nonexistentFirst4gram = nonexistentFirst4gram;
     this.nonexistent4gram = nonexistent4gram;
+
+    ImmutableMap.Builder<Lang, KeySpace> keySpaces = ImmutableMap.builder();
+    ImmutableMap.Builder<Lang, KeySpace> switchedKeySpaces = ImmutableMap.builder();
+    for (Lang lang : Lang.values()) {
+      KeySpace keySpace = KeySpace.of(lang, nonexistent2gram.get(lang), nonexistent3gram.get(lang),
+          nonexistentFirst4gram.get(lang), nonexistent4gram.get(lang));
+      keySpaces.put(lang, keySpace);
+      switchedKeySpaces.put(lang.other(), keySpace.switchedTo(lang.other()));
+    }
+    this.keySpaces = keySpaces.build();
+    this.switchedKeySpaces = switchedKeySpaces.build();
+    this.ruleOrder = null;
+  }
+
+  private LangChecker(LangChecker checker, AdaptiveRuleOrder ruleOrder) {
+    this.nonexistent2gram = checker.nonexistent2gram;
+    this.nonexistent3gram = checker.nonexistent3gram;
+    this.nonexistentFirst4gram = checker.nonexistentFirst4gram;
+    this.nonexistent4gram = checker.nonexistent4gram;
+    this.keySpaces = checker.keySpaces;
+    this.switchedKeySpaces = checker.switchedKeySpaces;
+    this.ruleOrder = ruleOrder;
+  }
+
+  private LangChecker(
+      Map<Lang, KeySpace> keySpaces, Map<Lang, KeySpace> switchedKeySpaces, AdaptiveRuleOrder ruleOrder) {
+    this.keySpaces = keySpaces;
+    this.switchedKeySpaces = switchedKeySpaces;
+
+    ImmutableMap.Builder<Lang, NgramSet> nonexistent2gram = ImmutableMap.builder();
+    ImmutableMap.Builder<Lang, NgramSet> nonexistent3gram = ImmutableMap.builder();
+    ImmutableMap.Builder<Lang, NgramSet> nonexistentFirst4gram = ImmutableMap.builder();
+    ImmutableMap.Builder<Lang, NgramSet> nonexistent4gram = ImmutableMap.builder();
+    for (Map.Entry<Lang, KeySpace> keySpace : this.keySpaces.entrySet()) {
+      nonexistent2gram.put(keySpace.getKey(), keySpace.getValue().nonexistent2gram);
+      nonexistent3gram.put(keySpace.getKey(), keySpace.getValue().nonexistent3gram);
+      nonexistentFirst4gram.put(keySpace.getKey(), keySpace.getValue().nonexistentFirst4gram);
+      nonexistent4gram.put(keySpace.getKey(), keySpace.getValue().nonexistent4gram);
+    }
+    this.nonexistent2gram = nonexistent2gram.build();
+    this.nonexistent3gram = nonexistent3gram.build();
+    this.nonexistentFirst4gram = nonexistentFirst4gram.build();
+    this.nonexistent4gram = nonexistent4gram.build();
+    this.ruleOrder = ruleOrder;
   }
 
+  /**
+   * @return checker of the bundled model, with n-gram sets generated at build time
+   */
   public static LangChecker create() {
+    ModelLoadListener.Load load = ModelLoads.started(ModelLoads.BUNDLED_NGRAMS);
+    try {
+      LangChecker checker = of(Generated.FUNCTION);
+      load.finished(Optional.<Throwable>absent());
+      return checker;
+    } catch (RuntimeException | Error e) {
+      load.finished(Optional.<Throwable>of(e));
+      throw e;
+    }
+  }
+
+  /**
+   * @param resources function from model file name to its location, n-gram files are parsed
+   */
+  static LangChecker create(Function<String, URL> resources) {
+    return of(Functions.compose(Parsed.FUNCTION, resources));
+  }
+
+  /**
+   * @param ngramSets function from model file name to the set of its n-grams
+   */
+  private static LangChecker of(Function<String, NgramSet> ngramSets) {
     return new LangChecker(
         ImmutableMap.of(
-            Lang.EN, readVocabulary("nonexistent2gram-en.txt"),
-            Lang.RU, readVocabulary("nonexistent2gram-ru.txt")),
+            Lang.EN, ngramSets.apply("nonexistent2gram-en.txt"),
+            Lang.RU, ngramSets.apply("nonexistent2gram-ru.txt")),
         ImmutableMap.of(
-            Lang.EN, readVocabulary("nonexistent3gram-en.txt"),
-            Lang.RU, readVocabulary("nonexistent3gram-ru.txt")),
+            Lang.EN, ngramSets.apply("nonexistent3gram-en.txt"),
+            Lang.RU, ngramSets.apply("nonexistent3gram-ru.txt")),
         ImmutableMap.of(
-            Lang.EN, readVocabulary("nonexistentFirst4gram-en.txt"),
-            Lang.RU, readVocabulary("nonexistentFirst4gram-ru.txt")),
+            Lang.EN, ngramSets.apply("nonexistentFirst4gram-en.txt"),
+            Lang.RU, ngramSets.apply("nonexistentFirst4gram-ru.txt")),
         ImmutableMap.of(
-            Lang.EN, readVocabulary("nonexistent4gram-en.txt"),
-            Lang.RU, readVocabulary("nonexistent4gram-ru.txt")));
+            Lang.EN, ngramSets.apply("nonexistent4gram-en.txt"),
+            Lang.RU, ngramSets.apply("nonexistent4gram-ru.txt")));
   }
 
   public boolean check(Lang lang, String word) {
-    int length = word.length();
+    return check(lang, word.toCharArray(), 0, word.length());
+  }
 
-    if (!Characters.hasVowel(lang, word)) {
-      return false;
+  /**
+   * Same as {@link #check(Lang, String)} for the word in {@code chars} from {@code start} to {@code end},
+   * n-grams are looked up in place without substring.
+   */
+  public boolean check(Lang lang, char[] chars, int start, int end) {
+    return check(lang, keySpaces.get(lang), chars, start, end);
+  }
+
+  /**
+   * Same as {@link #check(Lang, char[], int, int)} of the other language for the word switched from
+   * {@code typed} layout, but the word is not switched: rules are evaluated on keys of {@code typed} layout.
+   *
+   * @param chars keys of {@code typed} layout (letters of {@code typed} language, apostrophe, {@code ,}
+   *     and other keys of letters of the other layout), see {@link Characters#switchLang(char, Lang)}
+   */
+  public boolean checkSwitched(Lang typed, char[] chars, int start, int end) {
+    return check(typed.other(), switchedKeySpaces.get(typed), chars, start, end);
+  }
+
+  private boolean check(Lang lang, KeySpace keys, char[] chars, int start, int end) {
+    if (ruleOrder != null) {
+      return ruleOrder.check(this, lang, keys, chars, start, end);
     }
 
-    if (length >= 6) {
-      Optional<String> firstConsonant6gram = firstNgram(lang, word, 6, false);
-      if (firstConsonant6gram.isPresent()) {
-        return false;
-      }
+    // fixed order, unrolled so that each call is specialized for its rule
+    return !rejects(CheckerRule.NO_VOWEL, keys, chars, start, end)
+        && !rejects(CheckerRule.CONSONANT_6GRAM, keys, chars, start, end)
+        && !rejects(CheckerRule.FIRST_4GRAM, keys, chars, start, end)
+        && !rejects(CheckerRule.VOWEL_3GRAM, keys, chars, start, end)
+        && !rejects(CheckerRule.CONSONANT_4GRAM, keys, chars, start, end)
+        && !rejects(CheckerRule.EDGE_2GRAM, keys, chars, start, end)
+        && !rejects(CheckerRule.INNER_2GRAM, keys, chars, start, end);
+  }
+
+  /**
+   * @return checker with the same n-grams, which evaluates rules in the order adapted by {@code ruleOrder}
+   */
+  LangChecker withRuleOrder(AdaptiveRuleOrder ruleOrder) {
+    return new LangChecker(this, ruleOrder);
+  }
+
+  /**
+   * @return checker with n-grams of this checker allowed or denied by {@code overlay}, n-gram sets of this
+   *     checker are shared, not copied
+   */
+  LangChecker overlaidBy(TenantOverlay overlay) {
+    if (!overlay.hasNgrams()) {
+      return this;
+    }
+    ImmutableMap.Builder<Lang, KeySpace> keySpaces = ImmutableMap.builder();
+    ImmutableMap.Builder<Lang, KeySpace> switchedKeySpaces = ImmutableMap.builder();
+    for (Lang lang : Lang.values()) {
+      Lang layout = lang.other();
+      keySpaces.put(lang, this.keySpaces.get(lang).overlaidBy(overlay, lang, lang));
+      switchedKeySpaces.put(layout, this.switchedKeySpaces.get(layout).overlaidBy(overlay, lang, layout));
     }
+    return new LangChecker(keySpaces.build(), switchedKeySpaces.build(), ruleOrder);
+  }
 
-    if (length >= 4) {
-      if (nonexistentFirst4gram.get(lang).contains(word.substring(0, 4))) {
-        return false;
-      }
+  /**
+   * @return checker with the same n-grams in {@code representation}, overlaid n-gram sets are copied
+   */
+  LangChecker in(NgramRepresentation representation) {
+    ImmutableMap.Builder<Lang, KeySpace> keySpaces = ImmutableMap.builder();
+    ImmutableMap.Builder<Lang, KeySpace> switchedKeySpaces = ImmutableMap.builder();
+    for (Lang lang : Lang.values()) {
+      keySpaces.put(lang, this.keySpaces.get(lang).in(representation));
+      switchedKeySpaces.put(lang, this.switchedKeySpaces.get(lang).in(representation));
     }
+    return new LangChecker(keySpaces.build(), switchedKeySpaces.build(), ruleOrder);
+  }
 
-    if (length >= 3) {
-      Optional<String> firstVowel3gram = firstNgram(lang, word, 3, true);
-      if (firstVowel3gram.isPresent() && nonexistent3gram.get(lang).contains(firstVowel3gram.get())) {
-        return false;
+  /** @return rules of words of {@code lang} typed in its own layout */
+  KeySpace keySpace(Lang lang) {
+    return keySpaces.get(lang);
+  }
+
+  /** @return rules of words of {@code lang} typed in the layout of the other language */
+  KeySpace switchedKeySpace(Lang lang) {
+    return switchedKeySpaces.get(lang.other());
+  }
+
+  /** @return true if {@code rule} rejects the word in {@code chars} from {@code start} to {@code end} */
+  boolean rejects(CheckerRule rule, KeySpace keys, char[] chars, int start, int end) {
+    int length = end - start;
+    switch (rule) {
+    case NO_VOWEL:
+      return firstNgram(keys.vowels, chars, start, end, 1) < 0;
+    case CONSONANT_6GRAM:
+      return length >= 6 && firstNgram(keys.consonants, chars, start, end, 6) >= 0;
+    case FIRST_4GRAM:
+      return length >= 4 && keys.nonexistentFirst4gram.contains(chars, start, 4);
+    case VOWEL_3GRAM:
+      if (length >= 3) {
+        int firstVowel3gram = firstNgram(keys.vowels, chars, start, end, 3);
+        return firstVowel3gram >= 0 && keys.nonexistent3gram.contains(chars, firstVowel3gram, 3);
+      }
+      return false;
+    case CONSONANT_4GRAM:
+      if (length >= 4) {
+        int firstConsonant4gram = firstNgram(keys.consonants, chars, start, end, 4);
+        return firstConsonant4gram >= 0 && keys.nonexistent4gram.contains(chars, firstConsonant4gram, 4);
+      }
+      return false;
+    case EDGE_2GRAM:
+      return length >= 2
+          && (keys.nonexistent2gram.containsWordStart(chars, start)
+          || keys.nonexistent2gram.containsWordEnd(chars, end));
+    case INNER_2GRAM:
+      if (length >= 4) {
+        NgramSet nonexistent2grams = keys.nonexistent2gram;
+        for (int i = start + 1; i < end - 2; i++) {
+          if (nonexistent2grams.contains(chars, i, 2)) {
+            return true;
+          }
+        }
       }
+      return false;
+    default:
+      throw new AssertionError(rule);
     }
+  }
+
+  static Optional<String> firstNgram(Lang lang, String word, int n, boolean vowel) {
+    int begin = firstNgram(KeySpace.letters(lang, vowel), word.toCharArray(), 0, word.length(), n);
+    return begin >= 0
+        ? Optional.of(word.substring(begin, begin + n))
+        : Optional.<String>absent();
+  }
 
-    if (length >= 4) {
-      Optional<String> firstConsonant4gram = firstNgram(lang, word, 4, false);
-      if (firstConsonant4gram.isPresent() && nonexistent4gram.get(lang).contains(firstConsonant4gram.get())) {
-        return false;
+  /**
+   * @param letters flags of letters (vowels or consonants) by char
+   * @return start of the first n-gram of letters in {@code chars} from {@code start} to {@code end},
+   *     -1 if there is no such n-gram
+   */
+  static int firstNgram(boolean[] letters, char[] chars, int start, int end, int n) {
+    int run = 0;
+    for (int i = start; i < end; i++) {
+      char ch = chars[i];
+      run = ch < letters.length && letters[ch] ? run + 1 : 0;
+      if (run == n) {
+        return i - n + 1;
       }
     }
+    return -1;
+  }
+
+  /**
+   * Letters and nonexistent n-grams of a language in keys of a keyboard layout. In the layout of the language
+   * itself keys are its letters; in the other layout n-grams are stored as all sequences of keys which are
+   * switched to them, so a word typed in the other layout is checked without switching.
+   */
+  static final class KeySpace {
+    // letters of both languages and keys of both layouts are below
+    private static final int TABLE_SIZE = 0x500;
+
+    final boolean[] vowels;
+    final boolean[] consonants;
+    final NgramSet nonexistent2gram;
+    final NgramSet nonexistent3gram;
+    final NgramSet nonexistentFirst4gram;
+    final NgramSet nonexistent4gram;
+
+    private KeySpace(
+        boolean[] vowels,
+        boolean[] consonants,
+        NgramSet nonexistent2gram,
+        NgramSet nonexistent3gram,
+        NgramSet nonexistentFirst4gram,
+        NgramSet nonexistent4gram) {
+      this.vowels = vowels;
+      this.consonants = consonants;
+      this.nonexistent2gram = nonexistent2gram;
+      this.nonexistent3gram = nonexistent3gram;
+      this.nonexistentFirst4gram = nonexistentFirst4gram;
+      this.nonexistent4gram = nonexistent4gram;
+    }
 
-    Set<String> nonexistent2grams = nonexistent2gram.get(lang);
-    if (length >= 2) {
-      if (nonexistent2grams.contains("*" + word.substring(0, 2))
-          || nonexistent2grams.contains(word.substring(length - 2) + "*")) {
-        return false;
+    static KeySpace of(
+        Lang lang,
+        NgramSet nonexistent2gram,
+        NgramSet nonexistent3gram,
+        NgramSet nonexistentFirst4gram,
+        NgramSet nonexistent4gram) {
+      return new KeySpace(letters(lang, true), letters(lang, false),
+          nonexistent2gram, nonexistent3gram, nonexistentFirst4gram, nonexistent4gram);
+    }
+
+    /** @return flags of vowels (or consonants) of {@code lang} by char */
+    static boolean[] letters(Lang lang, boolean vowel) {
+      boolean[] letters = new boolean[TABLE_SIZE];
+      for (char ch = 0; ch < TABLE_SIZE; ch++) {
+        letters[ch] = vowel ? Characters.isVowel(lang, ch) : Characters.isConsonant(lang, ch);
       }
+      return letters;
     }
 
-    if (length >= 4) {
-      for (int i = 1; i < length - 2; i++) {
-        if (nonexistent2grams.contains(word.substring(i, i + 2))) {
-          return false;
+    /** @return the same rules in keys of {@code layout}, which are switched to letters of this key space */
+    KeySpace switchedTo(Lang layout) {
+      return new KeySpace(switchedTo(vowels, layout), switchedTo(consonants, layout),
+          switchedTo(nonexistent2gram, layout), switchedTo(nonexistent3gram, layout),
+          switchedTo(nonexistentFirst4gram, layout), switchedTo(nonexistent4gram, layout));
+    }
+
+    private static boolean[] switchedTo(boolean[] letters, Lang layout) {
+      boolean[] keys = new boolean[TABLE_SIZE];
+      for (char ch = 0; ch < TABLE_SIZE; ch++) {
+        if (letters[ch]) {
+          for (char key : Characters.keysSwitchedTo(ch, layout)) {
+            keys[key] = true;
+          }
         }
       }
+      return keys;
     }
 
-    return true;
-  }
+    /** @return the same rules with n-gram sets in {@code representation} */
+    KeySpace in(NgramRepresentation representation) {
+      return new KeySpace(vowels, consonants,
+          nonexistent2gram.in(representation), nonexistent3gram.in(representation),
+          nonexistentFirst4gram.in(representation), nonexistent4gram.in(representation));
+    }
 
-  static Optional<String> firstNgram(Lang lang, String word, int n, boolean vowel) {
-    char[] chars = word.toCharArray();
-    for (int begin = 0, end = n; end <= word.length(); begin++, end++) {
-      boolean check = true;
-      for (int i = begin; i < end; i++) {
-        if (vowel && !Characters.isVowel(lang, chars[i])
-            || !vowel && !Characters.isConsonant(lang, chars[i])) {
-          check = false;
-          break;
-        }
+    /** @return approximate heap size of n-gram sets in bytes */
+    long ngramsSizeInBytes() {
+      return nonexistent2gram.sizeInBytes() + nonexistent3gram.sizeInBytes()
+          + nonexistentFirst4gram.sizeInBytes() + nonexistent4gram.sizeInBytes();
+    }
+
+    /** @return size of memory outside of the heap held by n-gram sets in bytes */
+    long ngramsDirectSizeInBytes() {
+      return nonexistent2gram.directSizeInBytes() + nonexistent3gram.directSizeInBytes()
+          + nonexistentFirst4gram.directSizeInBytes() + nonexistent4gram.directSizeInBytes();
+    }
+
+    /** @return heap size of tables of letters in bytes */
+    long lettersSizeInBytes() {
+      // array header is 16 bytes
+      return vowels.length + consonants.length + 2 * 16;
+    }
+
+    /**
+     * @param lang language of n-grams of this key space
+     * @param layout layout of keys of this key space
+     * @return the same letters with n-grams of {@code lang} allowed or denied by {@code overlay}
+     */
+    KeySpace overlaidBy(TenantOverlay overlay, Lang lang, Lang layout) {
+      return new KeySpace(vowels, consonants,
+          overlaid(nonexistent2gram, overlay, "nonexistent2gram", lang, layout),
+          overlaid(nonexistent3gram, overlay, "nonexistent3gram", lang, layout),
+          overlaid(nonexistentFirst4gram, overlay, "nonexistentFirst4gram", lang, layout),
+          overlaid(nonexistent4gram, overlay, "nonexistent4gram", lang, layout));
+    }
+
+    private static NgramSet overlaid(NgramSet ngrams, TenantOverlay overlay, String kind, Lang lang, Lang layout) {
+      String fileName = TenantOverlay.ngramFile(kind, lang);
+      NgramSet allowed = overlay.allowed(fileName);
+      NgramSet denied = overlay.denied(fileName);
+      return layout == lang
+          ? NgramSet.overlaid(ngrams, allowed, denied)
+          : NgramSet.overlaid(ngrams, expandedTo(allowed, layout), expandedTo(denied, layout));
+    }
+
+    private static NgramSet switchedTo(NgramSet ngrams, Lang layout) {
+      // switched sets of the bundled model are generated at build time
+      NgramSet generated = GeneratedNgramSets.switchedOf(ngrams);
+      if (generated != null) {
+        return generated;
       }
-      if (check) {
-        return Optional.of(word.substring(begin, end));
+
+      return expandedTo(ngrams, layout);
+    }
+
+    /** @return all sequences of keys of {@code layout} which are switched to n-grams of {@code ngrams} */
+    private static NgramSet expandedTo(NgramSet ngrams, Lang layout) {
+      List<String> keys = Lists.newArrayList();
+      for (long packed : ngrams.packed()) {
+        keys.addAll(Characters.keysSwitchedTo(NgramSet.unpack(packed), layout));
       }
+      return NgramSet.of(keys);
     }
+  }
 
-    return Optional.absent();
+  private enum Generated implements Function<String, NgramSet> {
+    FUNCTION;
+
+    @Override
+    public NgramSet apply(String name) {
+      NgramSet ngramSet = GeneratedNgramSets.of(name);
+      if (ngramSet == null) {
+        throw new IllegalArgumentException("No generated n-gram set for " + name);
+      }
+      return ngramSet;
+    }
   }
 
-  private static Set<String> readVocabulary(String name) {
-    try {
-      return ImmutableSet.copyOf(Resources
-          .asCharSource(LangChecker.class.getResource(name), Charsets.UTF_8)
-          .readLines());
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
+  private enum Parsed implements Function<URL, NgramSet> {
+    FUNCTION;
+
+    @Override
+    public NgramSet apply(URL resource) {
+      try {
+        return NgramSet.of(Resources
+            .asCharSource(resource, Charsets.UTF_8)
+            .readLines());
+      } catch (IOException e) {
+        throw Throwables.propagate(e);
+      }
     }
   }
 }
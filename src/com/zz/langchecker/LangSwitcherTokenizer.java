@@ -19,6 +19,7 @@
 package com.zz.langchecker;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
@@ -31,6 +32,9 @@ import com.google.common.collect.Lists;
 import com.google.common.io.LineProcessor;
 import com.google.common.io.Resources;
 import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -39,22 +43,181 @@ import static com.zz.langchecker.Characters.*;
 public final class LangSwitcherTokenizer implements Tokenizer {
   private static final Joiner JOINER = Joiner.on("");
 
-  private static final char APOSTROPHE = '\'';
-  private static final char APOSTROPHE_1 = '`';
+  // canonicalization buffers of the calling thread, tokenizer itself is immutable
+  private static final ThreadLocal<Canonicalizer> CANONICALIZER = new CanonicalizerOfThread();
+
+  // work of the current tokenize call of the thread, counted only with a work budget or slow input capture
+  private static final ThreadLocal<Work> WORK = new WorkOfThread();
 
   final LangChecker langChecker;
-  final Map<String, String> exceptions;
+  final ExceptionDictionary exceptions;
+  // known valid words are resolved without n-gram checks, dictionaries are empty unless configured
+  final Map<Lang, WordDictionary> knownWords;
 
   final int minTokenLength;
 
-  LangSwitcherTokenizer(LangChecker langChecker, int minTokenLength) {
+  // null if calls are not limited or not captured
+  private final WorkBudget workBudget;
+  private final SlowInputs slowInputs;
+  private final boolean countsWork;
+
+  LangSwitcherTokenizer(LangChecker langChecker, ExceptionDictionary exceptions, int minTokenLength) {
+    this(langChecker, exceptions, knownWords(WordDictionary.of(), WordDictionary.of()), minTokenLength);
+  }
+
+  LangSwitcherTokenizer(
+      LangChecker langChecker,
+      ExceptionDictionary exceptions,
+      Map<Lang, WordDictionary> knownWords,
+      int minTokenLength) {
+    this(langChecker, exceptions, knownWords, minTokenLength, null, null);
+  }
+
+  private LangSwitcherTokenizer(
+      LangChecker langChecker,
+      ExceptionDictionary exceptions,
+      Map<Lang, WordDictionary> knownWords,
+      int minTokenLength,
+      WorkBudget workBudget,
+      SlowInputs slowInputs) {
     this.langChecker = langChecker;
+    this.exceptions = exceptions;
+    this.knownWords = knownWords;
 
     this.minTokenLength = minTokenLength;
 
+    this.workBudget = workBudget;
+    this.slowInputs = slowInputs;
+    this.countsWork = workBudget != null || slowInputs != null;
+  }
+
+  public static LangSwitcherTokenizer create() {
+    return create(0);
+  }
+
+  public static LangSwitcherTokenizer create(int minTokenLength) {
+    return new LangSwitcherTokenizer(DefaultModel.LANG_CHECKER, DefaultModel.EXCEPTIONS, minTokenLength);
+  }
+
+  /**
+   * Loads model from {@code directory}, files missing there are taken from the bundled model.
+   * File names are the same as in the bundled model: {@code exceptions.csv}, {@code nonexistent2gram-en.txt} etc.
+   * Optional lists of known words, one word per line, are read from {@code words-en.txt} and {@code words-ru.txt}.
+   * The load is reported to {@link ModelLoads} listeners.
+   */
+  public static LangSwitcherTokenizer load(Path directory, int minTokenLength) {
+    ModelLoadListener.Load load = ModelLoads.started(directory.toString());
     try {
-      this.exceptions = Resources.readLines(
-          this.getClass().getResource("exceptions.csv"),
+      Function<String, URL> resources = ModelResources.overriddenBy(directory);
+      LangSwitcherTokenizer tokenizer = new LangSwitcherTokenizer(
+          LangChecker.create(resources),
+          readExceptions(resources),
+          knownWords(readWords(directory.resolve("words-en.txt")), readWords(directory.resolve("words-ru.txt"))),
+          minTokenLength);
+      load.finished(Optional.<Throwable>absent());
+      return tokenizer;
+    } catch (RuntimeException | Error e) {
+      load.finished(Optional.<Throwable>of(e));
+      throw e;
+    }
+  }
+
+  /**
+   * @param wordsEn known valid English words
+   * @param wordsRu known valid Russian words
+   * @return tokenizer with the same model, which resolves known words without n-gram checks
+   */
+  public LangSwitcherTokenizer withKnownWords(Iterable<String> wordsEn, Iterable<String> wordsRu) {
+    return new LangSwitcherTokenizer(
+        langChecker,
+        exceptions,
+        knownWords(WordDictionary.of(canonicalWords(wordsEn)), WordDictionary.of(canonicalWords(wordsRu))),
+        minTokenLength,
+        workBudget,
+        slowInputs);
+  }
+
+  /**
+   * @return tokenizer with the same model, which orders n-gram rules by rejection rates observed by {@code ruleOrder}
+   */
+  public LangSwitcherTokenizer withRuleOrder(AdaptiveRuleOrder ruleOrder) {
+    return new LangSwitcherTokenizer(
+        langChecker.withRuleOrder(ruleOrder), exceptions, knownWords, minTokenLength, workBudget, slowInputs);
+  }
+
+  /**
+   * @return tokenizer with the same model, which leaves the rest of a phrase as typed once a call has made
+   *     {@link WorkBudget#maxChecks()} word checks
+   */
+  public LangSwitcherTokenizer withWorkBudget(WorkBudget workBudget) {
+    return new LangSwitcherTokenizer(langChecker, exceptions, knownWords, minTokenLength, workBudget, slowInputs);
+  }
+
+  /**
+   * @return tokenizer with the same model, which records calls slower than the threshold of {@code slowInputs}
+   */
+  public LangSwitcherTokenizer withSlowInputs(SlowInputs slowInputs) {
+    return new LangSwitcherTokenizer(langChecker, exceptions, knownWords, minTokenLength, workBudget, slowInputs);
+  }
+
+  /**
+   * @return tokenizer with the model of this tokenizer changed by {@code overlay}, the model is shared, not copied,
+   *     so tokenizers of many tenants can be created from one base tokenizer
+   */
+  public LangSwitcherTokenizer withOverlay(TenantOverlay overlay) {
+    return new LangSwitcherTokenizer(
+        langChecker.overlaidBy(overlay),
+        overlay.exceptions().overriding(exceptions),
+        knownWords,
+        minTokenLength,
+        workBudget,
+        slowInputs);
+  }
+
+  /**
+   * @return tokenizer with the same model, n-gram sets of which are copied to {@code representation},
+   *     see {@link NgramRepresentation} for memory and speed of representations
+   */
+  public LangSwitcherTokenizer withNgramRepresentation(NgramRepresentation representation) {
+    return new LangSwitcherTokenizer(
+        langChecker.in(representation), exceptions, knownWords, minTokenLength, workBudget, slowInputs);
+  }
+
+  /**
+   * @return approximate memory held by the model of this tokenizer by component and language
+   */
+  public ModelFootprint footprint() {
+    return ModelFootprint.of(this);
+  }
+
+  private static Map<Lang, WordDictionary> knownWords(WordDictionary wordsEn, WordDictionary wordsRu) {
+    return ImmutableMap.of(Lang.EN, wordsEn, Lang.RU, wordsRu);
+  }
+
+  private static WordDictionary readWords(Path file) {
+    if (!Files.isRegularFile(file)) {
+      return WordDictionary.of();
+    }
+    try {
+      return WordDictionary.of(canonicalWords(Files.readAllLines(file, Charsets.UTF_8)));
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private static Iterable<String> canonicalWords(Iterable<String> words) {
+    return FluentIterable.from(words).transform(new Function<String, String>() {
+      @Override
+      public String apply(String word) {
+        return Canonicalizer.canonical(word.trim());
+      }
+    });
+  }
+
+  static ExceptionDictionary readExceptions(Function<String, URL> resources) {
+    try {
+      return Resources.readLines(
+          resources.apply("exceptions.csv"),
           Charsets.UTF_8,
           new ExceptionsLineProcessor());
     } catch (IOException e) {
@@ -62,44 +225,200 @@ public final class LangSwitcherTokenizer implements Tokenizer {
     }
   }
 
-  public static LangSwitcherTokenizer create() {
-    return new LangSwitcherTokenizer(LangChecker.create(), 0);
+  /**
+   * @return new {@link TermCorrector} with the same model as this tokenizer, one per thread
+   * @throws IllegalStateException if this tokenizer has a {@link WorkBudget} or {@link SlowInputs},
+   *     they are applied only by {@link #tokenize(String)}
+   */
+  public TermCorrector termCorrector() {
+    checkWorkNotCounted("TermCorrector");
+    return new TermCorrector(this);
   }
 
-  public static LangSwitcherTokenizer create(int minTokenLength) {
-    return new LangSwitcherTokenizer(LangChecker.create(), minTokenLength);
+  /**
+   * @return new {@link PhraseCorrector} with the same model as this tokenizer, one per thread
+   * @throws IllegalStateException if this tokenizer has a {@link WorkBudget} or {@link SlowInputs},
+   *     they are applied only by {@link #tokenize(String)}
+   */
+  public PhraseCorrector phraseCorrector() {
+    checkWorkNotCounted("PhraseCorrector");
+    return new PhraseCorrector(this);
+  }
+
+  /**
+   * @return new {@link Utf8Corrector} with the same model as this tokenizer, one per thread
+   * @throws IllegalStateException if this tokenizer has a {@link WorkBudget} or {@link SlowInputs},
+   *     they are applied only by {@link #tokenize(String)}
+   */
+  public Utf8Corrector utf8Corrector() {
+    checkWorkNotCounted("Utf8Corrector");
+    return new Utf8Corrector(this);
+  }
+
+  /**
+   * @return new {@link BatchDeduplicator} with the same model as this tokenizer, one per thread
+   */
+  public BatchDeduplicator batchDeduplicator() {
+    return new BatchDeduplicator(this);
+  }
+
+  /**
+   * @return new {@link LayoutDetector} with the same model as this tokenizer, one per thread
+   * @throws IllegalStateException if this tokenizer has a {@link WorkBudget} or {@link SlowInputs},
+   *     they are applied only by {@link #tokenize(String)}
+   */
+  public LayoutDetector layoutDetector() {
+    checkWorkNotCounted("LayoutDetector");
+    return new LayoutDetector(this);
+  }
+
+  /**
+   * Decides whether a word typed in {@code lang} layout is actually a word of the other language.
+   * Known words of both languages are checked first, n-grams are checked only for unknown words.
+   *
+   * @param chars canonical word is in {@code [start, end)}, made of keys of {@code lang} layout,
+   *     see {@link LangChecker#checkSwitched}
+   * @param switched buffer for the word switched to the other layout, filled from 0 if true is returned
+   */
+  boolean shouldSwitch(Lang lang, char[] chars, int start, int end, char[] switched) {
+    if (countsWork) {
+      WORK.get().count();
+    }
+    if (knownWords.get(lang).contains(chars, start, end)) {
+      return false;
+    }
+
+    Lang other = lang.other();
+    if (knownWords.get(other).containsSwitched(chars, start, end, other)) {
+      Characters.switchLang(chars, start, end, other, switched, 0);
+      return true;
+    }
+
+    // the word is switched only if it is valid in the other language
+    if (langChecker.check(lang, chars, start, end) || !langChecker.checkSwitched(lang, chars, start, end)) {
+      return false;
+    }
+    Characters.switchLang(chars, start, end, other, switched, 0);
+    return true;
   }
 
   @Override
   public TokenizerResponse tokenize(String input) {
-    List<Integer> uppercasePositions = uppercasePositions(input);
-    String canonical = canonical(input);
-    List<Token> allTokens = split(canonical);
+    if (countsWork) {
+      return tokenizeCountingWork(input);
+    }
+    Canonicalizer canonicalizer = CANONICALIZER.get();
+    canonicalizer.canonicalize(input);
+    String canonical = canonicalizer.canonical();
+    return response(input, canonicalizer, canonical, split(canonical));
+  }
+
+  private TokenizerResponse tokenizeCountingWork(String input) {
+    Work work = WORK.get();
+    work.start(workBudget);
+    try {
+      long start = System.nanoTime();
+      Canonicalizer canonicalizer = CANONICALIZER.get();
+      canonicalizer.canonicalize(input);
+      String canonical = canonicalizer.canonical();
+      long canonicalized = System.nanoTime();
+      List<Token> tokens = split(canonical);
+      long split = System.nanoTime();
+      TokenizerResponse response = response(input, canonicalizer, canonical, tokens);
+      long end = System.nanoTime();
+
+      if (work.degraded) {
+        workBudget.degraded();
+      }
+      if (slowInputs != null && slowInputs.isSlow(end - start)) {
+        slowInputs.record(new SlowInputs.Entry(
+            input, canonicalized - start, split - canonicalized, end - split, work.checks, work.degraded));
+      }
+      return response;
+    } finally {
+      work.stop();
+    }
+  }
+
+  /**
+   * Splits canonical form of an input outside of {@link #tokenize(String)}, within the work budget of one call.
+   */
+  List<Token> splitCall(String canonical) {
+    if (!countsWork) {
+      return split(canonical);
+    }
+    Work work = WORK.get();
+    work.start(workBudget);
+    try {
+      List<Token> tokens = split(canonical);
+      if (work.degraded) {
+        workBudget.degraded();
+      }
+      return tokens;
+    } finally {
+      work.stop();
+    }
+  }
+
+  /**
+   * @param canonicalizer holds canonical form of {@code input}
+   * @param allTokens tokens of the canonical form, see {@link #split(String)}
+   */
+  TokenizerResponse response(String input, Canonicalizer canonicalizer, String canonical, List<Token> allTokens) {
     List<String> wordTokens = FluentIterable.from(allTokens)
         .filter(TokenFunctions.isWord())
         .transform(TokenFunctions.corrected())
         .toList();
-    String corrected = restoreUppercase(
-        JOINER.join(Lists.transform(allTokens, TokenFunctions.corrected())),
-        uppercasePositions);
+    String corrected = JOINER.join(Lists.transform(allTokens, TokenFunctions.corrected()));
 
     return ImmutableTokenizerResponse.builder()
         .original(input)
         .addAllTokens(wordTokens)
-        .corrected(canonical(corrected).equals(canonical)
+        .corrected(Canonicalizer.canonical(corrected).equals(canonical)
             ? Optional.<String>absent()
-            : Optional.of(corrected))
+            : Optional.of(canonicalizer.restore(input, corrected)))
         .build();
   }
 
   List<Token> split(String input) {
     List<Token> tokens = Lists.newArrayList();
+    Work work = countsWork ? WORK.get() : null;
+    char[] chars = input.toCharArray();
+    int end = 0;
     for (Token token : splitBySpecificSeparators(input, isSeparator(), false)) {
-      tokens.addAll(splitPossibleSubTokens(token));
+      int start = end;
+      end += token.canonical().length();
+      if (Characters.isUrlScheme(chars, start, end, chars.length) || Characters.isUrlHost(chars, start, end)) {
+        // scheme and host of a URL are left as typed, like an abbreviation
+        tokens.addAll(splitBySpecificSeparators(token.canonical(), isSeparatorOrPossibleRu(), false));
+      } else if (work == null) {
+        tokens.addAll(splitPossibleSubTokens(token));
+      } else if (work.degraded) {
+        // the rest of the phrase is left as typed
+        tokens.add(token);
+      } else {
+        try {
+          tokens.addAll(splitPossibleSubTokens(token));
+        } catch (BudgetExhausted e) {
+          // the token the budget ran out in is left as typed too
+          tokens.add(token);
+        }
+      }
     }
     return ImmutableList.copyOf(tokens);
   }
 
+  /** @return true if this tokenizer has a {@link WorkBudget} or {@link SlowInputs} */
+  boolean countsWork() {
+    return countsWork;
+  }
+
+  private void checkWorkNotCounted(String user) {
+    if (countsWork) {
+      throw new IllegalStateException(user + " doesn't support tokenizers with work budget or slow inputs");
+    }
+  }
+
   List<Token> splitBySpecificSeparators(String original, Predicate<Character> isSeparator, boolean useExceptions) {
     if (original.isEmpty()) {
       return ImmutableList.of();
@@ -161,61 +480,87 @@ public final class LangSwitcherTokenizer implements Tokenizer {
   }
 
   private List<Token> enOrPossibleRu(Token token) {
-    String corrected = token.canonical();
-    if (!langChecker.check(Lang.EN, token.canonical())) {
-      String switched = Characters.switchLang(token.canonical(), Lang.RU);
-      if (langChecker.check(Lang.RU, switched)) {
-        corrected = switched;
-      }
-    }
-    return ImmutableList.of(buildToken(token.type(), token.corrected(), token.canonical(), corrected));
+    return ImmutableList.of(possiblySwitched(token, Lang.EN));
   }
 
   private List<Token> separatorOrPossibleEn(Token token) {
     if (isAbbreviation(token.canonical())) {
       return splitBySpecificSeparators(token.canonical(), isSeparatorOrPossibleRu(), false);
     } else {
-      String switched = Characters.switchLang(token.canonical(), Lang.RU);
-      if (langChecker.check(Lang.RU, switched)) {
-        return ImmutableList.of(buildToken(token.type(), token.corrected(), token.canonical(), switched));
-      } else {
-        return splitBySpecificSeparators(token.canonical(), isSeparatorOrPossibleRu(), true);
+      char[] chars = token.canonical().toCharArray();
+      char[] switched = new char[chars.length];
+      Characters.switchLang(chars, 0, chars.length, Lang.RU, switched, 0);
+      if (isWord(Lang.RU, switched, 0, switched.length)) {
+        byte[] labels = exceptions.find(token.canonical()) < 0
+            ? Segmentation.splitIntoWords(this, chars, switched)
+            : null;
+        return labels != null
+            ? segmented(token, labels, chars, switched)
+            : ImmutableList.of(buildToken(token.type(), token.corrected(), token.canonical(), new String(switched)));
       }
+
+      byte[] labels = Segmentation.segment(this, Lang.EN, chars, switched);
+      return labels != null
+          ? segmented(token, labels, chars, switched)
+          : splitBySpecificSeparators(token.canonical(), isSeparatorOrPossibleRu(), true);
     }
   }
 
   private List<Token> ruOrPossibleEn(Token token) {
-    String corrected = token.canonical();
-    if (!langChecker.check(Lang.RU, token.canonical())) {
-      String switched = Characters.switchLang(token.canonical(), Lang.EN);
-      if (langChecker.check(Lang.EN, switched)) {
-        corrected = switched;
-      }
-    }
-    return ImmutableList.of(buildToken(token.type(), token.corrected(), token.canonical(), corrected));
+    return ImmutableList.of(possiblySwitched(token, Lang.RU));
   }
 
-  private List<Token> ruOrPossibleSeparator(Token token) {
-    boolean correct = langChecker.check(Lang.RU, token.canonical());
-    List<Token> splitByPossibleSeparators = ImmutableList.of();
+  private Token possiblySwitched(Token token, Lang lang) {
+    char[] chars = token.canonical().toCharArray();
+    char[] switched = new char[chars.length];
+    String corrected = shouldSwitch(lang, chars, 0, chars.length, switched)
+        ? new String(switched)
+        : token.canonical();
+    return buildToken(token.type(), token.corrected(), token.canonical(), corrected);
+  }
 
-    if (!correct) {
-      splitByPossibleSeparators =
-          splitBySpecificSeparators(Characters.switchLang(token.canonical(), Lang.EN), isSeparatorOrPossibleRu(), true);
-      correct = !checkAll(splitByPossibleSeparators, Lang.EN);
+  private List<Token> ruOrPossibleSeparator(Token token) {
+    char[] chars = token.canonical().toCharArray();
+    if (!isWord(Lang.RU, chars, 0, chars.length)) {
+      char[] switched = new char[chars.length];
+      Characters.switchLang(chars, 0, chars.length, Lang.EN, switched, 0);
+      byte[] labels = Segmentation.segment(this, Lang.RU, switched, chars);
+      if (labels != null) {
+        return segmented(token, labels, switched, chars);
+      }
     }
+    return ImmutableList.of(buildToken(token.type(), token.corrected(), token.canonical(), token.canonical()));
+  }
 
-    if (correct) {
-      return ImmutableList.of(buildToken(token.type(), token.corrected(), token.canonical(), token.canonical()));
-    } else {
-      return splitByPossibleSeparators;
+  /**
+   * @param labels labels of chars from {@link Segmentation#segment}
+   * @param en token in English layout
+   * @param ru token in Russian layout
+   */
+  private List<Token> segmented(Token token, byte[] labels, char[] en, char[] ru) {
+    List<Token> tokens = Lists.newArrayList();
+    int start = 0;
+    while (start < labels.length) {
+      byte label = labels[start];
+      int end = start + 1;
+      while (end < labels.length && labels[end] == label) {
+        end++;
+      }
+
+      String canonical = token.canonical().substring(start, end);
+      String corrected = new String(label == Segmentation.RU ? ru : en, start, end - start);
+      tokens.add(buildToken(TokenType.of(label == Segmentation.SEPARATOR), canonical, canonical, corrected));
+      start = end;
     }
+    return tokens;
   }
 
-  private String canonical(String candidate) {
-    return candidate
-        .replace(APOSTROPHE_1, APOSTROPHE)
-        .toLowerCase();
+  /** @return true if the word in {@code [start, end)} is a known word or passes n-gram checks */
+  boolean isWord(Lang lang, char[] chars, int start, int end) {
+    if (countsWork) {
+      WORK.get().count();
+    }
+    return knownWords.get(lang).contains(chars, start, end) || langChecker.check(lang, chars, start, end);
   }
 
   private Token buildToken(
@@ -243,15 +588,17 @@ public final class LangSwitcherTokenizer implements Tokenizer {
       CharType.Set charTypes,
       boolean useException) {
 
+    int exception = useException ? exceptions.find(canonical) : -1;
+
     return ImmutableToken.builder()
         // XXX assume that we use exceptions for words
-        .type(useException && exceptions.containsKey(canonical)
+        .type(exception >= 0
             ? TokenType.WORD
             : tokenType)
         .original(original)
         .canonical(canonical)
-        .corrected(useException && exceptions.containsKey(canonical)
-            ? exceptions.get(canonical)
+        .corrected(exception >= 0
+            ? exceptions.value(exception)
             : canonical.length() < minTokenLength
                 ? canonical
                 : corrected)
@@ -259,20 +606,70 @@ public final class LangSwitcherTokenizer implements Tokenizer {
         .build();
   }
 
-  private boolean checkAll(Iterable<Token> tokens, Lang lang) {
-    boolean atLeastOneWord = false;
-    for (Token token : tokens) {
-      atLeastOneWord = token.isWord();
-      if (token.isWord() && !langChecker.check(lang, token.corrected())) {
-        return false;
+  private static final class CanonicalizerOfThread extends ThreadLocal<Canonicalizer> {
+    @Override
+    protected Canonicalizer initialValue() {
+      return new Canonicalizer();
+    }
+  }
+
+  private static final class WorkOfThread extends ThreadLocal<Work> {
+    @Override
+    protected Work initialValue() {
+      return new Work();
+    }
+  }
+
+  private static final class Work {
+    // false outside of a tokenize call, checks are not counted then
+    boolean active;
+    // null if calls are not limited
+    WorkBudget budget;
+    int checks;
+    boolean degraded;
+
+    void start(WorkBudget budget) {
+      this.active = true;
+      this.budget = budget;
+      checks = 0;
+      degraded = false;
+    }
+
+    void stop() {
+      active = false;
+      budget = null;
+    }
+
+    /**
+     * Counts a word check of the current call.
+     *
+     * @throws BudgetExhausted if the call has already made {@link WorkBudget#maxChecks()} checks,
+     *     the call is marked as degraded
+     */
+    void count() {
+      if (!active) {
+        return;
       }
+      if (budget != null && checks >= budget.maxChecks()) {
+        degraded = true;
+        throw BudgetExhausted.INSTANCE;
+      }
+      checks++;
+    }
+  }
+
+  /** Unwinds splitting of a token once the work budget is spent, see {@link #split(String)}. */
+  private static final class BudgetExhausted extends RuntimeException {
+    static final BudgetExhausted INSTANCE = new BudgetExhausted();
+
+    private BudgetExhausted() {
+      super("Work budget is exhausted", null, false, false);
     }
-    return atLeastOneWord;
   }
 
-  private static final class ExceptionsLineProcessor implements LineProcessor<Map<String, String>> {
+  private static final class ExceptionsLineProcessor implements LineProcessor<ExceptionDictionary> {
     static final Splitter SPLITTER = Splitter.on("|").trimResults();
-    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    ExceptionDictionary.Builder builder = ExceptionDictionary.builder();
 
     @Override
     public boolean processLine(String line) throws IOException {
@@ -282,7 +679,7 @@ public final class LangSwitcherTokenizer implements Tokenizer {
     }
 
     @Override
-    public Map<String, String> getResult() {
+    public ExceptionDictionary getResult() {
       return builder.build();
     }
   }
@@ -0,0 +1,187 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.Arrays;
+
+/**
+ * Detects keyboard layout of every token of a phrase, without building corrected strings.
+ * <p>
+ * Tokens are split by separators and digits like in {@link LangSwitcherTokenizer#tokenize(String)} and
+ * classified by the same model, a token which the tokenizer splits into words and separators to switch
+ * some of words is {@link Layout#MIXED}. Every token is packed into a long: see {@link #start(long)}, {@link #length(long)}
+ * and {@link #layout(long)}.
+ * <p>
+ * Instances keep reusable buffers, so they are not thread-safe.
+ *
+ * @see LangSwitcherTokenizer#layoutDetector()
+ */
+public final class LayoutDetector {
+  public enum Layout {
+    /** Digits or letters of other scripts. */
+    OTHER,
+    /** English word typed in English layout. */
+    EN,
+    /** Russian word typed in Russian layout. */
+    RU,
+    /** English word typed in Russian layout. */
+    SWITCHED_EN,
+    /** Russian word typed in English layout. */
+    SWITCHED_RU,
+    /** Token split into words and separators, some of words are switched. */
+    MIXED
+  }
+
+  private static final Layout[] LAYOUTS = Layout.values();
+  private static final long[] NO_TOKENS = new long[0];
+
+  private final LangSwitcherTokenizer tokenizer;
+  private final CharType.Set charTypes = CharType.createSet();
+  private final Segmentation segmentation = new Segmentation();
+
+  private char[] canonical = new char[64];
+  private char[] switched = new char[64];
+  private long[] tokens = new long[16];
+
+  LayoutDetector(LangSwitcherTokenizer tokenizer) {
+    this.tokenizer = tokenizer;
+  }
+
+  /** @return start of the packed token in the phrase */
+  public static int start(long token) {
+    return (int) (token >>> 32);
+  }
+
+  public static int length(long token) {
+    return (int) (token >>> 8) & 0xFFFFFF;
+  }
+
+  public static Layout layout(long token) {
+    return LAYOUTS[(int) token & 0xFF];
+  }
+
+  /** @return packed tokens of the phrase, separators are not included */
+  public long[] detect(String input) {
+    int length = input.length();
+    if (canonical.length < length) {
+      canonical = new char[Math.max(length, canonical.length * 2)];
+      switched = new char[canonical.length];
+    }
+    input.getChars(0, length, canonical, 0);
+    for (int i = 0; i < length; i++) {
+      canonical[i] = Canonicalizer.canonical(canonical[i]);
+    }
+
+    int count = 0;
+    int start = 0;
+    while (start < length) {
+      boolean isSeparator = Characters.isSeparator(canonical[start]);
+      boolean isDigit = Character.isDigit(canonical[start]);
+      charTypes.clear();
+      int end = start;
+      while (end < length
+          && Characters.isSeparator(canonical[end]) == isSeparator
+          && Character.isDigit(canonical[end]) == isDigit) {
+        charTypes.add(CharType.of(canonical[end]));
+        end++;
+      }
+
+      if (!isSeparator) {
+        Layout layout = isDigit
+            ? Layout.OTHER
+            : Characters.isUrlScheme(canonical, start, end, length) || Characters.isUrlHost(canonical, start, end)
+                ? Layout.EN
+                : classify(start, end);
+        if (layout != null) {
+          if (count == tokens.length) {
+            tokens = Arrays.copyOf(tokens, count * 2);
+          }
+          tokens[count++] = (long) start << 32 | (long) (end - start) << 8 | layout.ordinal();
+        }
+      }
+      start = end;
+    }
+
+    return count == 0 ? NO_TOKENS : Arrays.copyOf(tokens, count);
+  }
+
+  /** @return layout of the token, null if it is made of separators only */
+  private Layout classify(int start, int end) {
+    if (charTypes.containsOnly(CharType.EN_OR_POSSIBLE_RU)) {
+      return isException(start, end) || !isShort(start, end) && shouldSwitch(Lang.EN, start, end)
+          ? Layout.SWITCHED_RU
+          : Layout.EN;
+    }
+
+    if (charTypes.containsOnly(CharType.RU_OR_POSSIBLE_EN)) {
+      return isException(start, end) || !isShort(start, end) && shouldSwitch(Lang.RU, start, end)
+          ? Layout.SWITCHED_EN
+          : Layout.RU;
+    }
+
+    if (charTypes.containsOnlyFirstOrBoth(CharType.SEPARATOR_OR_POSSIBLE_RU, CharType.EN_OR_POSSIBLE_RU)) {
+      if (Characters.isAbbreviation(canonical, start, end)) {
+        return Layout.EN;
+      }
+      Characters.switchLang(canonical, start, end, Lang.RU, switched, start);
+      if (tokenizer.isWord(Lang.RU, switched, start, end)) {
+        if (!isException(start, end) && segmentation.splitIntoWords(tokenizer, canonical, switched, start, end)) {
+          return Layout.MIXED;
+        }
+        return isException(start, end) || !isShort(start, end) ? Layout.SWITCHED_RU : Layout.EN;
+      }
+      if (segment(Lang.EN, start, end)) {
+        return Layout.MIXED;
+      }
+      return charTypes.contains(CharType.EN_OR_POSSIBLE_RU) ? Layout.EN : null;
+    }
+
+    if (charTypes.containsOnlyFirstOrBoth(CharType.RU_OR_POSSIBLE_SEPARATOR, CharType.RU_OR_POSSIBLE_EN)) {
+      if (isException(start, end)) {
+        return Layout.SWITCHED_EN;
+      }
+      if (tokenizer.isWord(Lang.RU, canonical, start, end)) {
+        return Layout.RU;
+      }
+      Characters.switchLang(canonical, start, end, Lang.EN, switched, start);
+      return segment(Lang.RU, start, end) ? Layout.SWITCHED_EN : Layout.RU;
+    }
+
+    return Layout.OTHER;
+  }
+
+  private boolean isException(int start, int end) {
+    return tokenizer.exceptions.find(canonical, start, end) >= 0;
+  }
+
+  private boolean isShort(int start, int end) {
+    return end - start < tokenizer.minTokenLength;
+  }
+
+  private boolean shouldSwitch(Lang lang, int start, int end) {
+    return tokenizer.shouldSwitch(lang, canonical, start, end, switched);
+  }
+
+  /** @return true if the token is split into words and at least one of them is switched */
+  private boolean segment(Lang typed, int start, int end) {
+    return typed == Lang.EN
+        ? segmentation.segment(tokenizer, typed, canonical, switched, start, end)
+        : segmentation.segment(tokenizer, typed, switched, canonical, start, end);
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Approximate memory held by the model of a tokenizer, by component and language, see
+ * {@link LangSwitcherTokenizer#footprint()}.
+ * <p>
+ * Sizes are estimated from lengths of arrays for 64-bit JVM with compressed references, without walking
+ * the heap, so the report is cheap and deterministic. Shared parts are counted in every report which uses them:
+ * n-gram sets generated for the bundled model are static, a tokenizer with {@link TenantOverlay} reports only
+ * its overlays. Languages are named {@code "en"} and {@code "ru"}, as in model file names.
+ */
+public final class ModelFootprint {
+  /** Components of the model. */
+  public enum Component {
+    /** Nonexistent n-grams of a language in its own layout. */
+    NGRAMS,
+    /** The same n-grams in keys of the other layout, to check words typed in it without switching. */
+    SWITCHED_NGRAMS,
+    /** Tables of vowels and consonants in keys of both layouts. */
+    LETTERS,
+    /** Automaton of known words. */
+    KNOWN_WORDS,
+    /** Tables which switch keys of the other layout to letters of a language. */
+    LAYOUT,
+    /** Exceptions, not split by language. */
+    EXCEPTIONS
+  }
+
+  private static final Lang[] LANGS = {Lang.EN, Lang.RU};
+
+  // by component and index of language in LANGS, exceptions are in the first column
+  private final long[][] heapBytes = new long[Component.values().length][LANGS.length];
+  private final long[] directBytes = new long[LANGS.length];
+
+  private ModelFootprint() {
+  }
+
+  static ModelFootprint of(LangSwitcherTokenizer tokenizer) {
+    ModelFootprint footprint = new ModelFootprint();
+    for (int i = 0; i < LANGS.length; i++) {
+      Lang lang = LANGS[i];
+      LangChecker.KeySpace keySpace = tokenizer.langChecker.keySpace(lang);
+      LangChecker.KeySpace switchedKeySpace = tokenizer.langChecker.switchedKeySpace(lang);
+      footprint.set(Component.NGRAMS, i, keySpace.ngramsSizeInBytes());
+      footprint.set(Component.SWITCHED_NGRAMS, i, switchedKeySpace.ngramsSizeInBytes());
+      footprint.set(Component.LETTERS, i, keySpace.lettersSizeInBytes() + switchedKeySpace.lettersSizeInBytes());
+      footprint.set(Component.KNOWN_WORDS, i, tokenizer.knownWords.get(lang).sizeInBytes());
+      footprint.set(Component.LAYOUT, i, Characters.switchTablesSizeInBytes(lang));
+      footprint.directBytes[i] = keySpace.ngramsDirectSizeInBytes() + switchedKeySpace.ngramsDirectSizeInBytes();
+    }
+    footprint.set(Component.EXCEPTIONS, 0, tokenizer.exceptions.sizeInBytes());
+    return footprint;
+  }
+
+  private void set(Component component, int lang, long bytes) {
+    heapBytes[component.ordinal()][lang] = bytes;
+  }
+
+  /**
+   * @param language {@code "en"} or {@code "ru"}
+   * @return heap bytes of {@code component} of {@code language}, 0 for {@link Component#EXCEPTIONS}
+   */
+  public long heapBytes(Component component, String language) {
+    return component == Component.EXCEPTIONS ? 0 : heapBytes[component.ordinal()][index(language)];
+  }
+
+  /** @return heap bytes of {@code component} of all languages */
+  public long heapBytes(Component component) {
+    long bytes = 0;
+    for (long langBytes : heapBytes[component.ordinal()]) {
+      bytes += langBytes;
+    }
+    return bytes;
+  }
+
+  /**
+   * @param language {@code "en"} or {@code "ru"}
+   * @return heap bytes of all components of {@code language}, without {@link Component#EXCEPTIONS}
+   */
+  public long heapBytes(String language) {
+    long bytes = 0;
+    for (Component component : Component.values()) {
+      bytes += heapBytes(component, language);
+    }
+    return bytes;
+  }
+
+  /** @return heap bytes of the model */
+  public long heapBytes() {
+    long bytes = 0;
+    for (Component component : Component.values()) {
+      bytes += heapBytes(component);
+    }
+    return bytes;
+  }
+
+  /**
+   * @param language {@code "en"} or {@code "ru"}
+   * @return bytes outside of the heap held by n-grams of {@code language}, see {@link NgramRepresentation#OFF_HEAP}
+   */
+  public long directBytes(String language) {
+    return directBytes[index(language)];
+  }
+
+  /** @return bytes outside of the heap held by the model */
+  public long directBytes() {
+    long bytes = 0;
+    for (long langBytes : directBytes) {
+      bytes += langBytes;
+    }
+    return bytes;
+  }
+
+  private static int index(String language) {
+    return Arrays.asList(LANGS).indexOf(Lang.of(language));
+  }
+
+  /** @return table of kilobytes by component and language */
+  @Override
+  public String toString() {
+    StringBuilder table = new StringBuilder(String.format(Locale.ENGLISH,
+        "%-16s %10s %10s %10s%n", "component", "en KB", "ru KB", "total KB"));
+    for (Component component : Component.values()) {
+      table.append(String.format(Locale.ENGLISH, "%-16s %10.1f %10.1f %10.1f%n",
+          component.name().toLowerCase(Locale.ENGLISH),
+          heapBytes(component, "en") / 1024.0, heapBytes(component, "ru") / 1024.0,
+          heapBytes(component) / 1024.0));
+    }
+    table.append(String.format(Locale.ENGLISH, "%-16s %10.1f %10.1f %10.1f%n",
+        "heap", heapBytes("en") / 1024.0, heapBytes("ru") / 1024.0, heapBytes() / 1024.0));
+    return table.append(String.format(Locale.ENGLISH, "%-16s %10.1f %10.1f %10.1f",
+        "off-heap", directBytes("en") / 1024.0, directBytes("ru") / 1024.0, directBytes() / 1024.0)).toString();
+  }
+}
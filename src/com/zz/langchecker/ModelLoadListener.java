@@ -0,0 +1,40 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Optional;
+
+/**
+ * Observes loading of models, e.g. to record it in a profiler. Listeners are registered with
+ * {@link ModelLoads#addListener(ModelLoadListener)} and called on the loading thread.
+ */
+public interface ModelLoadListener {
+  /**
+   * Called before a model is loaded. Loads can nest: the bundled model loads its n-grams.
+   *
+   * @param source model directory, {@link ModelLoads#BUNDLED} or {@link ModelLoads#BUNDLED_NGRAMS}
+   * @return notified when the load is finished
+   */
+  Load started(String source);
+
+  interface Load {
+    /** @param failure absent if the model is loaded */
+    void finished(Optional<Throwable> failure);
+  }
+}
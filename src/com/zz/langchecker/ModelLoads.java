@@ -0,0 +1,87 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of {@link ModelLoadListener}s, notified when the bundled model is initialized, when
+ * the n-gram sets of the bundled model are built and when {@link LangSwitcherTokenizer#load} reads a model
+ * directory, which includes loads and reloads of {@link ReloadingTokenizer}.
+ * <p>
+ * The bundled model is initialized once per JVM, by the first tokenizer created with
+ * {@link LangSwitcherTokenizer#create()}; listeners added after that don't see it.
+ */
+public final class ModelLoads {
+  /** Source of the bundled model: n-grams and exceptions. */
+  public static final String BUNDLED = "bundled";
+  /** Source of n-gram sets of the bundled model, built while it is initialized or for a new checker. */
+  public static final String BUNDLED_NGRAMS = "bundled n-grams";
+
+  private static final List<ModelLoadListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+  private ModelLoads() {
+  }
+
+  public static void addListener(ModelLoadListener listener) {
+    LISTENERS.add(listener);
+  }
+
+  public static void removeListener(ModelLoadListener listener) {
+    LISTENERS.remove(listener);
+  }
+
+  /** @return load to finish when the model from {@code source} is loaded or fails */
+  static ModelLoadListener.Load started(String source) {
+    if (LISTENERS.isEmpty()) {
+      return NotObserved.INSTANCE;
+    }
+    ImmutableList.Builder<ModelLoadListener.Load> builder = ImmutableList.builder();
+    for (ModelLoadListener listener : LISTENERS) {
+      builder.add(listener.started(source));
+    }
+    return new Observed(builder.build());
+  }
+
+  private enum NotObserved implements ModelLoadListener.Load {
+    INSTANCE;
+
+    @Override
+    public void finished(Optional<Throwable> failure) {
+    }
+  }
+
+  private static final class Observed implements ModelLoadListener.Load {
+    private final List<ModelLoadListener.Load> loads;
+
+    Observed(List<ModelLoadListener.Load> loads) {
+      this.loads = loads;
+    }
+
+    @Override
+    public void finished(Optional<Throwable> failure) {
+      for (ModelLoadListener.Load load : loads) {
+        load.finished(failure);
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Locations of model files: n-gram vocabularies and {@code exceptions.csv}.
+ */
+final class ModelResources {
+  private ModelResources() {
+  }
+
+  /** @return function from model file name to bundled resource */
+  static Function<String, URL> bundled() {
+    return Bundled.FUNCTION;
+  }
+
+  /** @return function from model file name to the file in directory, or to bundled resource if there is no file */
+  static Function<String, URL> overriddenBy(final Path directory) {
+    return new Function<String, URL>() {
+      @Override
+      public URL apply(String name) {
+        Path file = directory.resolve(name);
+        if (!Files.isRegularFile(file)) {
+          return Bundled.FUNCTION.apply(name);
+        }
+        try {
+          return file.toUri().toURL();
+        } catch (MalformedURLException e) {
+          throw Throwables.propagate(e);
+        }
+      }
+    };
+  }
+
+  enum Bundled implements Function<String, URL> {
+    FUNCTION;
+
+    @Override
+    public URL apply(String name) {
+      return ModelResources.class.getResource(name);
+    }
+  }
+}
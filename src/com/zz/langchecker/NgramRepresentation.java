@@ -0,0 +1,47 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+/**
+ * Representation of nonexistent n-gram sets of the model, see
+ * {@link LangSwitcherTokenizer#withNgramRepresentation(NgramRepresentation)} and {@link ModelFootprint}.
+ * <p>
+ * N-grams of the bundled model in both layouts, with {@code NgramRepresentationBenchmark} throughput of
+ * the tokenizer over vocabulary words (relative to {@link #PACKED}):
+ * <pre>
+ * representation   heap      off-heap   throughput
+ * STRINGS          1030 KB   -          0.65
+ * PACKED            220 KB   -          1
+ * OFF_HEAP            2 KB   390 KB     1
+ * </pre>
+ * Strings are the simplest to inspect, but allocate on each check. Off-heap tables are open addressing with load
+ * factor up to 1/2, so they take more memory than perfect hash tables generated for the bundled model, but keep
+ * the heap and the work of garbage collector small.
+ */
+public enum NgramRepresentation {
+  /** Hash set of strings, each check unpacks the n-gram to a new string. */
+  STRINGS,
+  /**
+   * N-grams packed into {@code long}s in an open addressing table, or in a perfect hash table generated
+   * at build time for the bundled model. The default.
+   */
+  PACKED,
+  /** The same open addressing table in a direct buffer, outside of the heap. */
+  OFF_HEAP
+}
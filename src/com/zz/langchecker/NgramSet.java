@@ -0,0 +1,440 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.ImmutableSet;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Set of n-grams up to 4 chars, packed into longs, so it can be checked for char ranges without substring.
+ * <p>
+ * Sets parsed at runtime are stored in open addressing table. Sets of the bundled model are generated at build
+ * time by {@code NgramClassGenerator} as subclasses with a perfect hash over constant arrays, see {@link #slot}.
+ * Other representations are chosen by {@link #in(NgramRepresentation)}.
+ */
+abstract class NgramSet {
+  /** Marks word start or word end in n-gram, for example {@code *ab} or {@code ab*}. */
+  static final char WORD_BOUNDARY = '*';
+
+  static final int MAX_LENGTH = 4;
+
+  static NgramSet of(Iterable<String> ngrams) {
+    int count = 0;
+    for (String ignored : ngrams) {
+      count++;
+    }
+
+    long[] table = OpenAddressing.table(count);
+    int size = 0;
+    for (String ngram : ngrams) {
+      if (OpenAddressing.add(table, pack(ngram))) {
+        size++;
+      }
+    }
+    return new OpenAddressing(table, size);
+  }
+
+  /** @param packed distinct n-grams packed by {@link #pack(char[], int, int)} */
+  static NgramSet ofPacked(long[] packed) {
+    return new OpenAddressing(OpenAddressing.table(packed), packed.length);
+  }
+
+  /**
+   * @param allowed n-grams which are removed from {@code base}
+   * @param denied n-grams which are added to {@code base}
+   * @return {@code base} with n-grams allowed or denied by an overlay, {@code base} is shared and not copied
+   */
+  static NgramSet overlaid(NgramSet base, NgramSet allowed, NgramSet denied) {
+    if (allowed.size() == 0 && denied.size() == 0) {
+      return base;
+    }
+    return new Overlay(base, allowed, denied);
+  }
+
+  abstract int size();
+
+  /** @param packed n-gram packed by {@link #pack(char[], int, int)} */
+  abstract boolean contains(long packed);
+
+  /** @return packed n-grams of the set in no particular order */
+  abstract long[] packed();
+
+  /** @return approximate heap size of the set in bytes */
+  abstract long sizeInBytes();
+
+  /** @return size of memory outside of the heap held by the set in bytes */
+  long directSizeInBytes() {
+    return 0;
+  }
+
+  /** @return representation of the set, null if the set is a view of other sets */
+  NgramRepresentation representation() {
+    return NgramRepresentation.PACKED;
+  }
+
+  /** @return set of the same n-grams in {@code representation}, this set if it is already in it */
+  final NgramSet in(NgramRepresentation representation) {
+    if (representation() == representation) {
+      return this;
+    }
+    switch (representation) {
+    case STRINGS:
+      return new Strings(packed());
+    case PACKED:
+      return ofPacked(packed());
+    case OFF_HEAP:
+      return new OffHeap(packed());
+    default:
+      throw new IllegalArgumentException("Unsupported representation " + representation);
+    }
+  }
+
+  final boolean contains(String ngram) {
+    return ngram.length() <= MAX_LENGTH && contains(pack(ngram.toCharArray(), 0, ngram.length()));
+  }
+
+  final boolean contains(char[] chars, int start, int length) {
+    return contains(pack(chars, start, length));
+  }
+
+  /** @return true if contains {@code *xy}, where {@code xy} are two chars from {@code start} */
+  final boolean containsWordStart(char[] chars, int start) {
+    return contains((long) WORD_BOUNDARY << 32 | (long) chars[start] << 16 | chars[start + 1]);
+  }
+
+  /** @return true if contains {@code xy*}, where {@code xy} are two chars before {@code end} */
+  final boolean containsWordEnd(char[] chars, int end) {
+    return contains((long) chars[end - 2] << 32 | (long) chars[end - 1] << 16 | WORD_BOUNDARY);
+  }
+
+  static long pack(char[] chars, int start, int length) {
+    long packed = 0;
+    for (int i = start; i < start + length; i++) {
+      packed = packed << 16 | chars[i];
+    }
+    return packed;
+  }
+
+  /**
+   * @throws IllegalArgumentException if n-gram is empty or longer than {@link #MAX_LENGTH}
+   */
+  static long pack(String ngram) {
+    if (ngram.isEmpty() || ngram.length() > MAX_LENGTH) {
+      throw new IllegalArgumentException("Unsupported n-gram: '" + ngram + "'");
+    }
+    return pack(ngram.toCharArray(), 0, ngram.length());
+  }
+
+  static String unpack(long packed) {
+    StringBuilder ngram = new StringBuilder(MAX_LENGTH);
+    for (int shift = 16 * (MAX_LENGTH - 1); shift >= 0; shift -= 16) {
+      char ch = (char) (packed >>> shift);
+      if (ch != 0) {
+        ngram.append(ch);
+      }
+    }
+    return ngram.toString();
+  }
+
+  /**
+   * @return n-grams of the perfect hash table, slots which are not addressed by their own n-gram are skipped
+   * @see #slot
+   */
+  static long[] packed(long[] table, long seed, int[] displacements, int bucketShift) {
+    long[] packed = new long[table.length];
+    int size = 0;
+    for (int i = 0; i < table.length; i++) {
+      if (slot(table[i], seed, displacements, bucketShift, table.length - 1) == i) {
+        packed[size++] = table[i];
+      }
+    }
+    return Arrays.copyOf(packed, size);
+  }
+
+  /**
+   * Slot of the packed n-gram in the table of perfect hash: bucket by high bits of the hash, displacement of
+   * the bucket is xor-ed with low bits, so a table of power of two size needs no bounds check.
+   *
+   * @param mask table size - 1
+   * @param bucketShift 64 - log2 of the number of buckets
+   */
+  static int slot(long packed, long seed, int[] displacements, int bucketShift, int mask) {
+    long hash = hash(packed, seed);
+    return ((int) hash & mask) ^ displacements[(int) (hash >>> bucketShift)];
+  }
+
+  // murmur3 finalizer
+  static long hash(long packed, long seed) {
+    long hash = packed ^ seed;
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private static final class Overlay extends NgramSet {
+    private final NgramSet base;
+    private final NgramSet allowed;
+    private final NgramSet denied;
+
+    Overlay(NgramSet base, NgramSet allowed, NgramSet denied) {
+      this.base = base;
+      this.allowed = allowed;
+      this.denied = denied;
+    }
+
+    @Override
+    int size() {
+      return packed().length;
+    }
+
+    /** Shared base set is not included. */
+    @Override
+    long sizeInBytes() {
+      return allowed.sizeInBytes() + denied.sizeInBytes() + 16;
+    }
+
+    @Override
+    long directSizeInBytes() {
+      return allowed.directSizeInBytes() + denied.directSizeInBytes();
+    }
+
+    @Override
+    NgramRepresentation representation() {
+      return null;
+    }
+
+    @Override
+    boolean contains(long packed) {
+      // overlays are small, so most lookups are one miss in an overlay set
+      return base.contains(packed) ? !allowed.contains(packed) : denied.contains(packed);
+    }
+
+    @Override
+    long[] packed() {
+      long[] packed = new long[base.size() + denied.size()];
+      int size = 0;
+      for (long ngram : base.packed()) {
+        if (!allowed.contains(ngram)) {
+          packed[size++] = ngram;
+        }
+      }
+      for (long ngram : denied.packed()) {
+        if (!base.contains(ngram)) {
+          packed[size++] = ngram;
+        }
+      }
+      return Arrays.copyOf(packed, size);
+    }
+  }
+
+  private static final class OpenAddressing extends NgramSet {
+    static final long EMPTY = 0;
+
+    private final long[] table;
+    private final int shift;
+    private final int size;
+
+    OpenAddressing(long[] table, int size) {
+      this.table = table;
+      this.shift = Long.numberOfLeadingZeros(table.length - 1);
+      this.size = size;
+    }
+
+    @Override
+    int size() {
+      return size;
+    }
+
+    @Override
+    boolean contains(long packed) {
+      int i = index(packed, shift);
+      long current;
+      while ((current = table[i]) != EMPTY) {
+        if (current == packed) {
+          return true;
+        }
+        i = (i + 1) & (table.length - 1);
+      }
+      return false;
+    }
+
+    @Override
+    long[] packed() {
+      return OpenAddressing.packed(table, size);
+    }
+
+    @Override
+    long sizeInBytes() {
+      // array header is 16 bytes
+      return 8L * table.length + 2 * 16;
+    }
+
+    /** @return empty table with load factor at most 1/2 */
+    static long[] table(int count) {
+      return new long[Integer.highestOneBit(Math.max(count, 1) * 2 - 1) * 2];
+    }
+
+    static long[] table(long[] packed) {
+      long[] table = table(packed.length);
+      for (long ngram : packed) {
+        add(table, ngram);
+      }
+      return table;
+    }
+
+    /** @return false if the table already contains {@code packed} */
+    static boolean add(long[] table, long packed) {
+      int i = index(packed, Long.numberOfLeadingZeros(table.length - 1));
+      while (table[i] != EMPTY && table[i] != packed) {
+        i = (i + 1) & (table.length - 1);
+      }
+      if (table[i] == EMPTY) {
+        table[i] = packed;
+        return true;
+      }
+      return false;
+    }
+
+    static long[] packed(long[] table, int size) {
+      long[] packed = new long[size];
+      int i = 0;
+      for (long ngram : table) {
+        if (ngram != EMPTY) {
+          packed[i++] = ngram;
+        }
+      }
+      return packed;
+    }
+
+    static int index(long packed, int shift) {
+      return (int) ((packed * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+  }
+
+  /** N-grams as strings in a hash set, each lookup unpacks the n-gram to a string. */
+  private static final class Strings extends NgramSet {
+    private final ImmutableSet<String> ngrams;
+
+    Strings(long[] packed) {
+      ImmutableSet.Builder<String> ngrams = ImmutableSet.builder();
+      for (long ngram : packed) {
+        ngrams.add(unpack(ngram));
+      }
+      this.ngrams = ngrams.build();
+    }
+
+    @Override
+    int size() {
+      return ngrams.size();
+    }
+
+    @Override
+    boolean contains(long packed) {
+      return ngrams.contains(unpack(packed));
+    }
+
+    @Override
+    long[] packed() {
+      long[] packed = new long[ngrams.size()];
+      int i = 0;
+      for (String ngram : ngrams) {
+        packed[i++] = pack(ngram);
+      }
+      return packed;
+    }
+
+    @Override
+    long sizeInBytes() {
+      // hash table of references and array of elements, each string is 24 bytes and its char array
+      long size = 4L * (Integer.highestOneBit(Math.max(ngrams.size(), 1) * 2 - 1) * 2 + ngrams.size()) + 3 * 16;
+      for (String ngram : ngrams) {
+        size += 24 + (16 + 2 * ngram.length() + 7) / 8 * 8;
+      }
+      return size;
+    }
+
+    @Override
+    NgramRepresentation representation() {
+      return NgramRepresentation.STRINGS;
+    }
+  }
+
+  /** Open addressing table in a direct buffer, only the buffer object is on the heap. */
+  private static final class OffHeap extends NgramSet {
+    private final ByteBuffer table;
+    private final int mask;
+    private final int shift;
+    private final int size;
+
+    OffHeap(long[] packed) {
+      long[] table = OpenAddressing.table(packed);
+      this.table = ByteBuffer.allocateDirect(8 * table.length).order(ByteOrder.nativeOrder());
+      this.table.asLongBuffer().put(table);
+      this.mask = table.length - 1;
+      this.shift = Long.numberOfLeadingZeros(mask);
+      this.size = packed.length;
+    }
+
+    @Override
+    int size() {
+      return size;
+    }
+
+    @Override
+    boolean contains(long packed) {
+      int i = OpenAddressing.index(packed, shift);
+      long current;
+      while ((current = table.getLong(i << 3)) != OpenAddressing.EMPTY) {
+        if (current == packed) {
+          return true;
+        }
+        i = (i + 1) & mask;
+      }
+      return false;
+    }
+
+    @Override
+    long[] packed() {
+      long[] table = new long[mask + 1];
+      this.table.asLongBuffer().get(table);
+      return OpenAddressing.packed(table, size);
+    }
+
+    @Override
+    long sizeInBytes() {
+      // this object, the buffer and its cleaner
+      return 32 + 64 + 48;
+    }
+
+    @Override
+    long directSizeInBytes() {
+      return table.capacity();
+    }
+
+    @Override
+    NgramRepresentation representation() {
+      return NgramRepresentation.OFF_HEAP;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Tokenizes long inputs on a fork/join pool, the response is the same as of the sequential tokenizer.
+ * <p>
+ * Canonical form of the input is cut into segments at starts of separator runs
+ * ({@link Characters#isSeparator(char)}, which never include ambiguous chars like {@code ,} or {@code ;}):
+ * these are token boundaries of {@link LangSwitcherTokenizer#tokenize(String)}, so segments are split into tokens
+ * independently. Tokens are joined in order, then the corrected phrase is built and its case restored over
+ * the whole input. Inputs shorter than two segments are tokenized by the calling thread.
+ */
+public final class ParallelTokenizer implements Tokenizer {
+  public static final int DEFAULT_MIN_SEGMENT_LENGTH = 16 * 1024;
+
+  // segments per worker of the pool, to balance segments of different cost
+  private static final int SEGMENTS_PER_WORKER = 4;
+
+  private final LangSwitcherTokenizer tokenizer;
+  private final ForkJoinPool pool;
+  private final int minSegmentLength;
+
+  private ParallelTokenizer(LangSwitcherTokenizer tokenizer, ForkJoinPool pool, int minSegmentLength) {
+    this.tokenizer = tokenizer;
+    this.pool = pool;
+    this.minSegmentLength = minSegmentLength;
+  }
+
+  public static ParallelTokenizer create(LangSwitcherTokenizer tokenizer, ForkJoinPool pool) {
+    return create(tokenizer, pool, DEFAULT_MIN_SEGMENT_LENGTH);
+  }
+
+  /**
+   * @param tokenizer tokenizer without {@link WorkBudget} and {@link SlowInputs}, which are applied only to calls
+   *     on one thread
+   * @param minSegmentLength minimum length of a segment tokenized by one task
+   */
+  public static ParallelTokenizer create(LangSwitcherTokenizer tokenizer, ForkJoinPool pool, int minSegmentLength) {
+    if (minSegmentLength < 1) {
+      throw new IllegalArgumentException("minSegmentLength should be positive");
+    }
+    if (tokenizer.countsWork()) {
+      throw new IllegalArgumentException(
+          "ParallelTokenizer doesn't support tokenizers with work budget or slow inputs");
+    }
+    return new ParallelTokenizer(tokenizer, pool, minSegmentLength);
+  }
+
+  @Override
+  public TokenizerResponse tokenize(String input) {
+    if (input.length() < 2 * minSegmentLength) {
+      return tokenizer.tokenize(input);
+    }
+
+    Canonicalizer canonicalizer = new Canonicalizer();
+    canonicalizer.canonicalize(input);
+    String canonical = canonicalizer.canonical();
+    int segmentLength = Math.max(minSegmentLength, input.length() / (pool.getParallelism() * SEGMENTS_PER_WORKER));
+    int[] boundaries = boundaries(canonicalizer.chars(), canonicalizer.length(), segmentLength);
+
+    @SuppressWarnings("unchecked")
+    List<Token>[] segments = new List[boundaries.length - 1];
+    pool.invoke(new SplitTask(canonical, boundaries, 0, segments.length, segments));
+
+    ImmutableList.Builder<Token> tokens = ImmutableList.builder();
+    for (List<Token> segment : segments) {
+      tokens.addAll(segment);
+    }
+    return tokenizer.response(input, canonicalizer, canonical, tokens.build());
+  }
+
+  /**
+   * @return boundaries of segments of at least {@code segmentLength} chars (except the last one)
+   *     from 0 to {@code length}, every inner boundary is the start of a separator run not preceded by {@code :}
+   */
+  static int[] boundaries(char[] canonical, int length, int segmentLength) {
+    List<Integer> boundaries = Lists.newArrayList(0);
+    int position = segmentLength;
+    while (position < length) {
+      // URL scheme like https: is told by the // after it, so the segment doesn't end between them
+      while (position < length
+          && !(Characters.isSeparator(canonical[position]) && !Characters.isSeparator(canonical[position - 1])
+              && canonical[position - 1] != ':')) {
+        position++;
+      }
+      if (position == length) {
+        break;
+      }
+      boundaries.add(position);
+      position += segmentLength;
+    }
+    boundaries.add(length);
+    return Ints.toArray(boundaries);
+  }
+
+  /** Splits segments from {@code from} to {@code to}, halving the range until one segment is left. */
+  private final class SplitTask extends RecursiveAction {
+    private final String canonical;
+    private final int[] boundaries;
+    private final int from;
+    private final int to;
+    private final List<Token>[] segments;
+
+    SplitTask(String canonical, int[] boundaries, int from, int to, List<Token>[] segments) {
+      this.canonical = canonical;
+      this.boundaries = boundaries;
+      this.from = from;
+      this.to = to;
+      this.segments = segments;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        segments[from] = tokenizer.split(canonical.substring(boundaries[from], boundaries[to]));
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(
+          new SplitTask(canonical, boundaries, from, middle, segments),
+          new SplitTask(canonical, boundaries, middle, to, segments));
+    }
+  }
+}
@@ -0,0 +1,336 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corrects a UTF-8 text file by several worker processes, which share nothing but the file system.
+ * <p>
+ * Input is split into byte ranges which end on line boundary, one per worker. Each worker is
+ * {@link BulkCorrector} with {@code --range} started by a {@link Launcher} (local JVM by default,
+ * remote hosts with a custom launcher), it writes its partition to {@code <output>.part<N>}.
+ * Partitions are concatenated into output in input order.
+ * <p>
+ * Usage: {@code PartitionCoordinator [--workers N] [--worker-threads N] [--changed-only] <input> <output>}
+ */
+public final class PartitionCoordinator {
+  private static final byte NEW_LINE = '\n';
+  private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+  /** Starts a worker process, which should see the same paths of input and output. */
+  public interface Launcher {
+    /**
+     * @param arguments arguments of {@link BulkCorrector#main(String[])}
+     */
+    Process launch(List<String> arguments) throws IOException;
+  }
+
+  private final Launcher launcher;
+  private final int workers;
+  private final int workerThreads;
+  private final boolean changedOnly;
+
+  /**
+   * @param workers number of partitions and worker processes
+   * @param workerThreads number of threads in each worker
+   * @param changedOnly if true only lines with {@link TokenizerResponse#corrected()} are written
+   */
+  public PartitionCoordinator(Launcher launcher, int workers, int workerThreads, boolean changedOnly) {
+    if (workers < 1 || workerThreads < 1) {
+      throw new IllegalArgumentException("workers and workerThreads should be positive");
+    }
+    this.launcher = launcher;
+    this.workers = workers;
+    this.workerThreads = workerThreads;
+    this.changedOnly = changedOnly;
+  }
+
+  public static void main(String[] args) throws IOException {
+    int workers = Runtime.getRuntime().availableProcessors();
+    int workerThreads = 1;
+    boolean changedOnly = false;
+
+    int i = 0;
+    for (; i < args.length && args[i].startsWith("--"); i++) {
+      switch (args[i]) {
+      case "--workers":
+        workers = Integer.parseInt(args[++i]);
+        break;
+      case "--worker-threads":
+        workerThreads = Integer.parseInt(args[++i]);
+        break;
+      case "--changed-only":
+        changedOnly = true;
+        break;
+      default:
+        usage();
+      }
+    }
+    if (args.length - i != 2) {
+      usage();
+    }
+
+    PartitionCoordinator coordinator = new PartitionCoordinator(localLauncher(), workers, workerThreads, changedOnly);
+    for (PartitionStats stats : coordinator.correct(Paths.get(args[i]), Paths.get(args[i + 1]))) {
+      System.err.println(stats);
+    }
+  }
+
+  private static void usage() {
+    System.err.println(
+        "Usage: PartitionCoordinator [--workers N] [--worker-threads N] [--changed-only] <input> <output>");
+    System.exit(2);
+  }
+
+  /** @return launcher of worker JVMs on this host with the class path of the current JVM */
+  public static Launcher localLauncher() {
+    return LocalLauncher.INSTANCE;
+  }
+
+  /**
+   * @return stats of partitions in input order
+   * @throws IOException if input can't be read or some of workers failed
+   */
+  public List<PartitionStats> correct(Path input, Path output) throws IOException {
+    long[] boundaries;
+    try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+      boundaries = boundaries(in, workers);
+    }
+
+    int partitions = boundaries.length - 1;
+    List<Path> outputs = Lists.newArrayListWithCapacity(partitions);
+    List<Process> processes = Lists.newArrayListWithCapacity(partitions);
+    List<Future<Long>> finishes = Lists.newArrayListWithCapacity(partitions);
+    // one thread per worker, to take the time when each of them exits
+    ExecutorService waiters = Executors.newCachedThreadPool(
+        new ThreadFactoryBuilder().setNameFormat("partition-waiter-%d").setDaemon(true).build());
+    long startNanos = System.nanoTime();
+    try {
+      for (int i = 0; i < partitions; i++) {
+        Path partOutput = output.resolveSibling(output.getFileName() + ".part" + i);
+        outputs.add(partOutput);
+        Process process = launcher.launch(arguments(input, boundaries[i], boundaries[i + 1], partOutput));
+        processes.add(process);
+        finishes.add(waiters.submit(new Waiter(i, process)));
+      }
+
+      ImmutableList.Builder<PartitionStats> stats = ImmutableList.builder();
+      for (int i = 0; i < partitions; i++) {
+        long finishNanos = await(finishes.get(i));
+        stats.add(new PartitionStats(
+            i, boundaries[i], boundaries[i + 1], Files.size(outputs.get(i)), finishNanos - startNanos));
+      }
+
+      merge(outputs, output);
+      return stats.build();
+    } finally {
+      waiters.shutdownNow();
+      for (Process process : processes) {
+        process.destroy();
+      }
+      for (Path partOutput : outputs) {
+        Files.deleteIfExists(partOutput);
+      }
+    }
+  }
+
+  private List<String> arguments(Path input, long start, long end, Path output) {
+    List<String> arguments = Lists.newArrayList(
+        "--threads", String.valueOf(workerThreads),
+        "--range", String.valueOf(start), String.valueOf(end));
+    if (changedOnly) {
+      arguments.add("--changed-only");
+    }
+    arguments.add(input.toAbsolutePath().toString());
+    arguments.add(output.toAbsolutePath().toString());
+    return arguments;
+  }
+
+  /**
+   * @return offsets of partitions: partition {@code i} is from {@code boundaries[i]} to {@code boundaries[i + 1]},
+   *     every partition but the last ends after new line, there are no empty partitions unless input is empty
+   */
+  static long[] boundaries(FileChannel in, int partitions) throws IOException {
+    long size = in.size();
+    List<Long> boundaries = Lists.newArrayList(0L);
+    ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    for (int i = 1; i < partitions; i++) {
+      long previous = boundaries.get(boundaries.size() - 1);
+      long boundary = lineEnd(in, Math.max(size * i / partitions, previous), size, buffer);
+      if (boundary > previous && boundary < size) {
+        boundaries.add(boundary);
+      }
+    }
+    boundaries.add(size);
+
+    long[] result = new long[boundaries.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = boundaries.get(i);
+    }
+    return result;
+  }
+
+  /** @return offset after the first new line at or after {@code position}, {@code size} if there is none */
+  private static long lineEnd(FileChannel in, long position, long size, ByteBuffer buffer) throws IOException {
+    while (position < size) {
+      buffer.clear();
+      int read = in.read(buffer, position);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == NEW_LINE) {
+          return position + i + 1;
+        }
+      }
+      position += read;
+    }
+    return size;
+  }
+
+  private static void merge(List<Path> partOutputs, Path output) throws IOException {
+    try (FileChannel out = FileChannel.open(output,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      for (Path partOutput : partOutputs) {
+        try (FileChannel in = FileChannel.open(partOutput, StandardOpenOption.READ)) {
+          long size = in.size();
+          for (long position = 0; position < size; ) {
+            position += in.transferTo(position, size - position, out);
+          }
+        }
+      }
+    }
+  }
+
+  private static long await(Future<Long> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  private static final class Waiter implements Callable<Long> {
+    private final int partition;
+    private final Process process;
+
+    Waiter(int partition, Process process) {
+      this.partition = partition;
+      this.process = process;
+    }
+
+    /** @return time when the worker exited */
+    @Override
+    public Long call() throws IOException, InterruptedException {
+      int status = process.waitFor();
+      if (status != 0) {
+        throw new IOException("Worker of partition " + partition + " exited with status " + status);
+      }
+      return System.nanoTime();
+    }
+  }
+
+  private enum LocalLauncher implements Launcher {
+    INSTANCE;
+
+    @Override
+    public Process launch(List<String> arguments) throws IOException {
+      List<String> command = Lists.newArrayList(
+          Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+          "-cp", System.getProperty("java.class.path"),
+          BulkCorrector.class.getName());
+      command.addAll(arguments);
+      return new ProcessBuilder(command)
+          .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+          .redirectError(ProcessBuilder.Redirect.INHERIT)
+          .start();
+    }
+  }
+
+  public static final class PartitionStats {
+    private final int partition;
+    private final long start;
+    private final long end;
+    private final long bytesWritten;
+    private final long nanos;
+
+    PartitionStats(int partition, long start, long end, long bytesWritten, long nanos) {
+      this.partition = partition;
+      this.start = start;
+      this.end = end;
+      this.bytesWritten = bytesWritten;
+      this.nanos = nanos;
+    }
+
+    public int partition() {
+      return partition;
+    }
+
+    public long start() {
+      return start;
+    }
+
+    public long end() {
+      return end;
+    }
+
+    public long bytesRead() {
+      return end - start;
+    }
+
+    public long bytesWritten() {
+      return bytesWritten;
+    }
+
+    /** @return time from the start of workers to the end of this worker, including JVM startup */
+    public long elapsed(TimeUnit unit) {
+      return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+      double seconds = Math.max(nanos, 1) / 1e9;
+      return String.format(Locale.ENGLISH, "partition %d [%d, %d): %.1f MB read, %.1f MB/s",
+          partition, start, end, bytesRead() / 1e6, bytesRead() / 1e6 / seconds);
+    }
+  }
+}
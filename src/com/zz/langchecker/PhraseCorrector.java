@@ -0,0 +1,244 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+/**
+ * Corrects keyboard layout of a phrase into a caller-provided buffer, without heap allocation once its buffers
+ * have grown to the longest phrase.
+ * <p>
+ * The corrected phrase is the same as {@link TokenizerResponse#corrected()} of
+ * {@link LangSwitcherTokenizer#tokenize(String)}, but word tokens are not reported.
+ * The phrase is split, checked and switched in reusable char buffers of this instance; with the adaptive rule order
+ * ({@link LangSwitcherTokenizer#withRuleOrder(AdaptiveRuleOrder)}) periodic reordering of rules allocates.
+ * <p>
+ * Instances keep reusable buffers, so they are not thread-safe.
+ *
+ * @see LangSwitcherTokenizer#phraseCorrector()
+ */
+public final class PhraseCorrector {
+  /** Returned by {@code correct} if the phrase is correct or unknown, the output buffer is not changed. */
+  public static final int UNCHANGED = -1;
+
+  private final LangSwitcherTokenizer tokenizer;
+  private final Canonicalizer canonicalizer = new Canonicalizer();
+  private final Segmentation segmentation = new Segmentation();
+  private final CharType.Set charTypes = CharType.createSet();
+
+  private char[] input = new char[64];
+  private char[] switched = new char[64];
+  private char[] corrected = new char[64];
+  private int correctedLength;
+
+  PhraseCorrector(LangSwitcherTokenizer tokenizer) {
+    this.tokenizer = tokenizer;
+  }
+
+  /**
+   * @param output buffer for the corrected phrase, filled from {@code outputOffset} as far as it fits
+   * @return length of the corrected phrase, it is greater than the room in {@code output} if the phrase
+   *     is truncated, or {@link #UNCHANGED}
+   */
+  public int correct(String input, char[] output, int outputOffset) {
+    int length = input.length();
+    ensureCapacity(length);
+    input.getChars(0, length, this.input, 0);
+    return correct(length, output, outputOffset);
+  }
+
+  /**
+   * Same as {@link #correct(String, char[], int)} for {@code length} chars of {@code input} from {@code offset}.
+   */
+  public int correct(char[] input, int offset, int length, char[] output, int outputOffset) {
+    ensureCapacity(length);
+    System.arraycopy(input, offset, this.input, 0, length);
+    return correct(length, output, outputOffset);
+  }
+
+  private void ensureCapacity(int length) {
+    if (input.length < length) {
+      input = new char[Math.max(length, input.length * 2)];
+      switched = new char[input.length];
+    }
+  }
+
+  private int correct(int length, char[] output, int outputOffset) {
+    canonicalizer.canonicalize(input, 0, length);
+    char[] canonical = canonicalizer.chars();
+    correctedLength = 0;
+
+    int start = 0;
+    while (start < length) {
+      boolean isSeparator = Characters.isSeparator(canonical[start]);
+      boolean isDigit = Character.isDigit(canonical[start]);
+      charTypes.clear();
+      int end = start;
+      while (end < length
+          && Characters.isSeparator(canonical[end]) == isSeparator
+          && Character.isDigit(canonical[end]) == isDigit) {
+        charTypes.add(CharType.of(canonical[end]));
+        end++;
+      }
+      if (Characters.isUrlScheme(canonical, start, end, length) || Characters.isUrlHost(canonical, start, end)) {
+        append(canonical, start, end);
+      } else {
+        correctToken(canonical, start, end);
+      }
+      start = end;
+    }
+
+    if (isUnchanged(canonical, length)) {
+      return UNCHANGED;
+    }
+    canonicalizer.restore(input, 0, corrected, correctedLength, output, outputOffset);
+    return correctedLength;
+  }
+
+  /** Appends correction of the token split by separators and digits, see {@link LangSwitcherTokenizer#split}. */
+  private void correctToken(char[] canonical, int start, int end) {
+    if (charTypes.containsOnly(CharType.EN_OR_POSSIBLE_RU)) {
+      possiblySwitched(Lang.EN, canonical, start, end);
+    } else if (charTypes.containsOnlyFirstOrBoth(CharType.SEPARATOR_OR_POSSIBLE_RU, CharType.EN_OR_POSSIBLE_RU)) {
+      separatorOrPossibleEn(canonical, start, end);
+    } else if (charTypes.containsOnly(CharType.RU_OR_POSSIBLE_EN)) {
+      possiblySwitched(Lang.RU, canonical, start, end);
+    } else if (charTypes.containsOnlyFirstOrBoth(CharType.RU_OR_POSSIBLE_SEPARATOR, CharType.RU_OR_POSSIBLE_EN)) {
+      ruOrPossibleSeparator(canonical, start, end);
+    } else {
+      append(canonical, start, end);
+    }
+  }
+
+  private void possiblySwitched(Lang lang, char[] canonical, int start, int end) {
+    if (appendException(canonical, start, end)) {
+      return;
+    }
+    if (end - start >= tokenizer.minTokenLength && tokenizer.shouldSwitch(lang, canonical, start, end, switched)) {
+      append(switched, 0, end - start);
+    } else {
+      append(canonical, start, end);
+    }
+  }
+
+  private void separatorOrPossibleEn(char[] canonical, int start, int end) {
+    if (Characters.isAbbreviation(canonical, start, end)) {
+      append(canonical, start, end);
+      return;
+    }
+
+    Characters.switchLang(canonical, start, end, Lang.RU, switched, start);
+    if (tokenizer.isWord(Lang.RU, switched, start, end)) {
+      if (tokenizer.exceptions.find(canonical, start, end) < 0
+          && segmentation.splitIntoWords(tokenizer, canonical, switched, start, end)) {
+        appendSegments(canonical, start, end, canonical, switched);
+      } else {
+        appendWord(canonical, start, end, switched);
+      }
+    } else if (segmentation.segment(tokenizer, Lang.EN, canonical, switched, start, end)) {
+      appendSegments(canonical, start, end, canonical, switched);
+    } else {
+      // split by ambiguous chars, only exceptions are corrected
+      int tokenStart = start;
+      while (tokenStart < end) {
+        boolean isSeparator = Characters.isSeparatorOrPossibleRu(canonical[tokenStart]);
+        int tokenEnd = tokenStart + 1;
+        while (tokenEnd < end && Characters.isSeparatorOrPossibleRu(canonical[tokenEnd]) == isSeparator) {
+          tokenEnd++;
+        }
+        if (!appendException(canonical, tokenStart, tokenEnd)) {
+          append(canonical, tokenStart, tokenEnd);
+        }
+        tokenStart = tokenEnd;
+      }
+    }
+  }
+
+  private void ruOrPossibleSeparator(char[] canonical, int start, int end) {
+    if (!tokenizer.isWord(Lang.RU, canonical, start, end)) {
+      Characters.switchLang(canonical, start, end, Lang.EN, switched, start);
+      if (segmentation.segment(tokenizer, Lang.RU, switched, canonical, start, end)) {
+        appendSegments(canonical, start, end, switched, canonical);
+        return;
+      }
+    }
+    appendWord(canonical, start, end, canonical);
+  }
+
+  /**
+   * @param en token in English layout
+   * @param ru token in Russian layout
+   */
+  private void appendSegments(char[] canonical, int start, int end, char[] en, char[] ru) {
+    byte[] labels = segmentation.labels();
+    int segmentStart = start;
+    while (segmentStart < end) {
+      byte label = labels[segmentStart];
+      int segmentEnd = segmentStart + 1;
+      while (segmentEnd < end && labels[segmentEnd] == label) {
+        segmentEnd++;
+      }
+      appendWord(canonical, segmentStart, segmentEnd, label == Segmentation.RU ? ru : en);
+      segmentStart = segmentEnd;
+    }
+  }
+
+  /** Appends the exception value, canonical short word or the word from {@code word} at the same positions. */
+  private void appendWord(char[] canonical, int start, int end, char[] word) {
+    if (!appendException(canonical, start, end)) {
+      append(end - start < tokenizer.minTokenLength ? canonical : word, start, end);
+    }
+  }
+
+  private boolean appendException(char[] canonical, int start, int end) {
+    ExceptionDictionary exceptions = tokenizer.exceptions;
+    int exception = exceptions.find(canonical, start, end);
+    if (exception < 0) {
+      return false;
+    }
+    ensureCorrectedCapacity(exceptions.valueLength(exception));
+    exceptions.copyValue(exception, corrected, correctedLength);
+    correctedLength += exceptions.valueLength(exception);
+    return true;
+  }
+
+  private void append(char[] chars, int start, int end) {
+    ensureCorrectedCapacity(end - start);
+    System.arraycopy(chars, start, corrected, correctedLength, end - start);
+    correctedLength += end - start;
+  }
+
+  private void ensureCorrectedCapacity(int length) {
+    if (corrected.length < correctedLength + length) {
+      char[] grown = new char[Math.max(correctedLength + length, corrected.length * 2)];
+      System.arraycopy(corrected, 0, grown, 0, correctedLength);
+      corrected = grown;
+    }
+  }
+
+  private boolean isUnchanged(char[] canonical, int length) {
+    if (correctedLength != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (Canonicalizer.canonical(corrected[i]) != canonical[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Optional;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tokenizer with model loaded from directory, reloaded when files in the directory change.
+ * <p>
+ * New model is built on a background thread and published through a volatile reference, so
+ * {@link #tokenize(String)} is never blocked and each call runs entirely on one fully loaded model.
+ * If the new model can't be loaded the previous one stays in use.
+ *
+ * @see LangSwitcherTokenizer#load(Path, int)
+ */
+public final class ReloadingTokenizer implements Tokenizer, Closeable {
+  private static final Logger LOGGER = Logger.getLogger(ReloadingTokenizer.class.getName());
+
+  // changes are collected until directory is quiet for this time, editors write files in several steps
+  private static final long QUIET_PERIOD_MILLIS = 200;
+
+  private final Path directory;
+  private final int minTokenLength;
+  private final WatchService watchService;
+  private final Thread watcher;
+  private final Object reloadLock = new Object();
+
+  private volatile LangSwitcherTokenizer current;
+  private volatile Optional<Exception> lastFailure = Optional.absent();
+
+  private ReloadingTokenizer(Path directory, int minTokenLength) throws IOException {
+    this.directory = directory;
+    this.minTokenLength = minTokenLength;
+    this.current = LangSwitcherTokenizer.load(directory, minTokenLength);
+
+    this.watchService = FileSystems.getDefault().newWatchService();
+    directory.register(watchService,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY,
+        StandardWatchEventKinds.ENTRY_DELETE);
+
+    this.watcher = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        watch();
+      }
+    }, "langchecker-reloader-" + directory.getFileName());
+    this.watcher.setDaemon(true);
+  }
+
+  /**
+   * Loads model from {@code directory} and starts watching it.
+   *
+   * @throws IOException if directory can't be watched
+   * @throws RuntimeException if initial model can't be loaded
+   */
+  public static ReloadingTokenizer watch(Path directory, int minTokenLength) throws IOException {
+    ReloadingTokenizer tokenizer = new ReloadingTokenizer(directory, minTokenLength);
+    tokenizer.watcher.start();
+    return tokenizer;
+  }
+
+  @Override
+  public TokenizerResponse tokenize(String input) {
+    return current.tokenize(input);
+  }
+
+  /** @return tokenizer with the current model */
+  public LangSwitcherTokenizer current() {
+    return current;
+  }
+
+  /** @return failure of the last reload, absent if it succeeded */
+  public Optional<Exception> lastFailure() {
+    return lastFailure;
+  }
+
+  /**
+   * Loads model from directory on the calling thread and publishes it.
+   *
+   * @return true if new model is published, false if it can't be loaded, see {@link #lastFailure()}
+   */
+  public boolean reload() {
+    synchronized (reloadLock) {
+      try {
+        current = LangSwitcherTokenizer.load(directory, minTokenLength);
+        lastFailure = Optional.absent();
+        return true;
+      } catch (RuntimeException e) {
+        LOGGER.log(Level.WARNING, "Can't reload model from " + directory + ", previous model is kept", e);
+        lastFailure = Optional.<Exception>of(e);
+        return false;
+      }
+    }
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        do {
+          key.pollEvents();
+          if (!key.reset()) {
+            LOGGER.warning("Directory " + directory + " is not accessible, reloading is stopped");
+            return;
+          }
+        } while ((key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null);
+
+        reload();
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // closed
+    }
+  }
+
+  /** Stops watching the directory, current model stays in use. */
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+    watcher.interrupt();
+  }
+}
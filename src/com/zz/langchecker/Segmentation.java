@@ -0,0 +1,259 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.Arrays;
+
+/**
+ * Splits a token with ambiguous chars (separators in English layout, letters in Russian layout, like {@code ,} and
+ * {@code б}) into words and separators, switching only the words that are valid in the other language.
+ * <p>
+ * Every ambiguous char is either a separator or a Russian letter inside a word, apostrophe is a letter in both
+ * layouts. Dynamic programming goes over positions of ambiguous chars: a word spans at most
+ * {@link #MAX_AMBIGUOUS_IN_WORD} of them, so every char range is checked at most once per language and the cost
+ * is linear in the token length. Segmentation with fewer chars in unknown words wins, then with fewer words,
+ * then with fewer switched words.
+ * <p>
+ * A token typed in English layout which is a valid Russian word as a whole is split only at a dot after a vowel
+ * into long Russian words, see {@link #splitIntoWords}: n-grams accept most parts of a long word,
+ * like {@code револ} and {@code ционный} of {@code революционный}, but {@code ю} after a vowel is rare.
+ * <p>
+ * Instances keep reusable buffers, so they are not thread-safe.
+ * <p>
+ * Separators of a token typed in Russian layout are typed Russian letters, so such a token is split only into
+ * switched English words and must end with a word.
+ */
+final class Segmentation {
+  static final byte SEPARATOR = 0;
+  static final byte EN = 1;
+  static final byte RU = 2;
+
+  static final int MAX_AMBIGUOUS_IN_WORD = 3;
+  static final int MIN_SPLIT_WORD = 7;
+
+  private static final char APOSTROPHE = '\'';
+  private static final char DOT = '.';
+  private static final String RU_VOWELS = "аеиоуыэюяё";
+
+  private static final long UNREACHABLE = Long.MAX_VALUE;
+  // costs are added up to SATURATED instead of overflowing on millions of unknown chars, such a token is left as typed
+  private static final long SATURATED = UNREACHABLE - 1;
+  // cost is unknown chars * UNKNOWN_CHAR + words * WORD + switched words
+  private static final long UNKNOWN_CHAR = 1L << 40;
+  private static final long WORD = 1L << 20;
+  private static final long SWITCHED = 1;
+
+  // buffers reused by segment calls of this instance
+  private int[] ambiguous = new int[8];
+  private long[] afterSeparator = new long[8];
+  private long[] afterWord = new long[8];
+  private int[] wordStart = new int[8];
+  private byte[] wordLabel = new byte[8];
+  private boolean[] separatorAfterWord = new boolean[8];
+  private byte[] labels = new byte[32];
+
+  Segmentation() {
+  }
+
+  /**
+   * @param typed language of the keyboard layout the token is typed in
+   * @param en token in English layout, ambiguous chars are separators there
+   * @param ru the same token in Russian layout
+   * @return label ({@link #SEPARATOR}, {@link #EN} or {@link #RU}) of every char of the token,
+   *     null if no word is switched
+   */
+  static byte[] segment(LangSwitcherTokenizer tokenizer, Lang typed, char[] en, char[] ru) {
+    Segmentation segmentation = new Segmentation();
+    return segmentation.segment(tokenizer, typed, en, ru, 0, en.length)
+        ? Arrays.copyOf(segmentation.labels, en.length)
+        : null;
+  }
+
+  /**
+   * For a token typed in English layout which is a valid Russian word as a whole, like {@code событиеюсобытие}:
+   * splits it into Russian words of {@link #MIN_SPLIT_WORD} chars or more, separated by dots after vowels,
+   * like {@code событие.событие}.
+   *
+   * @return label of every char of the token, null if it isn't split so
+   */
+  static byte[] splitIntoWords(LangSwitcherTokenizer tokenizer, char[] en, char[] ru) {
+    Segmentation segmentation = new Segmentation();
+    return segmentation.splitIntoWords(tokenizer, en, ru, 0, en.length)
+        ? Arrays.copyOf(segmentation.labels, en.length)
+        : null;
+  }
+
+  /**
+   * Same as {@link #segment(LangSwitcherTokenizer, Lang, char[], char[])} for the token from {@code tokenStart}
+   * to {@code tokenEnd} of {@code en} and {@code ru}, without allocation once buffers have grown.
+   *
+   * @return true if some word is switched, labels of the chars are in {@link #labels()} at the same positions
+   */
+  boolean segment(LangSwitcherTokenizer tokenizer, Lang typed, char[] en, char[] ru, int tokenStart, int tokenEnd) {
+    return segment(tokenizer, typed, en, ru, tokenStart, tokenEnd, false);
+  }
+
+  /**
+   * Same as {@link #splitIntoWords(LangSwitcherTokenizer, char[], char[])} for the token from {@code tokenStart}
+   * to {@code tokenEnd}, without allocation once buffers have grown.
+   *
+   * @return true if the token is split, labels of the chars are in {@link #labels()} at the same positions
+   */
+  boolean splitIntoWords(LangSwitcherTokenizer tokenizer, char[] en, char[] ru, int tokenStart, int tokenEnd) {
+    return segment(tokenizer, Lang.EN, en, ru, tokenStart, tokenEnd, true);
+  }
+
+  /** @param split true to take only long Russian words and dots after vowels, see {@link #splitIntoWords} */
+  private boolean segment(
+      LangSwitcherTokenizer tokenizer,
+      Lang typed,
+      char[] en,
+      char[] ru,
+      int tokenStart,
+      int tokenEnd,
+      boolean split) {
+    int ambiguousCount = 0;
+    for (int i = tokenStart; i < tokenEnd; i++) {
+      if (isAmbiguous(en[i])) {
+        ambiguousCount++;
+      }
+    }
+    ensureCapacity(ambiguousCount + 1, tokenEnd);
+    for (int i = tokenStart, j = 0; i < tokenEnd; i++) {
+      if (isAmbiguous(en[i])) {
+        ambiguous[j++] = i;
+      }
+    }
+
+    // boundary b is after ambiguous char b - 1 (or at the start) and before ambiguous char b (or at the end),
+    // best costs of prefixes up to a boundary which end with a separator (or are empty) and which end with a word
+    int boundaries = ambiguousCount + 1;
+    Arrays.fill(afterSeparator, 0, boundaries, UNREACHABLE);
+    Arrays.fill(afterWord, 0, boundaries, UNREACHABLE);
+    afterSeparator[0] = 0;
+    byte typedLabel = typed == Lang.EN ? EN : RU;
+
+    for (int b = 0; b < boundaries; b++) {
+      int start = b == 0 ? tokenStart : ambiguous[b - 1] + 1;
+
+      int lastEnd = Math.min(boundaries, b + MAX_AMBIGUOUS_IN_WORD + 1);
+      for (int e = b; afterSeparator[b] != UNREACHABLE && e < lastEnd; e++) {
+        int end = e < ambiguousCount ? ambiguous[e] : tokenEnd;
+        if (end == start || split && (end - start < MIN_SPLIT_WORD || b == 0 && e == ambiguousCount)) {
+          continue;
+        }
+
+        long cost;
+        byte label;
+        // only a word without ambiguous chars can be English
+        if (e == b && !split && tokenizer.isWord(Lang.EN, en, start, end)) {
+          cost = WORD;
+          label = EN;
+        } else if (typed == Lang.EN && tokenizer.isWord(Lang.RU, ru, start, end)) {
+          cost = WORD;
+          label = RU;
+        } else if (typed == Lang.EN && !split) {
+          // unknown word is kept as typed
+          cost = add(WORD, end - start > SATURATED / UNKNOWN_CHAR ? SATURATED : UNKNOWN_CHAR * (end - start));
+          label = EN;
+        } else {
+          continue;
+        }
+        if (label != typedLabel) {
+          cost = add(cost, SWITCHED);
+        }
+
+        cost = add(cost, afterSeparator[b]);
+        if (cost < afterWord[e]) {
+          afterWord[e] = cost;
+          wordStart[e] = b;
+          wordLabel[e] = label;
+        }
+      }
+
+      if (b < ambiguousCount) {
+        // ambiguous char b is a separator after a word or after another separator
+        long afterPreviousSeparator = start == ambiguous[b] ? afterSeparator[b] : UNREACHABLE;
+        separatorAfterWord[b + 1] = afterWord[b] <= afterPreviousSeparator;
+        afterSeparator[b + 1] = split && !isDotAfterVowel(en, ru, ambiguous[b], start)
+            ? UNREACHABLE
+            : Math.min(afterWord[b], afterPreviousSeparator);
+      }
+    }
+
+    int last = ambiguousCount;
+    boolean endsWithSeparator = typed == Lang.EN && ambiguousCount > 0 && ambiguous[last - 1] == tokenEnd - 1;
+    boolean inWord = !endsWithSeparator || afterWord[last] <= afterSeparator[last];
+    long cost = inWord ? afterWord[last] : afterSeparator[last];
+    if (cost >= SATURATED || cost % WORD == 0 || split && cost < 2 * WORD) {
+      return false;
+    }
+
+    Arrays.fill(labels, tokenStart, tokenEnd, SEPARATOR);
+    int b = last;
+    while (b > 0 || inWord) {
+      if (inWord) {
+        int start = wordStart[b] == 0 ? tokenStart : ambiguous[wordStart[b] - 1] + 1;
+        int end = b < ambiguousCount ? ambiguous[b] : tokenEnd;
+        Arrays.fill(labels, start, end, wordLabel[b]);
+        b = wordStart[b];
+        inWord = false;
+      } else {
+        labels[ambiguous[b - 1]] = SEPARATOR;
+        inWord = separatorAfterWord[b];
+        b--;
+      }
+    }
+    return true;
+  }
+
+  /** @return labels of the last segmented token, valid from its start to its end */
+  byte[] labels() {
+    return labels;
+  }
+
+  private void ensureCapacity(int boundaries, int length) {
+    if (ambiguous.length < boundaries) {
+      int capacity = Math.max(boundaries, ambiguous.length * 2);
+      ambiguous = new int[capacity];
+      afterSeparator = new long[capacity];
+      afterWord = new long[capacity];
+      wordStart = new int[capacity];
+      wordLabel = new byte[capacity];
+      separatorAfterWord = new boolean[capacity];
+    }
+    if (labels.length < length) {
+      labels = new byte[Math.max(length, labels.length * 2)];
+    }
+  }
+
+  /** @return sum of non-negative costs, at most {@link #SATURATED} */
+  private static long add(long cost, long other) {
+    return cost >= SATURATED - other ? SATURATED : cost + other;
+  }
+
+  /** @param start start of the chars since the previous ambiguous char */
+  private static boolean isDotAfterVowel(char[] en, char[] ru, int position, int start) {
+    return en[position] == DOT && position > start && RU_VOWELS.indexOf(ru[position - 1]) >= 0;
+  }
+
+  private static boolean isAmbiguous(char ch) {
+    return ch != APOSTROPHE && Characters.isSeparatorOrPossibleRu(ch);
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the {@code capacity} slowest {@link LangSwitcherTokenizer#tokenize(String)} calls (of those not faster than
+ * a threshold) with timings of their stages, for offline analysis of tail latency. A burst of moderately slow calls
+ * doesn't push out rare outliers.
+ * <p>
+ * Entries are kept in a fixed array without locks. Once it is full, a call is admitted only if it is slower than
+ * the floor, the fastest kept call, so most calls are rejected by one volatile read. An admitted {@link Entry}
+ * replaces the fastest kept one by compare-and-set, and the floor only rises; concurrent writers retry instead of
+ * waiting for each other or for readers.
+ * <p>
+ * Instances are thread-safe and can be shared by tokenizers, see {@link LangSwitcherTokenizer#withSlowInputs}.
+ */
+public final class SlowInputs {
+  // floor of an array which is not full yet
+  private static final long NOT_FULL = -1;
+
+  private final long thresholdNanos;
+  private final AtomicReferenceArray<Entry> entries;
+  private final AtomicLong recorded = new AtomicLong();
+  // total time of the fastest kept entry, a lower bound as it is raised after replacement
+  private final AtomicLong floorNanos = new AtomicLong(NOT_FULL);
+
+  private SlowInputs(int capacity, long thresholdNanos) {
+    if (capacity < 1 || thresholdNanos < 0) {
+      throw new IllegalArgumentException("capacity should be positive and threshold should not be negative");
+    }
+    this.thresholdNanos = thresholdNanos;
+    this.entries = new AtomicReferenceArray<>(capacity);
+  }
+
+  /**
+   * @param capacity number of the slowest calls which are kept
+   * @param threshold calls which take at least {@code threshold} are recorded
+   */
+  public static SlowInputs create(int capacity, long threshold, TimeUnit unit) {
+    return new SlowInputs(capacity, unit.toNanos(threshold));
+  }
+
+  /** @return true if a call of {@code nanos} is recorded */
+  boolean isSlow(long nanos) {
+    return nanos >= thresholdNanos;
+  }
+
+  void record(Entry entry) {
+    recorded.incrementAndGet();
+    long nanos = entry.totalNanos();
+    while (nanos > floorNanos.get()) {
+      // empty slot or the fastest entry, kept entries are only replaced by slower ones
+      int slot = -1;
+      Entry fastest = null;
+      for (int i = 0; i < entries.length(); i++) {
+        Entry kept = entries.get(i);
+        if (kept == null) {
+          slot = i;
+          fastest = null;
+          break;
+        }
+        if (fastest == null || kept.totalNanos() < fastest.totalNanos()) {
+          slot = i;
+          fastest = kept;
+        }
+      }
+
+      if (fastest != null && nanos <= fastest.totalNanos()) {
+        raiseFloor();
+        return;
+      }
+      if (entries.compareAndSet(slot, fastest, entry)) {
+        raiseFloor();
+        return;
+      }
+    }
+  }
+
+  private void raiseFloor() {
+    long floor = Long.MAX_VALUE;
+    for (int i = 0; i < entries.length(); i++) {
+      Entry kept = entries.get(i);
+      if (kept == null) {
+        return;
+      }
+      floor = Math.min(floor, kept.totalNanos());
+    }
+    for (long current = floorNanos.get(); floor > current; current = floorNanos.get()) {
+      if (floorNanos.compareAndSet(current, floor)) {
+        return;
+      }
+    }
+  }
+
+  /** @return number of calls not faster than the threshold since creation, including the ones not kept */
+  public long recorded() {
+    return recorded.get();
+  }
+
+  /** @return kept calls, the slowest first; entries recorded concurrently with this call may be missing */
+  public List<Entry> entries() {
+    List<Entry> kept = Lists.newArrayListWithCapacity(entries.length());
+    for (int i = 0; i < entries.length(); i++) {
+      Entry entry = entries.get(i);
+      if (entry != null) {
+        kept.add(entry);
+      }
+    }
+    Collections.sort(kept, new Comparator<Entry>() {
+      @Override
+      public int compare(Entry first, Entry second) {
+        return Long.compare(second.totalNanos(), first.totalNanos());
+      }
+    });
+    return ImmutableList.copyOf(kept);
+  }
+
+  @Override
+  public String toString() {
+    return "SlowInputs{recorded=" + recorded() + ", capacity=" + entries.length() + "}";
+  }
+
+  public static final class Entry {
+    private final String input;
+    private final long canonicalizeNanos;
+    private final long splitNanos;
+    private final long responseNanos;
+    private final int checks;
+    private final boolean degraded;
+
+    Entry(String input, long canonicalizeNanos, long splitNanos, long responseNanos, int checks, boolean degraded) {
+      this.input = input;
+      this.canonicalizeNanos = canonicalizeNanos;
+      this.splitNanos = splitNanos;
+      this.responseNanos = responseNanos;
+      this.checks = checks;
+      this.degraded = degraded;
+    }
+
+    public String input() {
+      return input;
+    }
+
+    /** @return time of canonicalization of the input */
+    public long canonicalizeNanos() {
+      return canonicalizeNanos;
+    }
+
+    /** @return time of splitting into tokens and checking them */
+    public long splitNanos() {
+      return splitNanos;
+    }
+
+    /** @return time of joining the corrected phrase and building the response */
+    public long responseNanos() {
+      return responseNanos;
+    }
+
+    public long totalNanos() {
+      return canonicalizeNanos + splitNanos + responseNanos;
+    }
+
+    /** @return number of word checks of the call, see {@link WorkBudget} */
+    public int checks() {
+      return checks;
+    }
+
+    /** @return true if the call exceeded its {@link WorkBudget} */
+    public boolean degraded() {
+      return degraded;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ENGLISH, "%.1f us (canonicalize %.1f, split %.1f, response %.1f), %d checks%s: %s",
+          totalNanos() / 1e3, canonicalizeNanos / 1e3, splitNanos / 1e3, responseNanos / 1e3,
+          checks, degraded ? ", degraded" : "", input);
+    }
+  }
+}
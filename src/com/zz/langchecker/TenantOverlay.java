@@ -0,0 +1,159 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-tenant changes of a shared model: exceptions and nonexistent n-grams allowed or denied in addition to
+ * the model files. Overlays are applied by {@link LangSwitcherTokenizer#withOverlay(TenantOverlay)}, the base
+ * model is not copied, so memory of a tenant is proportional to the size of its overlay.
+ * <p>
+ * N-grams are identified by the model file they are allowed in or denied in, for example
+ * {@code denyNgram("nonexistent2gram-en.txt", "qx")}.
+ */
+public final class TenantOverlay {
+  static final ImmutableList<String> NGRAM_KINDS = ImmutableList.of(
+      "nonexistent2gram", "nonexistent3gram", "nonexistentFirst4gram", "nonexistent4gram");
+
+  private static final NgramSet EMPTY = NgramSet.of(Collections.<String>emptyList());
+
+  private final ExceptionDictionary exceptions;
+  // sets by model file name, only files with allowed or denied n-grams are present
+  private final Map<String, NgramSet> allowed;
+  private final Map<String, NgramSet> denied;
+
+  private TenantOverlay(ExceptionDictionary exceptions, Map<String, NgramSet> allowed, Map<String, NgramSet> denied) {
+    this.exceptions = exceptions;
+    this.allowed = allowed;
+    this.denied = denied;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  static String ngramFile(String kind, Lang lang) {
+    return kind + "-" + lang.name().toLowerCase(Locale.ENGLISH) + ".txt";
+  }
+
+  ExceptionDictionary exceptions() {
+    return exceptions;
+  }
+
+  boolean hasNgrams() {
+    return !allowed.isEmpty() || !denied.isEmpty();
+  }
+
+  /** @return n-grams which are removed from the model file {@code fileName} */
+  NgramSet allowed(String fileName) {
+    NgramSet ngrams = allowed.get(fileName);
+    return ngrams != null ? ngrams : EMPTY;
+  }
+
+  /** @return n-grams which are added to the model file {@code fileName} */
+  NgramSet denied(String fileName) {
+    NgramSet ngrams = denied.get(fileName);
+    return ngrams != null ? ngrams : EMPTY;
+  }
+
+  public static final class Builder {
+    private static final ImmutableSet<String> NGRAM_FILES;
+
+    static {
+      ImmutableSet.Builder<String> files = ImmutableSet.builder();
+      for (String kind : NGRAM_KINDS) {
+        for (Lang lang : Lang.values()) {
+          files.add(ngramFile(kind, lang));
+        }
+      }
+      NGRAM_FILES = files.build();
+    }
+
+    private final ExceptionDictionary.Builder exceptions = ExceptionDictionary.builder();
+    private final SetMultimap<String, String> allowed = LinkedHashMultimap.create();
+    private final SetMultimap<String, String> denied = LinkedHashMultimap.create();
+
+    private Builder() {
+    }
+
+    /**
+     * @param word word, which is matched case-insensitively as in {@code exceptions.csv}
+     * @param correction replacement of the word, overrides the exception of the model for the same word
+     */
+    public Builder putException(String word, String correction) {
+      exceptions.put(Canonicalizer.canonical(word.trim()), correction.trim());
+      return this;
+    }
+
+    /**
+     * @param fileName model file of the n-gram, for example {@code nonexistent3gram-ru.txt}
+     * @param ngram n-gram, which is not considered nonexistent even if it is in the model file
+     */
+    public Builder allowNgram(String fileName, String ngram) {
+      allowed.put(checkFile(fileName), checkNgram(ngram));
+      return this;
+    }
+
+    /**
+     * @param fileName model file of the n-gram, for example {@code nonexistent3gram-ru.txt}
+     * @param ngram n-gram, which is considered nonexistent in addition to n-grams of the model file
+     */
+    public Builder denyNgram(String fileName, String ngram) {
+      denied.put(checkFile(fileName), checkNgram(ngram));
+      return this;
+    }
+
+    private static String checkFile(String fileName) {
+      if (!NGRAM_FILES.contains(fileName)) {
+        throw new IllegalArgumentException("Unknown n-gram file: " + fileName);
+      }
+      return fileName;
+    }
+
+    private static String checkNgram(String ngram) {
+      String canonical = Canonicalizer.canonical(ngram.trim());
+      NgramSet.pack(canonical);
+      return canonical;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there are duplicate exceptions
+     */
+    public TenantOverlay build() {
+      return new TenantOverlay(exceptions.build(), ngramSets(allowed), ngramSets(denied));
+    }
+
+    private static Map<String, NgramSet> ngramSets(SetMultimap<String, String> ngrams) {
+      ImmutableMap.Builder<String, NgramSet> sets = ImmutableMap.builder();
+      for (Map.Entry<String, Collection<String>> file : ngrams.asMap().entrySet()) {
+        sets.put(file.getKey(), NgramSet.of(file.getValue()));
+      }
+      return sets.build();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+/**
+ * Corrects keyboard layout of a single term in its own char buffer, without allocating strings.
+ * <p>
+ * Only terms made of letters are corrected in place, which is the common case for terms split by
+ * whitespace. For other terms (separators, digits, exceptions) {@link Result#UNSUPPORTED} is returned
+ * and the term should be corrected by {@link Tokenizer#tokenize(String)}.
+ * <p>
+ * Instances keep reusable buffers, so they are not thread-safe.
+ *
+ * @see LangSwitcherTokenizer#termCorrector()
+ */
+public final class TermCorrector {
+  public enum Result {
+    /** Term is correct or unknown, it is left as is. */
+    UNCHANGED,
+    /** Term is switched to the other keyboard layout in place. */
+    CORRECTED,
+    /** Term can't be corrected in place, use {@link Tokenizer#tokenize(String)}. */
+    UNSUPPORTED
+  }
+
+  private final LangSwitcherTokenizer tokenizer;
+
+  private char[] canonical = new char[32];
+  private char[] switched = new char[32];
+
+  TermCorrector(LangSwitcherTokenizer tokenizer) {
+    this.tokenizer = tokenizer;
+  }
+
+  /**
+   * @param term buffer with the term
+   * @param offset start of the term in the buffer
+   * @param length length of the term
+   * @return {@link Result#CORRECTED} if chars of the term were replaced, length of the term is the same
+   */
+  public Result correct(char[] term, int offset, int length) {
+    if (length == 0) {
+      return Result.UNCHANGED;
+    }
+
+    if (canonical.length < length) {
+      canonical = new char[Math.max(length, canonical.length * 2)];
+      switched = new char[canonical.length];
+    }
+
+    boolean en = true;
+    boolean ru = true;
+    for (int i = 0; i < length; i++) {
+      char ch = term[offset + i];
+      // only ASCII and Cyrillic letters have simple case mapping, the rest is up to tokenizer
+      if (ch > 0x7f && (ch < 0x400 || ch > 0x4ff)) {
+        return Result.UNSUPPORTED;
+      }
+
+      char lowerCase = Canonicalizer.canonical(ch);
+      CharType charType = CharType.of(lowerCase);
+      en &= charType == CharType.EN_OR_POSSIBLE_RU;
+      ru &= charType == CharType.RU_OR_POSSIBLE_EN;
+      if (!en && !ru) {
+        return Result.UNSUPPORTED;
+      }
+
+      canonical[i] = lowerCase;
+    }
+
+    if (tokenizer.exceptions.find(canonical, 0, length) >= 0) {
+      return Result.UNSUPPORTED;
+    }
+
+    if (length < tokenizer.minTokenLength) {
+      return Result.UNCHANGED;
+    }
+
+    if (!tokenizer.shouldSwitch(en ? Lang.EN : Lang.RU, canonical, 0, length, switched)) {
+      return Result.UNCHANGED;
+    }
+
+    for (int i = 0; i < length; i++) {
+      term[offset + i] = Character.isUpperCase(term[offset + i])
+          ? Character.toUpperCase(switched[i])
+          : switched[i];
+    }
+    return Result.CORRECTED;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Corrects keyboard layout of the given phrases, or of stdin lines if there are none.
+ * <p>
+ * Usage: {@code TokenizerMain [--timing] [phrase...]}, with {@code --timing} the time to create the tokenizer
+ * and the time to the first {@link Tokenizer#tokenize(String)} (after main and after JVM start, n/a if there was
+ * nothing to tokenize) are reported to stderr.
+ * It is also the entry point of the native image, see {@code native} and {@code appcds} profiles in pom.xml.
+ */
+public final class TokenizerMain {
+  private TokenizerMain() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    long start = System.nanoTime();
+
+    List<String> phrases = Arrays.asList(args);
+    boolean timing = !phrases.isEmpty() && phrases.get(0).equals("--timing");
+    if (timing) {
+      phrases = phrases.subList(1, phrases.size());
+    }
+
+    Tokenizer tokenizer = LangSwitcherTokenizer.create();
+    long created = System.nanoTime();
+    // time and JVM uptime of the first tokenize, taken before the response is printed
+    long firstTokenized = 0;
+    long firstTokenizedUptime = 0;
+
+    if (phrases.isEmpty()) {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, Charsets.UTF_8));
+      for (String line; (line = reader.readLine()) != null; ) {
+        TokenizerResponse response = tokenizer.tokenize(line);
+        if (firstTokenized == 0) {
+          firstTokenized = System.nanoTime();
+          firstTokenizedUptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        }
+        System.out.println(response);
+      }
+    } else {
+      for (String phrase : phrases) {
+        TokenizerResponse response = tokenizer.tokenize(phrase);
+        if (firstTokenized == 0) {
+          firstTokenized = System.nanoTime();
+          firstTokenizedUptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        }
+        System.out.println(response);
+      }
+    }
+
+    if (timing) {
+      System.err.println(firstTokenized == 0
+          ? String.format(Locale.ENGLISH, "create: %.2f ms, first tokenize: n/a", (created - start) / 1e6)
+          : String.format(Locale.ENGLISH,
+              "create: %.2f ms, first tokenize: %.2f ms after main, %d ms after start",
+              (created - start) / 1e6,
+              (firstTokenized - start) / 1e6,
+              firstTokenizedUptime));
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Corrects keyboard layout of a phrase in UTF-8 bytes into UTF-8 bytes, without decoding it to a String
+ * and encoding the corrected String back.
+ * <p>
+ * The corrected bytes are the same as {@code tokenize(new String(input, UTF_8)).toString().getBytes(UTF_8)}.
+ * ASCII and 2-byte sequences (Cyrillic among them) are decoded in place into a reusable char buffer, which is
+ * corrected by {@link PhraseCorrector}; only corrected phrases are encoded. Input with longer or malformed
+ * sequences is decoded by the JDK, which replaces malformed sequences the same way as {@code new String}.
+ * <p>
+ * Instances keep reusable buffers, so they are not thread-safe.
+ *
+ * @see LangSwitcherTokenizer#utf8Corrector()
+ */
+public final class Utf8Corrector {
+  /** Returned by {@code correct} if the corrected phrase is the same as input bytes, output is not changed. */
+  public static final int UNCHANGED = -1;
+
+  private static final byte REPLACEMENT = '?';
+
+  private final PhraseCorrector phraseCorrector;
+
+  private byte[] input = new byte[64];
+  private char[] chars = new char[64];
+  private char[] corrected = new char[64];
+  private byte[] encoded = new byte[192];
+  private int encodedLength;
+
+  Utf8Corrector(LangSwitcherTokenizer tokenizer) {
+    this.phraseCorrector = tokenizer.phraseCorrector();
+  }
+
+  /**
+   * @param output buffer for the corrected phrase, filled from {@code outputOffset} as far as it fits
+   * @return length of the corrected phrase in bytes, it is greater than the room in {@code output} if the phrase
+   *     is truncated, or {@link #UNCHANGED}
+   */
+  public int correct(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+    if (!correct(input, offset, length)) {
+      return UNCHANGED;
+    }
+    System.arraycopy(encoded, 0, output, outputOffset, Math.min(encodedLength, output.length - outputOffset));
+    return encodedLength;
+  }
+
+  /**
+   * Writes the corrected phrase, or remaining bytes of {@code input} if it is unchanged, to {@code output}.
+   *
+   * @return number of bytes written, {@code input} is consumed
+   * @throws BufferOverflowException if there is not enough room in {@code output}, positions of both buffers
+   *     are not changed
+   */
+  public int correct(ByteBuffer input, ByteBuffer output) {
+    int length = input.remaining();
+    boolean changed;
+    if (input.hasArray()) {
+      changed = correct(input.array(), input.arrayOffset() + input.position(), length);
+    } else {
+      if (this.input.length < length) {
+        this.input = new byte[Math.max(length, this.input.length * 2)];
+      }
+      input.duplicate().get(this.input, 0, length);
+      changed = correct(this.input, 0, length);
+    }
+
+    if (!changed) {
+      if (output.remaining() < length) {
+        throw new BufferOverflowException();
+      }
+      output.put(input);
+      return length;
+    }
+    if (output.remaining() < encodedLength) {
+      throw new BufferOverflowException();
+    }
+    output.put(encoded, 0, encodedLength);
+    input.position(input.limit());
+    return encodedLength;
+  }
+
+  /** @return true if the corrected phrase differs from input, it is encoded in {@link #encoded} */
+  private boolean correct(byte[] input, int offset, int length) {
+    // a char is decoded from one or more bytes
+    if (chars.length < length) {
+      chars = new char[Math.max(length, chars.length * 2)];
+    }
+    int charLength = decode(input, offset, length, chars);
+    boolean decodedByJdk = charLength < 0;
+    if (decodedByJdk) {
+      String decoded = new String(input, offset, length, Charsets.UTF_8);
+      charLength = decoded.length();
+      decoded.getChars(0, charLength, chars, 0);
+    }
+
+    int correctedLength = phraseCorrector.correct(chars, 0, charLength, corrected, 0);
+    if (correctedLength > corrected.length) {
+      corrected = new char[Math.max(correctedLength, corrected.length * 2)];
+      phraseCorrector.correct(chars, 0, charLength, corrected, 0);
+    }
+
+    if (correctedLength == PhraseCorrector.UNCHANGED) {
+      if (!decodedByJdk) {
+        return false;
+      }
+      // malformed input is changed by replacement
+      encode(chars, charLength);
+      return !equals(encoded, encodedLength, input, offset, length);
+    }
+    encode(corrected, correctedLength);
+    return true;
+  }
+
+  /**
+   * Decodes ASCII and 2-byte sequences.
+   *
+   * @return number of decoded chars, or -1 if there are other or malformed sequences
+   */
+  static int decode(byte[] input, int offset, int length, char[] chars) {
+    int end = offset + length;
+    int charLength = 0;
+    for (int i = offset; i < end; i++) {
+      int b = input[i];
+      if (b >= 0) {
+        chars[charLength++] = (char) b;
+      } else if (b >= (byte) 0xC2 && b <= (byte) 0xDF && i + 1 < end && (input[i + 1] & 0xC0) == 0x80) {
+        // lead byte without overlong forms, 0xD0 and 0xD1 lead Cyrillic letters
+        chars[charLength++] = (char) ((b & 0x1F) << 6 | input[++i] & 0x3F);
+      } else {
+        return -1;
+      }
+    }
+    return charLength;
+  }
+
+  /** Encodes chars into {@link #encoded}, unpaired surrogates are replaced by {@code ?} as by String. */
+  private void encode(char[] chars, int length) {
+    if (encoded.length < length * 3) {
+      encoded = new byte[Math.max(length * 3, encoded.length * 2)];
+    }
+    byte[] bytes = encoded;
+    int n = 0;
+    for (int i = 0; i < length; i++) {
+      char ch = chars[i];
+      if (ch < 0x80) {
+        bytes[n++] = (byte) ch;
+      } else if (ch < 0x800) {
+        bytes[n++] = (byte) (0xC0 | ch >> 6);
+        bytes[n++] = (byte) (0x80 | ch & 0x3F);
+      } else if (!Character.isSurrogate(ch)) {
+        bytes[n++] = (byte) (0xE0 | ch >> 12);
+        bytes[n++] = (byte) (0x80 | ch >> 6 & 0x3F);
+        bytes[n++] = (byte) (0x80 | ch & 0x3F);
+      } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(chars[i + 1])) {
+        int codePoint = Character.toCodePoint(ch, chars[++i]);
+        bytes[n++] = (byte) (0xF0 | codePoint >> 18);
+        bytes[n++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        bytes[n++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        bytes[n++] = (byte) (0x80 | codePoint & 0x3F);
+      } else {
+        bytes[n++] = REPLACEMENT;
+      }
+    }
+    encodedLength = n;
+  }
+
+  private static boolean equals(byte[] a, int length, byte[] b, int offset, int bLength) {
+    if (length != bLength) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (a[i] != b[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
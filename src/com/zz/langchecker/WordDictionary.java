@@ -0,0 +1,270 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable set of known words stored as minimal acyclic automaton (DAWG): words share prefixes and suffixes,
+ * so lookup is one traversal and memory grows much slower than number of words.
+ * <p>
+ * Automaton is built from sorted words by incremental minimization (Daciuk et al.) and frozen into arrays:
+ * arcs of every state are sorted by label and looked up by binary search.
+ */
+final class WordDictionary {
+  private static final WordDictionary EMPTY = new WordDictionary(new int[] {0, 0}, new boolean[1], new char[0], new int[0]);
+
+  // arcs of state s are [firstArcs[s], firstArcs[s + 1]), state 0 is the root
+  private final int[] firstArcs;
+  private final boolean[] finals;
+  private final char[] labels;
+  private final int[] targets;
+
+  private WordDictionary(int[] firstArcs, boolean[] finals, char[] labels, int[] targets) {
+    this.firstArcs = firstArcs;
+    this.finals = finals;
+    this.labels = labels;
+    this.targets = targets;
+  }
+
+  static WordDictionary of() {
+    return EMPTY;
+  }
+
+  static WordDictionary of(Iterable<String> words) {
+    List<String> sorted = Lists.newArrayList();
+    for (String word : words) {
+      if (!word.isEmpty()) {
+        sorted.add(word);
+      }
+    }
+    if (sorted.isEmpty()) {
+      return EMPTY;
+    }
+    Collections.sort(sorted);
+
+    Builder builder = new Builder();
+    String previous = null;
+    for (String word : sorted) {
+      if (!word.equals(previous)) {
+        builder.add(word);
+        previous = word;
+      }
+    }
+    return builder.build();
+  }
+
+  boolean isEmpty() {
+    return labels.length == 0;
+  }
+
+  boolean contains(String word) {
+    int state = 0;
+    for (int i = 0; i < word.length() && state >= 0; i++) {
+      state = next(state, word.charAt(i));
+    }
+    return state >= 0 && finals[state];
+  }
+
+  boolean contains(char[] chars, int start, int end) {
+    int state = 0;
+    for (int i = start; i < end && state >= 0; i++) {
+      state = next(state, chars[i]);
+    }
+    return state >= 0 && finals[state];
+  }
+
+  /** @return true if contains the word in chars, switched to {@code destinationLang} keyboard layout */
+  boolean containsSwitched(char[] chars, int start, int end, Lang destinationLang) {
+    int state = 0;
+    for (int i = start; i < end && state >= 0; i++) {
+      state = next(state, Characters.switchLang(chars[i], destinationLang));
+    }
+    return state >= 0 && finals[state];
+  }
+
+  int stateCount() {
+    return finals.length;
+  }
+
+  int arcCount() {
+    return labels.length;
+  }
+
+  /** @return approximate heap size of the dictionary in bytes */
+  long sizeInBytes() {
+    // array header is 16 bytes
+    return 4L * firstArcs.length + finals.length + 2L * labels.length + 4L * targets.length + 4 * 16;
+  }
+
+  private int next(int state, char label) {
+    int low = firstArcs[state];
+    int high = firstArcs[state + 1] - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      char current = labels[middle];
+      if (current < label) {
+        low = middle + 1;
+      } else if (current > label) {
+        high = middle - 1;
+      } else {
+        return targets[middle];
+      }
+    }
+    return -1;
+  }
+
+  private static final class Builder {
+    private final State root = new State();
+    private final Map<State, State> register = Maps.newHashMap();
+
+    void add(String word) {
+      State state = root;
+      int prefix = 0;
+      while (prefix < word.length() && state.lastLabel() == word.charAt(prefix)) {
+        state = state.lastChild();
+        prefix++;
+      }
+
+      if (state.size > 0) {
+        replaceOrRegister(state);
+      }
+
+      for (int i = prefix; i < word.length(); i++) {
+        State child = new State();
+        state.add(word.charAt(i), child);
+        state = child;
+      }
+      state.isFinal = true;
+    }
+
+    WordDictionary build() {
+      if (root.size > 0) {
+        replaceOrRegister(root);
+      }
+
+      Map<State, Integer> numbers = Maps.newIdentityHashMap();
+      List<State> states = Lists.newArrayList();
+      numbers.put(root, 0);
+      states.add(root);
+      int arcs = 0;
+      for (int i = 0; i < states.size(); i++) {
+        State state = states.get(i);
+        arcs += state.size;
+        for (int j = 0; j < state.size; j++) {
+          if (!numbers.containsKey(state.children[j])) {
+            numbers.put(state.children[j], states.size());
+            states.add(state.children[j]);
+          }
+        }
+      }
+
+      int[] firstArcs = new int[states.size() + 1];
+      boolean[] finals = new boolean[states.size()];
+      char[] labels = new char[arcs];
+      int[] targets = new int[arcs];
+      int arc = 0;
+      for (int i = 0; i < states.size(); i++) {
+        State state = states.get(i);
+        firstArcs[i] = arc;
+        finals[i] = state.isFinal;
+        for (int j = 0; j < state.size; j++, arc++) {
+          // words are added in sorted order, so labels of every state are sorted
+          labels[arc] = state.labels[j];
+          targets[arc] = numbers.get(state.children[j]);
+        }
+      }
+      firstArcs[states.size()] = arc;
+
+      return new WordDictionary(firstArcs, finals, labels, targets);
+    }
+
+    private void replaceOrRegister(State state) {
+      State child = state.lastChild();
+      if (child.size > 0) {
+        replaceOrRegister(child);
+      }
+
+      State registered = register.get(child);
+      if (registered != null) {
+        state.children[state.size - 1] = registered;
+      } else {
+        register.put(child, child);
+      }
+    }
+  }
+
+  /** State of automaton under construction, equal states have the same arcs to the same (registered) states. */
+  private static final class State {
+    boolean isFinal;
+    char[] labels = new char[2];
+    State[] children = new State[2];
+    int size;
+
+    void add(char label, State child) {
+      if (size == labels.length) {
+        labels = Arrays.copyOf(labels, size * 2);
+        children = Arrays.copyOf(children, size * 2);
+      }
+      labels[size] = label;
+      children[size] = child;
+      size++;
+    }
+
+    char lastLabel() {
+      // no label is (char) -1 in words
+      return size > 0 ? labels[size - 1] : Character.MAX_VALUE;
+    }
+
+    State lastChild() {
+      return children[size - 1];
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof State)) {
+        return false;
+      }
+      State other = (State) obj;
+      if (isFinal != other.isFinal || size != other.size) {
+        return false;
+      }
+      for (int i = 0; i < size; i++) {
+        if (labels[i] != other.labels[i] || children[i] != other.children[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = isFinal ? 1 : 0;
+      for (int i = 0; i < size; i++) {
+        hash = 31 * (31 * hash + labels[i]) + System.identityHashCode(children[i]);
+      }
+      return hash;
+    }
+  }
+}
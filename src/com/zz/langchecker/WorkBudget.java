@@ -0,0 +1,72 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of word checks (n-gram checks and lookups of known words) of one
+ * {@link LangSwitcherTokenizer#tokenize(String)} call.
+ * <p>
+ * The budget is checked before each word check, also inside of a long token which is segmented into words
+ * (see {@link Segmentation}): once the call has made {@code maxChecks} checks and needs one more, the token being
+ * split and the rest of the tokens are left as typed, without exceptions and without switching, and the call is
+ * counted as degraded. The result is degraded the same way for the same input.
+ * <p>
+ * Only {@link LangSwitcherTokenizer#tokenize(String)} (and {@link BatchDeduplicator}) apply the budget, correctors,
+ * {@link LayoutDetector} and {@link ParallelTokenizer} reject tokenizers with a budget.
+ * <p>
+ * Instances are thread-safe and can be shared by tokenizers, see {@link LangSwitcherTokenizer#withWorkBudget}.
+ */
+public final class WorkBudget {
+  private final int maxChecks;
+  private final AtomicLong degradedCalls = new AtomicLong();
+
+  private WorkBudget(int maxChecks) {
+    if (maxChecks < 0) {
+      throw new IllegalArgumentException("maxChecks should not be negative");
+    }
+    this.maxChecks = maxChecks;
+  }
+
+  /**
+   * @param maxChecks number of checks of a call after which the rest of its tokens are left as typed
+   */
+  public static WorkBudget of(int maxChecks) {
+    return new WorkBudget(maxChecks);
+  }
+
+  public int maxChecks() {
+    return maxChecks;
+  }
+
+  /** @return number of calls which exceeded the budget and returned degraded result */
+  public long degradedCalls() {
+    return degradedCalls.get();
+  }
+
+  void degraded() {
+    degradedCalls.incrementAndGet();
+  }
+
+  @Override
+  public String toString() {
+    return "WorkBudget{maxChecks=" + maxChecks + ", degradedCalls=" + degradedCalls + "}";
+  }
+}
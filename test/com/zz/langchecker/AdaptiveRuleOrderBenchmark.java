@@ -0,0 +1,84 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LangChecker} and tokenizer throughput with the fixed and the adaptive order of rules
+ * over the bundled vocabularies and their switched copies.
+ */
+public class AdaptiveRuleOrderBenchmark {
+  private static final int PASSES = 5;
+
+  public static void main(String[] args) {
+    List<String> words = Lists.newArrayList();
+    for (String word : Vocabulary.wordsEn()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.RU));
+    }
+    for (String word : Vocabulary.wordsRu()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.EN));
+    }
+
+    AdaptiveRuleOrder ruleOrder = AdaptiveRuleOrder.create();
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    LangSwitcherTokenizer adaptive = tokenizer.withRuleOrder(ruleOrder);
+
+    for (int i = 0; i < PASSES; i++) {
+      System.out.println("checker, fixed:      " + check(tokenizer.langChecker, words));
+      System.out.println("checker, adaptive:   " + check(adaptive.langChecker, words));
+      System.out.println("tokenizer, fixed:    " + tokenize(tokenizer, words));
+      System.out.println("tokenizer, adaptive: " + tokenize(adaptive, words));
+    }
+    System.out.print(ruleOrder);
+  }
+
+  private static String check(LangChecker checker, List<String> words) {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    int accepted = 0;
+    for (String word : words) {
+      char[] chars = word.toLowerCase(Locale.ROOT).toCharArray();
+      for (Lang lang : Lang.values()) {
+        if (checker.check(lang, chars, 0, chars.length)) {
+          accepted++;
+        }
+      }
+    }
+    long nanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+    return String.format("%.0f checks/s, accepted %d", words.size() * 2e9 / nanos, accepted);
+  }
+
+  private static String tokenize(Tokenizer tokenizer, List<String> words) {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    int corrected = 0;
+    for (String word : words) {
+      if (tokenizer.tokenize(word).corrected().isPresent()) {
+        corrected++;
+      }
+    }
+    long nanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+    return String.format("%.0f words/s, corrected %d", words.size() * 1e9 / nanos, corrected);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class AdaptiveRuleOrderTest {
+  private final LangChecker fixed = LangChecker.create();
+
+  @Test
+  public void hasSameVerdictAsFixedOrder() {
+    AdaptiveRuleOrder ruleOrder = AdaptiveRuleOrder.create(1, 1000);
+    LangChecker adaptive = fixed.withRuleOrder(ruleOrder);
+
+    for (Lang lang : Lang.values()) {
+      List<String> words = lang == Lang.EN ? Vocabulary.wordsEn() : Vocabulary.wordsRu();
+      for (String word : words) {
+        String switched = Characters.switchLang(word, lang.other());
+        check(adaptive.check(lang, word) == fixed.check(lang, word));
+        check(adaptive.check(lang.other(), switched) == fixed.check(lang.other(), switched));
+      }
+      check(ruleOrder.reorderings(lang.name()) > 0);
+    }
+  }
+
+  @Test
+  public void rulesThatRejectGoFirst() {
+    AdaptiveRuleOrder ruleOrder = AdaptiveRuleOrder.create(1, 10);
+    LangChecker adaptive = fixed.withRuleOrder(ruleOrder);
+
+    check(ruleOrder.order("en")).isOf((Object[]) CheckerRule.values());
+    for (int i = 0; i < 100; i++) {
+      // rejected by 2-grams only
+      check(!adaptive.check(Lang.EN, "qzxa"));
+    }
+
+    List<CheckerRule> order = ruleOrder.order("en");
+    check(ImmutableSet.copyOf(order.subList(0, 2))).is(ImmutableSet.of(CheckerRule.EDGE_2GRAM, CheckerRule.INNER_2GRAM));
+    check(order.subList(2, order.size())).isOf(
+        CheckerRule.NO_VOWEL,
+        CheckerRule.CONSONANT_6GRAM,
+        CheckerRule.FIRST_4GRAM,
+        CheckerRule.VOWEL_3GRAM,
+        CheckerRule.CONSONANT_4GRAM);
+    check(ruleOrder.order("ru")).isOf((Object[]) CheckerRule.values());
+
+    AdaptiveRuleOrder.RuleStatistics statistics = ruleOrder.statistics("en").get(0);
+    check(statistics.rejected()).is(statistics.evaluated());
+    check(statistics.evaluated() > 0);
+  }
+}
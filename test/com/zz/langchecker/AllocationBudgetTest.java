@@ -0,0 +1,181 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.junit.Test;
+
+/**
+ * Checks that hot paths don't allocate after warmup: bytes allocated by the current thread are measured
+ * around many calls, so that the allocation of the measurement itself is below the budget per call.
+ */
+public class AllocationBudgetTest {
+  private static final int WARMUP_ROUNDS = 20000;
+  private static final int ROUNDS = 20000;
+  private static final double BUDGET_BYTES_PER_CALL = 0.1;
+
+  private static final String[] PHRASES = {
+      "Hello руддщ, ghbdtn мир 24 gjxnf.ru!",
+      "ПРИВЕТ Vbh",
+      "k.,jdm b lheu;,f",
+      "T.G.I. friday",
+      "цщкв 2014 ,bkmzhl",
+      "xcvn"
+  };
+
+  private final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+  @Test
+  public void langCheckerDoesNotAllocate() {
+    final LangChecker langChecker = tokenizer.langChecker;
+    final char[][] words = {"hello".toCharArray(), "ghbdtn".toCharArray(), "привет".toCharArray(), "руддщ".toCharArray()};
+    checkBudget("LangChecker.check", new Calls() {
+      int accepted;
+
+      @Override
+      public int run() {
+        for (char[] word : words) {
+          if (langChecker.check(Lang.EN, word, 0, word.length)) {
+            accepted++;
+          }
+          if (langChecker.check(Lang.RU, word, 0, word.length)) {
+            accepted++;
+          }
+        }
+        return 2 * words.length;
+      }
+    });
+  }
+
+  @Test
+  public void switchLangDoesNotAllocate() {
+    final char[] chars = "ghbdtn, руддщ".toCharArray();
+    final char[] switched = new char[chars.length];
+    checkBudget("Characters.switchLang", new Calls() {
+      @Override
+      public int run() {
+        Characters.switchLang(chars, 0, chars.length, Lang.RU, switched, 0);
+        Characters.switchLang(switched, 0, switched.length, Lang.EN, chars, 0);
+        return 2;
+      }
+    });
+  }
+
+  @Test
+  public void charTypeDoesNotAllocate() {
+    final char[] chars = "a,б1 ж'z".toCharArray();
+    final CharType.Set charTypes = CharType.createSet();
+    checkBudget("CharType.of", new Calls() {
+      @Override
+      public int run() {
+        charTypes.clear();
+        for (char ch : chars) {
+          charTypes.add(CharType.of(ch));
+        }
+        return chars.length;
+      }
+    });
+  }
+
+  @Test
+  public void phraseCorrectorDoesNotAllocate() {
+    final PhraseCorrector corrector = tokenizer.phraseCorrector();
+    final char[] output = new char[128];
+    checkBudget("PhraseCorrector.correct", new Calls() {
+      @Override
+      public int run() {
+        for (String phrase : PHRASES) {
+          corrector.correct(phrase, output, 0);
+        }
+        return PHRASES.length;
+      }
+    });
+  }
+
+  @Test
+  public void utf8CorrectorDoesNotAllocate() {
+    final Utf8Corrector corrector = tokenizer.utf8Corrector();
+    final byte[][] phrases = new byte[PHRASES.length][];
+    for (int i = 0; i < PHRASES.length; i++) {
+      phrases[i] = PHRASES[i].getBytes(Charsets.UTF_8);
+    }
+    final byte[] output = new byte[256];
+    checkBudget("Utf8Corrector.correct", new Calls() {
+      @Override
+      public int run() {
+        for (byte[] phrase : phrases) {
+          corrector.correct(phrase, 0, phrase.length, output, 0);
+        }
+        return phrases.length;
+      }
+    });
+  }
+
+  @Test
+  public void termCorrectorDoesNotAllocate() {
+    final TermCorrector corrector = tokenizer.termCorrector();
+    final char[] term = "Ghbdtn".toCharArray();
+    checkBudget("TermCorrector.correct", new Calls() {
+      @Override
+      public int run() {
+        // corrects the term back and forth
+        corrector.correct(term, 0, term.length);
+        return 1;
+      }
+    });
+  }
+
+  private static void checkBudget(String name, Calls calls) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      calls.run();
+    }
+
+    long before = allocatedBytes();
+    if (before < 0) {
+      // allocation is not measured by this JVM
+      return;
+    }
+    long count = 0;
+    for (int i = 0; i < ROUNDS; i++) {
+      count += calls.run();
+    }
+    long allocated = allocatedBytes() - before;
+
+    double bytesPerCall = (double) allocated / count;
+    if (bytesPerCall > BUDGET_BYTES_PER_CALL) {
+      throw new AssertionError(String.format("%s allocates %.2f bytes per call, budget is %.2f",
+          name, bytesPerCall, BUDGET_BYTES_PER_CALL));
+    }
+  }
+
+  private static long allocatedBytes() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+
+  private interface Calls {
+    /** @return number of calls made */
+    int run();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link BatchDeduplicator} against a {@code tokenize} loop on batches of queries drawn with
+ * Zipf distribution from vocabulary words in both layouts, a fifth of queries in title case.
+ */
+public class BatchDeduplicatorBenchmark {
+  private static final int QUERIES = 1 << 18;
+  private static final int BATCH_SIZE = 256;
+  private static final int PASSES = 5;
+
+  public static void main(String[] args) {
+    List<String> words = Lists.newArrayList();
+    for (String word : Vocabulary.wordsEn()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.RU));
+    }
+
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    for (double exponent : new double[] {0, 0.8, 1.2}) {
+      List<String> queries = queries(words, exponent, new Random(42));
+      for (int pass = 0; pass < PASSES; pass++) {
+        System.out.println(String.format(Locale.ENGLISH, "zipf %.1f: tokenize %8.0f queries/s, %s",
+            exponent, tokenize(tokenizer, queries), deduplicate(tokenizer, queries)));
+      }
+    }
+  }
+
+  private static double tokenize(LangSwitcherTokenizer tokenizer, List<String> queries) {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    for (String query : queries) {
+      tokenizer.tokenize(query);
+    }
+    return rate(queries.size(), stopwatch);
+  }
+
+  private static String deduplicate(LangSwitcherTokenizer tokenizer, List<String> queries) {
+    BatchDeduplicator deduplicator = tokenizer.batchDeduplicator();
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    long distinct = 0;
+    for (int start = 0; start < queries.size(); start += BATCH_SIZE) {
+      deduplicator.tokenize(queries.subList(start, Math.min(start + BATCH_SIZE, queries.size())));
+      distinct += deduplicator.lastDistinct();
+    }
+    return String.format(Locale.ENGLISH, "deduplicated %8.0f queries/s, dedup %.1f%%",
+        rate(queries.size(), stopwatch), 100 - distinct * 100.0 / queries.size());
+  }
+
+  private static double rate(int queries, Stopwatch stopwatch) {
+    return queries * 1e9 / stopwatch.elapsed(TimeUnit.NANOSECONDS);
+  }
+
+  /** @param exponent of Zipf distribution, 0 for uniform */
+  private static List<String> queries(List<String> words, double exponent, Random random) {
+    double[] cumulative = new double[words.size()];
+    double sum = 0;
+    for (int i = 0; i < cumulative.length; i++) {
+      sum += 1 / Math.pow(i + 1, exponent);
+      cumulative[i] = sum;
+    }
+
+    List<String> queries = Lists.newArrayListWithCapacity(QUERIES);
+    for (int i = 0; i < QUERIES; i++) {
+      int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+      String word = words.get(Math.min(rank < 0 ? -rank - 1 : rank, words.size() - 1));
+      queries.add(random.nextInt(5) == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+    }
+    return queries;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class BatchDeduplicatorTest {
+  private final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+  @Test
+  public void respondsAsTokenize() {
+    List<String> inputs = ImmutableList.of(
+        "ghbdtn vbh", "Ghbdtn VBH", "ghbdtn vbh", "GHBDTN vbh", "hello", "", "ghbdtn ’vbh", "ghbdtn 'vbh", "HELLO");
+    List<TokenizerResponse> responses = tokenizer.batchDeduplicator().tokenize(inputs);
+
+    check(responses.size()).is(inputs.size());
+    for (int i = 0; i < inputs.size(); i++) {
+      TokenizerResponse expected = tokenizer.tokenize(inputs.get(i));
+      check(responses.get(i)).hasToString(expected.toString());
+      check(responses.get(i).original()).is(inputs.get(i));
+      check(responses.get(i).corrected()).is(expected.corrected());
+      check(responses.get(i).tokens()).is(expected.tokens());
+    }
+    check(responses.get(1)).hasToString("Привет МИР");
+    // equal inputs share the response
+    check(responses.get(2) == responses.get(0));
+  }
+
+  @Test
+  public void reportsDedupRatio() {
+    BatchDeduplicator deduplicator = tokenizer.batchDeduplicator();
+
+    deduplicator.tokenize(ImmutableList.of("ghbdtn", "Ghbdtn", "GHBDTN", "vbh"));
+    check(deduplicator.lastBatchSize()).is(4);
+    check(deduplicator.lastDistinct()).is(2);
+    check(deduplicator.lastDedupRatio()).is(0.5);
+
+    deduplicator.tokenize(ImmutableList.of("ghbdtn", "vbh"));
+    check(deduplicator.lastDistinct()).is(2);
+    check(deduplicator.lastDedupRatio()).is(0.0);
+
+    deduplicator.tokenize(ImmutableList.<String>of());
+    check(deduplicator.lastDedupRatio()).is(0.0);
+  }
+
+  @Test
+  public void growsTable() {
+    BatchDeduplicator deduplicator = tokenizer.batchDeduplicator();
+    ImmutableList.Builder<String> inputs = ImmutableList.builder();
+    for (int i = 0; i < 1000; i++) {
+      inputs.add("ghbdtn " + (i % 300));
+    }
+
+    List<TokenizerResponse> responses = deduplicator.tokenize(inputs.build());
+    check(deduplicator.lastDistinct()).is(300);
+    check(responses.get(999)).hasToString("привет 99");
+  }
+}
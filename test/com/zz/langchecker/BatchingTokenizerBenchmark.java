@@ -0,0 +1,102 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link BatchingTokenizer} with different windows against direct calls,
+ * with 8 request threads and up to 64 calls in flight per thread.
+ */
+public class BatchingTokenizerBenchmark {
+  private static final int THREADS = 8;
+  private static final int IN_FLIGHT = 64;
+  private static final int PASSES = 3;
+
+  public static void main(String[] args) throws Exception {
+    final List<String> words = Lists.newArrayList();
+    for (String word : Vocabulary.wordsEn()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.RU));
+    }
+
+    final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    for (int pass = 0; pass < PASSES; pass++) {
+      System.out.println("direct:          " + run(words, new Caller() {
+        @Override
+        public ListenableFuture<TokenizerResponse> call(String input) {
+          return Futures.immediateFuture(tokenizer.tokenize(input));
+        }
+      }));
+
+      for (int batchSize : new int[] {1, 16, 256}) {
+        try (final BatchingTokenizer batching = BatchingTokenizer.start(tokenizer, batchSize, 1, TimeUnit.MILLISECONDS)) {
+          String result = run(words, new Caller() {
+            @Override
+            public ListenableFuture<TokenizerResponse> call(String input) {
+              return batching.submit(input);
+            }
+          });
+          System.out.println(String.format("batch size %3d:  %s, %s", batchSize, result, batching.stats()));
+        }
+      }
+    }
+  }
+
+  private static String run(final List<String> words, final Caller caller) throws InterruptedException {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    List<Thread> threads = Lists.newArrayList();
+    for (int t = 0; t < THREADS; t++) {
+      final int offset = t;
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          Queue<ListenableFuture<TokenizerResponse>> inFlight = Queues.newArrayDeque();
+          for (int i = offset; i < words.size(); i += THREADS) {
+            if (inFlight.size() == IN_FLIGHT) {
+              Futures.getUnchecked(inFlight.remove());
+            }
+            inFlight.add(caller.call(words.get(i)));
+          }
+          while (!inFlight.isEmpty()) {
+            Futures.getUnchecked(inFlight.remove());
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long nanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+    return String.format("%.0f words/s", words.size() * 1e9 / nanos);
+  }
+
+  private interface Caller {
+    ListenableFuture<TokenizerResponse> call(String input);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class BatchingTokenizerTest {
+  private final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+  @Test
+  public void closesBatchWhenFull() throws Exception {
+    try (BatchingTokenizer batching = BatchingTokenizer.start(tokenizer, 4, 10, TimeUnit.SECONDS)) {
+      List<String> inputs = Lists.newArrayList(
+          "ghbdtn", "vbh", "руддщ", "цщкв", "hello", "мир", "rfr ltkf", "ckjdj");
+      List<ListenableFuture<TokenizerResponse>> responses = Lists.newArrayList();
+      for (String input : inputs) {
+        responses.add(batching.submit(input));
+      }
+
+      for (int i = 0; i < inputs.size(); i++) {
+        check(responses.get(i).get(5, TimeUnit.SECONDS)).hasToString(tokenizer.tokenize(inputs.get(i)).toString());
+      }
+
+      BatchingTokenizer.Stats stats = batching.stats();
+      check(stats.calls()).is(8L);
+      check(stats.batches()).is(2L);
+      check(stats.maxBatchSize()).is(4);
+    }
+  }
+
+  @Test
+  public void deduplicatesBatch() throws Exception {
+    try (BatchingTokenizer batching = BatchingTokenizer.startDeduplicating(tokenizer, 4, 10, TimeUnit.SECONDS)) {
+      List<ListenableFuture<TokenizerResponse>> responses = Lists.newArrayList();
+      for (String input : new String[] {"ghbdtn", "Ghbdtn", "ghbdtn", "vbh"}) {
+        responses.add(batching.submit(input));
+      }
+
+      check(responses.get(0).get(5, TimeUnit.SECONDS)).hasToString("привет");
+      check(responses.get(1).get(5, TimeUnit.SECONDS)).hasToString("Привет");
+      check(responses.get(2).get(5, TimeUnit.SECONDS)).hasToString("привет");
+      check(responses.get(3).get(5, TimeUnit.SECONDS)).hasToString("мир");
+
+      BatchingTokenizer.Stats stats = batching.stats();
+      check(stats.calls()).is(4L);
+      check(stats.distinctCalls()).is(2L);
+      check(stats.dedupRatio()).is(0.5);
+    }
+  }
+
+  @Test
+  public void closesBatchAfterDelay() throws Exception {
+    try (BatchingTokenizer batching = BatchingTokenizer.start(tokenizer, 100, 20, TimeUnit.MILLISECONDS)) {
+      check(batching.submit("ghbdtn").get(5, TimeUnit.SECONDS)).hasToString("привет");
+
+      BatchingTokenizer.Stats stats = batching.stats();
+      check(stats.batches()).is(1L);
+      check(stats.maxQueueDelay(TimeUnit.MILLISECONDS) >= 20);
+    }
+  }
+
+  @Test
+  public void failsOnlyFailedCalls() throws Exception {
+    Tokenizer failing = new Tokenizer() {
+      @Override
+      public TokenizerResponse tokenize(String input) {
+        if (input.isEmpty()) {
+          throw new IllegalArgumentException("empty");
+        }
+        return tokenizer.tokenize(input);
+      }
+    };
+
+    try (BatchingTokenizer batching = BatchingTokenizer.start(failing, 2, 10, TimeUnit.SECONDS)) {
+      ListenableFuture<TokenizerResponse> failed = batching.submit("");
+      ListenableFuture<TokenizerResponse> response = batching.submit("ghbdtn");
+
+      check(response.get(5, TimeUnit.SECONDS)).hasToString("привет");
+      try {
+        failed.get(5, TimeUnit.SECONDS);
+        check(false);
+      } catch (ExecutionException e) {
+        check(e.getCause() instanceof IllegalArgumentException);
+      }
+    }
+  }
+
+  @Test
+  public void failsCallsWithErrorsWithoutStopping() throws Exception {
+    Tokenizer failing = new Tokenizer() {
+      @Override
+      public TokenizerResponse tokenize(String input) {
+        if (input.isEmpty()) {
+          throw new StackOverflowError();
+        }
+        return tokenizer.tokenize(input);
+      }
+    };
+
+    try (BatchingTokenizer batching = BatchingTokenizer.start(failing, 1, 0, TimeUnit.SECONDS)) {
+      try {
+        batching.submit("").get(5, TimeUnit.SECONDS);
+        check(false);
+      } catch (ExecutionException e) {
+        check(e.getCause() instanceof StackOverflowError);
+      }
+      check(batching.submit("ghbdtn").get(5, TimeUnit.SECONDS)).hasToString("привет");
+    }
+  }
+
+  @Test
+  public void rejectsCallsAfterClose() throws Exception {
+    BatchingTokenizer batching = BatchingTokenizer.start(tokenizer, 100, 10, TimeUnit.SECONDS);
+    ListenableFuture<TokenizerResponse> pending = batching.submit("ghbdtn");
+    batching.close();
+
+    check(pending.isCancelled());
+    try {
+      batching.submit("ghbdtn").get();
+      check(false);
+    } catch (ExecutionException e) {
+      check(e.getCause() instanceof RejectedExecutionException);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class BulkCorrectorTest {
+  private static final String INPUT = "hello word руддщ цщкв\n"
+      + "примет мир ghbdtn vbh\r\n"
+      + "\n"
+      + "beautiful lesson\n"
+      + "<>HJ ,bkmzhl";
+
+  @Test
+  public void correctsLinesInOrder() throws IOException {
+    // small blocks to get several blocks and lines longer than block
+    check(correct(INPUT, 8, false)).is("hello word hello word\n"
+        + "примет мир привет мир\r\n"
+        + "\n"
+        + "beautiful lesson\n"
+        + "БЮРО бильярд");
+  }
+
+  @Test
+  public void writesOnlyChangedLines() throws IOException {
+    check(correct(INPUT, BulkCorrector.DEFAULT_BLOCK_SIZE, true)).is("hello word hello word\n"
+        + "примет мир привет мир\r\n"
+        + "БЮРО бильярд\n");
+  }
+
+  private static String correct(String input, int blockSize, boolean changedOnly) throws IOException {
+    Path in = Files.createTempFile("bulk-corrector", ".in");
+    Path out = Files.createTempFile("bulk-corrector", ".out");
+    try {
+      Files.write(in, input.getBytes(Charsets.UTF_8));
+
+      BulkCorrector.Stats stats = new BulkCorrector(LangSwitcherTokenizer.create(), 3, blockSize, changedOnly)
+          .correct(in, out, null);
+
+      check(stats.lines()).is(5L);
+      check(stats.changedLines()).is(3L);
+      return new String(Files.readAllBytes(out), Charsets.UTF_8);
+    } finally {
+      Files.delete(in);
+      Files.delete(out);
+    }
+  }
+}
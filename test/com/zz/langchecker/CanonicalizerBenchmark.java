@@ -0,0 +1,96 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Canonicalizer} against the previous path: {@code String.replace}, {@code String.toLowerCase()} and
+ * upper case positions by {@code Character.isUpperCase}, over capitalized phrases of 8 vocabulary words.
+ */
+public class CanonicalizerBenchmark {
+  private static final int PHRASES = 100000;
+  private static final int PASSES = 5;
+
+  public static void main(String[] args) {
+    List<String> words = Lists.newArrayList();
+    words.addAll(Vocabulary.wordsEn());
+    words.addAll(Vocabulary.wordsRu());
+
+    Random random = new Random(42);
+    List<String> phrases = Lists.newArrayList();
+    for (int i = 0; i < PHRASES; i++) {
+      List<String> phrase = Lists.newArrayList();
+      for (int j = 0; j < 8; j++) {
+        String word = words.get(random.nextInt(words.size()));
+        phrase.add(random.nextInt(4) == 0 && !word.isEmpty()
+            ? Character.toUpperCase(word.charAt(0)) + word.substring(1)
+            : word);
+      }
+      phrases.add(Joiner.on(' ').join(phrase));
+    }
+
+    Canonicalizer canonicalizer = new Canonicalizer();
+    for (int pass = 0; pass < PASSES; pass++) {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      long checksum = 0;
+      for (String phrase : phrases) {
+        List<Integer> uppercasePositions = uppercasePositions(phrase);
+        String canonical = phrase.replace('`', '\'').toLowerCase();
+        checksum += uppercasePositions.size() + canonical.length();
+      }
+      System.out.println("replace + toLowerCase: " + throughput(stopwatch) + ", " + checksum);
+
+      stopwatch = Stopwatch.createStarted();
+      checksum = 0;
+      for (String phrase : phrases) {
+        canonicalizer.canonicalize(phrase);
+        int uppercase = 0;
+        for (int i = 0; i < canonicalizer.length(); i++) {
+          if (canonicalizer.isUpperCase(i)) {
+            uppercase++;
+          }
+        }
+        checksum += uppercase + canonicalizer.canonical().length();
+      }
+      System.out.println("Canonicalizer:         " + throughput(stopwatch) + ", " + checksum);
+    }
+  }
+
+  private static List<Integer> uppercasePositions(String str) {
+    List<Integer> uppercasePositions = Lists.newArrayListWithCapacity(str.length());
+    for (int i = 0; i < str.length(); i++) {
+      char ch = str.charAt(i);
+      if (Character.isUpperCase(ch) || Characters.isPossibleRuInUppercase(ch)) {
+        uppercasePositions.add(i);
+      }
+    }
+    return ImmutableList.copyOf(uppercasePositions);
+  }
+
+  private static String throughput(Stopwatch stopwatch) {
+    return String.format("%.0f phrases/s", PHRASES * 1e9 / stopwatch.elapsed(TimeUnit.NANOSECONDS));
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.Locale;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class CanonicalizerTest {
+  private final Canonicalizer canonicalizer = new Canonicalizer();
+
+  @Test
+  public void canonicalizesLettersAndLookAlikes() {
+    check(Canonicalizer.canonical("HeLLo ПрИвЕт ЁЛКА")).is("hello привет ёлка");
+    check(Canonicalizer.canonical("don`t don’t donʼt")).is("don't don't don't");
+    check(Canonicalizer.canonical("a\u00A0b\u202Fc")).is("a b c");
+    check(Canonicalizer.canonical("Ｇｈｂｄｔｎ！")).is("ghbdtn!");
+    check(Canonicalizer.canonical("İÉ")).is("ié");
+  }
+
+  @Test
+  public void doesNotDependOnDefaultLocale() {
+    Locale locale = Locale.getDefault();
+    try {
+      Locale.setDefault(new Locale("tr"));
+      check(Canonicalizer.canonical("TITLE")).is("title");
+    } finally {
+      Locale.setDefault(locale);
+    }
+  }
+
+  @Test
+  public void marksUpperCase() {
+    canonicalizer.canonicalize("GhБд<Ａ");
+    check(canonicalizer.canonical()).is("ghбд<a");
+    check(canonicalizer.isUpperCase(0));
+    check(!canonicalizer.isUpperCase(1));
+    check(canonicalizer.isUpperCase(2));
+    check(!canonicalizer.isUpperCase(3));
+    check(canonicalizer.isUpperCase(4));
+    check(canonicalizer.isUpperCase(5));
+
+    StringBuilder longInput = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      longInput.append(i % 3 == 0 ? 'A' : 'b');
+    }
+    canonicalizer.canonicalize(longInput.toString());
+    for (int i = 0; i < 200; i++) {
+      check(canonicalizer.isUpperCase(i) == (i % 3 == 0));
+    }
+    canonicalizer.canonicalize("abc");
+    check(!canonicalizer.isUpperCase(0));
+  }
+
+  @Test
+  public void restoresUpperCaseAndUnchangedChars() {
+    canonicalizer.canonicalize("Ghbdtn VBH don`t");
+    check(canonicalizer.restore("Ghbdtn VBH don`t", "привет мир don't")).is("Привет МИР don`t");
+  }
+
+  @Test
+  public void tokenizerKeepsLookAlikesOfInput() {
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    check(tokenizer.tokenize("Ghbdtn vbh")).hasToString("Привет мир");
+    check(tokenizer.tokenize("ｇｈｂｄｔｎ")).hasToString("привет");
+    check(tokenizer.tokenize("ghbdtn\u00A0vbh")).hasToString("привет\u00A0мир");
+    check(tokenizer.tokenize("ghbdtn vbh").corrected()).isPresent();
+    check(tokenizer.tokenize("привет мир").corrected()).isAbsent();
+  }
+}
@@ -0,0 +1,347 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+
+/**
+ * Reproducible accuracy and performance evaluation over the bundled vocabularies.
+ * <p>
+ * For every {@link Lang} the vocabulary and its switched copy are run through {@link LangChecker} and
+ * {@link LangSwitcherTokenizer}. Metrics are named {@code <subject>.<lang>.<metric>}, for example
+ * {@code tokenizer.en.positive}, and are checked against {@code <name>.min} and {@code <name>.max}
+ * thresholds from {@code evaluation.properties}. Memory of the model from {@link ModelFootprint} is reported as
+ * {@code model.<lang>.heap} and {@code model.all.heap}, {@code model.all.offHeap} in bytes.
+ * <p>
+ * Usage: {@code Evaluation [report.json] [thresholds.properties]}, exits with status 1 on regression.
+ */
+public final class Evaluation {
+  private static final String THRESHOLDS = "evaluation.properties";
+
+  private static final int PASSES = 3;
+
+  private Evaluation() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    Properties thresholds = args.length > 1
+        ? loadThresholds(new File(args[1]))
+        : defaultThresholds();
+
+    Report report = run(true);
+    List<String> violations = report.violations(thresholds);
+
+    String json = report.toJson(violations);
+    if (args.length > 0) {
+      Files.write(json, new File(args[0]), Charsets.UTF_8);
+    }
+    System.out.println(json);
+
+    if (!violations.isEmpty()) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * @param measurePerformance if false only accuracy metrics are collected
+   */
+  static Report run(boolean measurePerformance) {
+    Report report = new Report();
+    LangChecker langChecker = LangChecker.create();
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+    for (Lang lang : Lang.values()) {
+      List<String> original = nonEmpty(vocabulary(lang));
+      List<String> switched = ImmutableList.copyOf(
+          Lists.transform(original, Characters.switchLangFunction(lang.other())));
+
+      evaluate(report, "checker", lang, new CheckerSubject(langChecker, lang), original, switched, measurePerformance);
+      evaluate(report, "tokenizer", lang, new TokenizerSubject(tokenizer), original, switched, measurePerformance);
+    }
+
+    ModelFootprint footprint = tokenizer.footprint();
+    for (Lang lang : Lang.values()) {
+      String language = lang.name().toLowerCase(Locale.ENGLISH);
+      report.put("model." + language + ".heap", footprint.heapBytes(language));
+    }
+    report.put("model.all.heap", footprint.heapBytes());
+    report.put("model.all.offHeap", footprint.directBytes());
+
+    return report;
+  }
+
+  private static void evaluate(
+      Report report,
+      String subjectName,
+      Lang lang,
+      Subject subject,
+      List<String> original,
+      List<String> switched,
+      boolean measurePerformance) {
+    String prefix = subjectName + "." + lang.name().toLowerCase(Locale.ENGLISH) + ".";
+
+    int positive = 0;
+    for (String word : original) {
+      if (subject.accepts(word, false)) {
+        positive++;
+      }
+    }
+
+    int negative = 0;
+    for (String word : switched) {
+      if (!subject.accepts(word, true)) {
+        negative++;
+      }
+    }
+
+    report.put(prefix + "positive", percent(positive, original.size()));
+    report.put(prefix + "falseNegative", percent(original.size() - positive, original.size()));
+    report.put(prefix + "negative", percent(negative, switched.size()));
+    report.put(prefix + "falsePositive", percent(switched.size() - negative, switched.size()));
+
+    if (measurePerformance) {
+      List<String> words = ImmutableList.<String>builder().addAll(original).addAll(switched).build();
+      measureThroughput(report, prefix, subject, words);
+      measureLatency(report, prefix, subject, words);
+    }
+  }
+
+  private static void measureThroughput(Report report, String prefix, Subject subject, List<String> words) {
+    // warm up
+    runAll(subject, words);
+
+    long bestNanos = Long.MAX_VALUE;
+    long allocatedBytes = Long.MAX_VALUE;
+    for (int pass = 0; pass < PASSES; pass++) {
+      long allocatedBefore = allocatedBytes();
+      long start = System.nanoTime();
+      runAll(subject, words);
+      long nanos = System.nanoTime() - start;
+      long allocatedAfter = allocatedBytes();
+
+      bestNanos = Math.min(bestNanos, nanos);
+      if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+        allocatedBytes = Math.min(allocatedBytes, allocatedAfter - allocatedBefore);
+      }
+    }
+
+    report.put(prefix + "throughput", words.size() * 1e9 / bestNanos);
+    if (allocatedBytes != Long.MAX_VALUE) {
+      report.put(prefix + "allocation", (double) allocatedBytes / words.size());
+    }
+  }
+
+  private static void measureLatency(Report report, String prefix, Subject subject, List<String> words) {
+    long[] latencies = new long[words.size()];
+    for (int i = 0; i < latencies.length; i++) {
+      String word = words.get(i);
+      long start = System.nanoTime();
+      subject.accepts(word, false);
+      latencies[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(latencies);
+
+    report.put(prefix + "latency.p50", latencies[(int) (latencies.length * 0.50)]);
+    report.put(prefix + "latency.p99", latencies[(int) (latencies.length * 0.99)]);
+  }
+
+  private static int runAll(Subject subject, List<String> words) {
+    int accepted = 0;
+    for (String word : words) {
+      if (subject.accepts(word, false)) {
+        accepted++;
+      }
+    }
+    return accepted;
+  }
+
+  private static long allocatedBytes() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+
+  private static double percent(int amount, int total) {
+    return total == 0 ? 0 : amount * 100.0 / total;
+  }
+
+  private static List<String> vocabulary(Lang lang) {
+    switch (lang) {
+    case RU:
+      return Vocabulary.wordsRu();
+    case EN:
+      return Vocabulary.wordsEn();
+    default:
+      throw new IllegalArgumentException();
+    }
+  }
+
+  private static List<String> nonEmpty(List<String> words) {
+    ImmutableList.Builder<String> builder = ImmutableList.builder();
+    for (String word : words) {
+      if (!word.isEmpty()) {
+        builder.add(word);
+      }
+    }
+    return builder.build();
+  }
+
+  static Properties defaultThresholds() {
+    try {
+      Properties properties = new Properties();
+      properties.load(Resources.asCharSource(Evaluation.class.getResource(THRESHOLDS), Charsets.UTF_8).openStream());
+      return properties;
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /**
+   * @return thresholds of metrics collected by {@code run(false)}, without throughput, allocation and latency
+   */
+  static Properties accuracyThresholds(Properties thresholds) {
+    Properties accuracy = new Properties();
+    for (String key : thresholds.stringPropertyNames()) {
+      if (!key.contains(".throughput.") && !key.contains(".allocation.") && !key.contains(".latency.")) {
+        accuracy.setProperty(key, thresholds.getProperty(key));
+      }
+    }
+    return accuracy;
+  }
+
+  private static Properties loadThresholds(File file) throws IOException {
+    Properties properties = new Properties();
+    properties.load(Files.newReader(file, Charsets.UTF_8));
+    return properties;
+  }
+
+  private interface Subject {
+    /**
+     * @param switched true if the word is typed in wrong keyboard layout
+     * @return true if the word is recognized as correct
+     */
+    boolean accepts(String word, boolean switched);
+  }
+
+  private static final class CheckerSubject implements Subject {
+    private final LangChecker langChecker;
+    private final Lang lang;
+
+    CheckerSubject(LangChecker langChecker, Lang lang) {
+      this.langChecker = langChecker;
+      this.lang = lang;
+    }
+
+    @Override
+    public boolean accepts(String word, boolean switched) {
+      return langChecker.check(switched ? lang.other() : lang, word);
+    }
+  }
+
+  private static final class TokenizerSubject implements Subject {
+    private final Tokenizer tokenizer;
+
+    TokenizerSubject(Tokenizer tokenizer) {
+      this.tokenizer = tokenizer;
+    }
+
+    @Override
+    public boolean accepts(String word, boolean switched) {
+      return !tokenizer.tokenize(word).corrected().isPresent();
+    }
+  }
+
+  static final class Report {
+    private final SortedMap<String, Double> metrics = Maps.newTreeMap();
+
+    void put(String name, double value) {
+      metrics.put(name, value);
+    }
+
+    Map<String, Double> metrics() {
+      return metrics;
+    }
+
+    /**
+     * @return descriptions of metrics that are out of the given thresholds or missing from the report, empty if
+     *     there is no regression
+     */
+    List<String> violations(Properties thresholds) {
+      List<String> violations = Lists.newArrayList();
+      for (String key : ImmutableSortedSet.copyOf(thresholds.stringPropertyNames())) {
+        boolean min = key.endsWith(".min");
+        if (!min && !key.endsWith(".max")) {
+          continue;
+        }
+
+        String name = key.substring(0, key.length() - 4);
+        Double value = metrics.get(name);
+        if (value == null) {
+          violations.add(String.format(Locale.ENGLISH, "%s is missing, expected %s %s",
+              name, min ? ">=" : "<=", thresholds.getProperty(key)));
+          continue;
+        }
+
+        double threshold = Double.parseDouble(thresholds.getProperty(key));
+        if (min ? value < threshold : value > threshold) {
+          violations.add(String.format(Locale.ENGLISH, "%s=%.4f, expected %s %s",
+              name, value, min ? ">=" : "<=", thresholds.getProperty(key)));
+        }
+      }
+      return violations;
+    }
+
+    String toJson(List<String> violations) {
+      StringBuilder json = new StringBuilder("{\n  \"metrics\": {");
+      String separator = "\n";
+      for (Map.Entry<String, Double> metric : metrics.entrySet()) {
+        json.append(separator)
+            .append("    \"").append(metric.getKey()).append("\": ")
+            .append(String.format(Locale.ENGLISH, "%.4f", metric.getValue()));
+        separator = ",\n";
+      }
+      json.append("\n  },\n  \"violations\": [");
+      separator = "\n";
+      for (String violation : violations) {
+        json.append(separator).append("    \"").append(violation).append("\"");
+        separator = ",\n";
+      }
+      return json.append(violations.isEmpty() ? "]\n}" : "\n  ]\n}").toString();
+    }
+  }
+}
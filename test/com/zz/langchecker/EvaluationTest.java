@@ -0,0 +1,50 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.Properties;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class EvaluationTest {
+  @Test
+  public void accuracyDoesNotRegress() {
+    Evaluation.Report report = Evaluation.run(false);
+
+    check(report.violations(Evaluation.accuracyThresholds(Evaluation.defaultThresholds()))).isEmpty();
+    // performance is not measured, so its thresholds can't be met
+    check(!report.violations(Evaluation.defaultThresholds()).isEmpty());
+  }
+
+  @Test
+  public void reportsViolatedThresholds() {
+    Evaluation.Report report = new Evaluation.Report();
+    report.put("tokenizer.en.positive", 90);
+    report.put("tokenizer.en.latency.p99", 100);
+
+    Properties thresholds = new Properties();
+    thresholds.setProperty("tokenizer.en.positive.min", "99");
+    thresholds.setProperty("tokenizer.en.latency.p99.max", "200");
+    thresholds.setProperty("tokenizer.ru.positive.min", "99");
+
+    check(report.violations(thresholds)).isOf(
+        "tokenizer.en.positive=90.0000, expected >= 99",
+        "tokenizer.ru.positive is missing, expected >= 99");
+  }
+}
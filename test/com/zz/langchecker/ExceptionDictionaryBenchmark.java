@@ -0,0 +1,114 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap footprint and lookup cost of {@link ExceptionDictionary} against {@link ImmutableMap}
+ * with 1M exceptions. Lookups take a char range, so the map needs a substring per lookup.
+ */
+public class ExceptionDictionaryBenchmark {
+  private static final int ENTRIES = 1000000;
+  private static final int LOOKUPS = 10000000;
+
+  public static void main(String[] args) {
+    Random random = new Random(42);
+    Set<String> keys = Sets.newHashSetWithExpectedSize(ENTRIES);
+    while (keys.size() < ENTRIES) {
+      keys.add(ExceptionDictionaryTest.randomWord(random));
+    }
+    String[] keyArray = keys.toArray(new String[ENTRIES]);
+    String[] valueArray = new String[ENTRIES];
+    for (int i = 0; i < ENTRIES; i++) {
+      valueArray[i] = ExceptionDictionaryTest.randomWord(random);
+    }
+    keys = null;
+
+    // half of lookups are misses
+    char[][] probes = new char[1024][];
+    for (int i = 0; i < probes.length; i++) {
+      probes[i] = ("--" + (i % 2 == 0 ? keyArray[random.nextInt(ENTRIES)] : ExceptionDictionaryTest.randomWord(random)))
+          .toCharArray();
+    }
+
+    long before = usedMemory();
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    ImmutableMap.Builder<String, String> mapBuilder = ImmutableMap.builder();
+    for (int i = 0; i < ENTRIES; i++) {
+      mapBuilder.put(new String(keyArray[i]), new String(valueArray[i]));
+    }
+    ImmutableMap<String, String> map = mapBuilder.build();
+    System.out.println("ImmutableMap: built in " + stopwatch.stop() + ", heap " + (usedMemory() - before) / 1024 + " KB");
+
+    before = usedMemory();
+    stopwatch = Stopwatch.createStarted();
+    ExceptionDictionary.Builder dictionaryBuilder = ExceptionDictionary.builder();
+    for (int i = 0; i < ENTRIES; i++) {
+      dictionaryBuilder.put(keyArray[i], valueArray[i]);
+    }
+    ExceptionDictionary dictionary = dictionaryBuilder.build();
+    dictionaryBuilder = null;
+    System.out.println("ExceptionDictionary: built in " + stopwatch.stop() + ", heap " + (usedMemory() - before) / 1024
+        + " KB, estimated " + dictionary.sizeInBytes() / 1024 + " KB");
+
+    for (int i = 0; i < 5; i++) {
+      System.out.println("ImmutableMap:        " + lookupMap(map, probes));
+      System.out.println("ExceptionDictionary: " + lookupDictionary(dictionary, probes));
+    }
+  }
+
+  private static String lookupMap(ImmutableMap<String, String> map, char[][] probes) {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    int found = 0;
+    for (int i = 0; i < LOOKUPS; i++) {
+      char[] probe = probes[i & (probes.length - 1)];
+      if (map.get(new String(probe, 2, probe.length - 2)) != null) {
+        found++;
+      }
+    }
+    return stopwatch.elapsed(TimeUnit.NANOSECONDS) / LOOKUPS + " ns/lookup, found " + found;
+  }
+
+  private static String lookupDictionary(ExceptionDictionary dictionary, char[][] probes) {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    int found = 0;
+    for (int i = 0; i < LOOKUPS; i++) {
+      char[] probe = probes[i & (probes.length - 1)];
+      if (dictionary.find(probe, 2, probe.length) >= 0) {
+        found++;
+      }
+    }
+    return stopwatch.elapsed(TimeUnit.NANOSECONDS) / LOOKUPS + " ns/lookup, found " + found;
+  }
+
+  private static long usedMemory() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.Maps;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class ExceptionDictionaryTest {
+  @Test
+  public void emptyHasNoKeys() {
+    check(ExceptionDictionary.of().find("c")).is(-1);
+    check(ExceptionDictionary.builder().build().find("c".toCharArray(), 0, 1)).is(-1);
+  }
+
+  @Test
+  public void findsKeysInCharRanges() {
+    ExceptionDictionary dictionary = ExceptionDictionary.builder()
+        .put("c", "с")
+        .put("еру", "the")
+        .put("wtynh", "центр")
+        .put("", "empty")
+        .build();
+
+    char[] chars = "--wtynh--".toCharArray();
+    int slot = dictionary.find(chars, 2, 7);
+    check(dictionary.value(slot)).is("центр");
+    check(dictionary.key(slot)).is("wtynh");
+    check(dictionary.find(chars, 2, 6)).is(-1);
+    check(dictionary.find(chars, 0, 0)).is(dictionary.find(""));
+
+    char[] value = new char[dictionary.valueLength(dictionary.find("еру"))];
+    dictionary.copyValue(dictionary.find("еру"), value, 0);
+    check(new String(value)).is("the");
+  }
+
+  @Test
+  public void overridesBaseEntries() {
+    ExceptionDictionary base = ExceptionDictionary.builder()
+        .put("c", "с")
+        .put("еру", "the")
+        .build();
+    ExceptionDictionary dictionary = ExceptionDictionary.builder()
+        .put("еру", "еру")
+        .put("wtynh", "центр")
+        .build()
+        .overriding(base);
+
+    check(dictionary.size()).is(4);
+    check(dictionary.value(dictionary.find("еру"))).is("еру");
+    check(dictionary.value(dictionary.find("wtynh".toCharArray(), 0, 5))).is("центр");
+    int slot = dictionary.find("c".toCharArray(), 0, 1);
+    check(dictionary.key(slot)).is("c");
+    check(dictionary.value(slot)).is("с");
+    char[] value = new char[dictionary.valueLength(slot)];
+    dictionary.copyValue(slot, value, 0);
+    check(new String(value)).is("с");
+    check(dictionary.find("b")).is(-1);
+    check(base.value(base.find("еру"))).is("the");
+  }
+
+  @Test
+  public void findsAllOfManyKeys() {
+    Random random = new Random(42);
+    Map<String, String> entries = Maps.newHashMap();
+    ExceptionDictionary.Builder builder = ExceptionDictionary.builder();
+    while (entries.size() < 100000) {
+      String key = randomWord(random);
+      if (!entries.containsKey(key)) {
+        String value = randomWord(random);
+        entries.put(key, value);
+        builder.put(key, value);
+      }
+    }
+    ExceptionDictionary dictionary = builder.build();
+
+    check(dictionary.size()).is(entries.size());
+    for (Map.Entry<String, String> entry : entries.entrySet()) {
+      check(dictionary.value(dictionary.find(entry.getKey()))).is(entry.getValue());
+    }
+    for (int i = 0; i < 100000; i++) {
+      String word = randomWord(random);
+      check(dictionary.find(word) >= 0 == entries.containsKey(word));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsDuplicateKeys() {
+    ExceptionDictionary.builder()
+        .put("c", "с")
+        .put("b", "и")
+        .put("c", "ц")
+        .build();
+  }
+
+  static String randomWord(Random random) {
+    char[] chars = new char[2 + random.nextInt(10)];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = (char) ('a' + random.nextInt(26));
+    }
+    return new String(chars);
+  }
+}
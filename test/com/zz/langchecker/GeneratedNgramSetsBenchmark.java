@@ -0,0 +1,85 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LangChecker} with n-gram sets generated at build time against the one with sets parsed at runtime,
+ * over the bundled vocabularies and their switched copies.
+ * <p>
+ * Usage: {@code GeneratedNgramSetsBenchmark [generated|parsed]}, run one kind of sets per JVM to keep
+ * n-gram lookups monomorphic, as they are in production.
+ */
+public class GeneratedNgramSetsBenchmark {
+  private static final int PASSES = 5;
+
+  public static void main(String[] args) {
+    String only = args.length > 0 ? args[0] : "";
+    LangChecker generated = null;
+    LangChecker parsed = null;
+    if (!only.equals("parsed")) {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      generated = LangChecker.create();
+      System.out.println("generated: created in " + stopwatch);
+    }
+    if (!only.equals("generated")) {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      parsed = LangChecker.create(ModelResources.bundled());
+      System.out.println("parsed:    created in " + stopwatch);
+    }
+
+    List<char[]> words = Lists.newArrayList();
+    for (String word : Vocabulary.wordsEn()) {
+      words.add(word.toLowerCase(Locale.ROOT).toCharArray());
+      words.add(Characters.switchLang(word, Lang.RU).toLowerCase(Locale.ROOT).toCharArray());
+    }
+    for (String word : Vocabulary.wordsRu()) {
+      words.add(word.toLowerCase(Locale.ROOT).toCharArray());
+      words.add(Characters.switchLang(word, Lang.EN).toLowerCase(Locale.ROOT).toCharArray());
+    }
+
+    for (int i = 0; i < PASSES; i++) {
+      if (generated != null) {
+        System.out.println("generated: " + check(generated, words));
+      }
+      if (parsed != null) {
+        System.out.println("parsed:    " + check(parsed, words));
+      }
+    }
+  }
+
+  private static String check(LangChecker checker, List<char[]> words) {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    int accepted = 0;
+    for (char[] word : words) {
+      for (Lang lang : Lang.values()) {
+        if (checker.check(lang, word, 0, word.length)) {
+          accepted++;
+        }
+      }
+    }
+    long nanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+    return String.format("%.0f checks/s, accepted %d", words.size() * 2e9 / nanos, accepted);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Resources;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class GeneratedNgramSetsTest {
+  private static final List<String> FILES = ImmutableList.of(
+      "nonexistent2gram-en.txt",
+      "nonexistent2gram-ru.txt",
+      "nonexistent3gram-en.txt",
+      "nonexistent3gram-ru.txt",
+      "nonexistentFirst4gram-en.txt",
+      "nonexistentFirst4gram-ru.txt",
+      "nonexistent4gram-en.txt",
+      "nonexistent4gram-ru.txt");
+
+  @Test
+  public void sameAsParsedSets() throws IOException {
+    for (String file : FILES) {
+      List<String> ngrams = readLines(file);
+      NgramSet parsed = NgramSet.of(ngrams);
+      NgramSet generated = GeneratedNgramSets.of(file);
+
+      check(generated.size()).is(parsed.size());
+      check(generated.size()).is(ImmutableSet.copyOf(ngrams).size());
+      for (String ngram : ngrams) {
+        check(generated.contains(ngram));
+      }
+    }
+  }
+
+  @Test
+  public void sameMembershipAsParsedSets() throws IOException {
+    ImmutableSet.Builder<String> allNgrams = ImmutableSet.builder();
+    for (String file : FILES) {
+      allNgrams.addAll(readLines(file));
+    }
+
+    for (String file : FILES) {
+      NgramSet parsed = NgramSet.of(readLines(file));
+      NgramSet generated = GeneratedNgramSets.of(file);
+      for (String ngram : allNgrams.build()) {
+        check(generated.contains(ngram) == parsed.contains(ngram));
+      }
+      check(!generated.contains("\u0000"));
+      check(!generated.contains("zzzz"));
+    }
+    check(GeneratedNgramSets.of("exceptions.csv")).isNull();
+  }
+
+  private static List<String> readLines(String file) throws IOException {
+    return Resources.readLines(ModelResources.bundled().apply(file), Charsets.UTF_8);
+  }
+}
@@ -18,6 +18,8 @@
 
 package com.zz.langchecker;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.junit.Test;
 import static org.immutables.check.Checkers.*;
 
@@ -30,4 +32,50 @@ public class LangCheckerTest {
     check(LangChecker.firstNgram(Lang.RU, "бавигад", 3, true).or("")).is("");
     check(LangChecker.firstNgram(Lang.RU, "аабууу", 3, true).or("")).is("ууу");
   }
+
+  @Test
+  public void checksSwitchedWordsInKeysOfTypedLayout() {
+    LangChecker langChecker = LangChecker.create();
+    char[] word = "ghbdtn".toCharArray();
+    check(langChecker.checkSwitched(Lang.EN, word, 0, word.length));
+    word = "руддщ".toCharArray();
+    check(langChecker.checkSwitched(Lang.RU, word, 0, word.length));
+    word = "xcvn".toCharArray();
+    check(!langChecker.checkSwitched(Lang.EN, word, 0, word.length));
+  }
+
+  @Test
+  public void checkSwitchedIsSameAsCheckOfSwitchedWord() {
+    for (LangChecker langChecker : new LangChecker[] {
+        LangChecker.create(), LangChecker.create(ModelResources.bundled()).withRuleOrder(
+            AdaptiveRuleOrder.create(1, 16))}) {
+      for (Lang typed : Lang.values()) {
+        Iterable<String> words = Iterables.concat(
+            Vocabulary.wordsEn(),
+            Vocabulary.wordsRu(),
+            Lists.transform(Vocabulary.wordsEn(), Characters.switchLangFunction(Lang.RU)),
+            Lists.transform(Vocabulary.wordsRu(), Characters.switchLangFunction(Lang.EN)));
+        for (String word : words) {
+          char[] chars = word.toCharArray();
+          if (!isTypedIn(typed, chars)) {
+            continue;
+          }
+          char[] switched = new char[chars.length];
+          Characters.switchLang(chars, 0, chars.length, typed.other(), switched, 0);
+          check(langChecker.checkSwitched(typed, chars, 0, chars.length)
+              == langChecker.check(typed.other(), switched, 0, switched.length));
+        }
+      }
+    }
+  }
+
+  /** @return true if all chars are keys of {@code layout} which type letters of the other language */
+  private static boolean isTypedIn(Lang layout, char[] chars) {
+    for (char ch : chars) {
+      if (Characters.switchLang(ch, layout.other()) == ch) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
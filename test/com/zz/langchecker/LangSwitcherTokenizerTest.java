@@ -18,6 +18,7 @@
 
 package com.zz.langchecker;
 
+import java.util.Arrays;
 import org.junit.Test;
 import static org.immutables.check.Checkers.*;
 
@@ -77,6 +78,67 @@ public class LangSwitcherTokenizerTest {
     check(tokenizer.tokenize("gjl]tpl")).hasToString("подъезд");
   }
 
+  @Test
+  public void canSplitSwitchedWordsFromSeparators() {
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+    check(tokenizer.tokenize("gjxnf.ru")).hasToString("почта.ru");
+    check(tokenizer.tokenize("www.ntcn.ru/cj,snbt")).hasToString("www.тест.ru/событие");
+    check(tokenizer.tokenize("hello;gjxnf")).hasToString("hello;почта");
+    check(tokenizer.tokenize("руддщбцщкв")).hasToString("hello,word");
+    check(tokenizer.tokenize("hello.world")).hasToString("hello.world");
+    check(tokenizer.tokenize("межъязыковой")).hasToString("межъязыковой");
+  }
+
+  @Test
+  public void splitsSwitchedWordAtDotAfterVowel() {
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+    check(tokenizer.tokenize("cj,snbt.cj,snbt")).hasToString("событие.событие");
+    check(tokenizer.tokenize("cj,snbt.cj,snbt").tokens()).isOf("событие", "событие");
+    // ю after a consonant is a letter
+    check(tokenizer.tokenize("ljhtdjk.wbjyysq")).hasToString("дореволюционный");
+    check(tokenizer.tokenize("k.,k.")).hasToString("люблю");
+  }
+
+  @Test
+  public void leavesUrlsAsTyped() {
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+    check(tokenizer.tokenize("http://example.com/path")).hasToString("http://example.com/path");
+    check(tokenizer.tokenize("http://ya.ru")).hasToString("http://ya.ru");
+    check(tokenizer.tokenize("see http://ya.ru now")).hasToString("see http://ya.ru now");
+    check(tokenizer.tokenize("https://ya.ru")).hasToString("https://ya.ru");
+    check(tokenizer.tokenize("http://rbc.ru")).hasToString("http://rbc.ru");
+    check(tokenizer.tokenize("HTTPS://gjxnf.ru/ghbdtn")).hasToString("HTTPS://gjxnf.ru/привет");
+    check(tokenizer.tokenize("https://ya.ru").tokens()).isOf("https", "ya", "ru");
+  }
+
+  @Test
+  public void splitsLongTokensWithSeparators() {
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    StringBuilder input = new StringBuilder();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      input.append("gjxnf.ru.");
+      expected.append("почта.ru.");
+    }
+
+    check(tokenizer.tokenize(input.toString())).hasToString(expected.toString());
+  }
+
+  @Test
+  public void comparesCostsOfLongUnknownWords() {
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    // unknown chars of the token as one word cost more than a long can hold, of the unknown part alone just less
+    char[] unknown = new char[(1 << 23) - 3];
+    Arrays.fill(unknown, 'q');
+
+    TokenizerResponse response = tokenizer.tokenize(new String(unknown) + ",ghbdtn");
+    check(response.tokens().size()).is(2);
+    check(response.tokens().get(1)).is("привет");
+  }
+
   @Test
   public void canDetectDigits() {
     LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
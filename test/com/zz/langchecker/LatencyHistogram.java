@@ -0,0 +1,98 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds, in the manner of HdrHistogram: values below
+ * {@value #SUB_BUCKETS} are counted exactly, larger values in buckets of {@value #HALF} per power of two,
+ * so any recorded value is reported with relative error below 1/{@value #HALF}. Thread-safe, recording
+ * doesn't allocate.
+ */
+final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF = SUB_BUCKETS / 2;
+  // index of Long.MAX_VALUE is the last one
+  private static final int BUCKETS = index(Long.MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  void record(long nanos) {
+    long value = Math.max(nanos, 0);
+    counts.incrementAndGet(index(value));
+    count.incrementAndGet();
+    long current;
+    while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+      // retry
+    }
+  }
+
+  long count() {
+    return count.get();
+  }
+
+  long max() {
+    return max.get();
+  }
+
+  /**
+   * @param percentile from 0 to 100
+   * @return the highest value equivalent to the value at {@code percentile}, 0 if nothing is recorded
+   */
+  long percentile(double percentile) {
+    long total = count.get();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max((long) Math.ceil(total * percentile / 100), 1);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(highestEquivalent(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return shift * HALF + (int) (value >>> shift);
+  }
+
+  static long lowestEquivalent(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / HALF - 1;
+    return (long) (index - shift * HALF) << shift;
+  }
+
+  static long highestEquivalent(int index) {
+    return index + 1 < BUCKETS ? lowestEquivalent(index + 1) - 1 : Long.MAX_VALUE;
+  }
+}
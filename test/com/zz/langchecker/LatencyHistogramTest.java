@@ -0,0 +1,64 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class LatencyHistogramTest {
+  @Test
+  public void bucketsAreContiguous() {
+    for (long value : new long[] {0, 1, 127, 128, 129, 255, 256, 1000, 123456789, Long.MAX_VALUE / 3}) {
+      int index = LatencyHistogram.index(value);
+      check(LatencyHistogram.lowestEquivalent(index) <= value);
+      check(LatencyHistogram.highestEquivalent(index) >= value);
+      check(LatencyHistogram.index(LatencyHistogram.highestEquivalent(index) + 1)).is(index + 1);
+    }
+    check(LatencyHistogram.highestEquivalent(LatencyHistogram.index(Long.MAX_VALUE))).is(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void percentilesWithinRelativeError() {
+    Random random = new Random(42);
+    LatencyHistogram histogram = new LatencyHistogram();
+    long[] values = new long[100000];
+    for (int i = 0; i < values.length; i++) {
+      // log-normal like latencies from 1 us to seconds
+      values[i] = (long) Math.exp(7 + random.nextGaussian() * 2);
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+
+    check(histogram.count()).is((long) values.length);
+    check(histogram.max()).is(values[values.length - 1]);
+    for (double percentile : new double[] {50, 90, 99, 99.9, 99.99, 100}) {
+      long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+      long reported = histogram.percentile(percentile);
+      check(reported >= exact);
+      check(reported - exact <= exact / 64);
+    }
+  }
+
+  @Test
+  public void emptyHistogramReportsZero() {
+    check(new LatencyHistogram().percentile(99)).is(0L);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link LayoutDetector#detect(String)} against {@link LangSwitcherTokenizer#tokenize(String)}
+ * over phrases of 8 vocabulary words, half of them switched.
+ */
+public class LayoutDetectorBenchmark {
+  private static final int PHRASES = 100000;
+  private static final int PASSES = 5;
+
+  public static void main(String[] args) {
+    List<String> words = Lists.newArrayList();
+    for (String word : Vocabulary.wordsEn()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.RU));
+    }
+    for (String word : Vocabulary.wordsRu()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.EN));
+    }
+
+    Random random = new Random(42);
+    List<String> phrases = Lists.newArrayList();
+    for (int i = 0; i < PHRASES; i++) {
+      List<String> phrase = Lists.newArrayList();
+      for (int j = 0; j < 8; j++) {
+        phrase.add(words.get(random.nextInt(words.size())));
+      }
+      phrases.add(Joiner.on(' ').join(phrase));
+    }
+
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    LayoutDetector detector = tokenizer.layoutDetector();
+    for (int pass = 0; pass < PASSES; pass++) {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      int tokens = 0;
+      for (String phrase : phrases) {
+        tokens += tokenizer.tokenize(phrase).tokens().size();
+      }
+      System.out.println("tokenize: " + throughput(stopwatch) + ", tokens " + tokens);
+
+      stopwatch = Stopwatch.createStarted();
+      tokens = 0;
+      for (String phrase : phrases) {
+        tokens += detector.detect(phrase).length;
+      }
+      System.out.println("detect:   " + throughput(stopwatch) + ", tokens " + tokens);
+    }
+  }
+
+  private static String throughput(Stopwatch stopwatch) {
+    return String.format("%.0f phrases/s", PHRASES * 1e9 / stopwatch.elapsed(TimeUnit.NANOSECONDS));
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.Lists;
+import java.util.List;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class LayoutDetectorTest {
+  private final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+  @Test
+  public void detectsLayoutOfTokens() {
+    String input = "Hello руддщ, ghbdtn мир 24 gjxnf.ru! http://rbc.ru cj,snbt.cj,snbt";
+    long[] tokens = tokenizer.layoutDetector().detect(input);
+
+    check(describe(input, tokens)).isOf(
+        "Hello:EN", "руддщ,:OTHER", "ghbdtn:SWITCHED_RU", "мир:RU", "24:OTHER", "gjxnf.ru:MIXED", "http::EN",
+        "rbc.ru:EN", "cj,snbt.cj,snbt:MIXED");
+    check(describe("руддщ цщкв", tokenizer.layoutDetector().detect("руддщ цщкв")))
+        .isOf("руддщ:SWITCHED_EN", "цщкв:SWITCHED_EN");
+  }
+
+  @Test
+  public void skipsSeparators() {
+    check(tokenizer.layoutDetector().detect("").length).is(0);
+    check(tokenizer.layoutDetector().detect(" - ! ").length).is(0);
+    check(describe("T.G.I", tokenizer.layoutDetector().detect("T.G.I"))).isOf("T.G.I:EN");
+    check(describe("k.,jdm", tokenizer.layoutDetector().detect("k.,jdm"))).isOf("k.,jdm:SWITCHED_RU");
+  }
+
+  @Test
+  public void sameAsTokenizerOnVocabularies() {
+    LayoutDetector detector = tokenizer.layoutDetector();
+
+    for (String word : Vocabulary.wordsInBothLayouts()) {
+      long[] tokens = detector.detect(word);
+      TokenizerResponse response = tokenizer.tokenize(word);
+      if (tokens.length == 1 && response.tokens().size() == 1) {
+        LayoutDetector.Layout layout = LayoutDetector.layout(tokens[0]);
+        check(response.corrected().isPresent() == (layout == LayoutDetector.Layout.SWITCHED_EN
+            || layout == LayoutDetector.Layout.SWITCHED_RU
+            || layout == LayoutDetector.Layout.MIXED));
+      }
+    }
+  }
+
+  private static List<String> describe(String input, long[] tokens) {
+    List<String> descriptions = Lists.newArrayList();
+    for (long token : tokens) {
+      int start = LayoutDetector.start(token);
+      descriptions.add(input.substring(start, start + LayoutDetector.length(token)) + ":" + LayoutDetector.layout(token));
+    }
+    return descriptions;
+  }
+}
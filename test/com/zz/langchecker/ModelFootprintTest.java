@@ -0,0 +1,114 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class ModelFootprintTest {
+  private static final List<String> PHRASES = ImmutableList.of(
+      "ghbdtn vbh", "руддщ цщкв", "Hello руддщ, ghbdtn мир 24 gjxnf.ru!", "faatrn", "wtynh", "ckjdj");
+
+  private final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+  @Test
+  public void representationsContainSameNgrams() {
+    NgramSet generated = GeneratedNgramSets.of("nonexistent3gram-ru.txt");
+    long[] expected = sorted(generated.packed());
+
+    for (NgramRepresentation representation : NgramRepresentation.values()) {
+      NgramSet ngrams = generated.in(representation);
+      check(ngrams.representation()).is(representation);
+      check(ngrams.in(representation) == ngrams);
+      check(ngrams.size()).is(generated.size());
+      check(Arrays.equals(sorted(ngrams.packed()), expected));
+      for (long packed : expected) {
+        check(ngrams.contains(packed));
+      }
+      check(!ngrams.contains("zzz"));
+      check(!ngrams.contains(NgramSet.pack("при")));
+    }
+  }
+
+  @Test
+  public void respondsTheSameInEachRepresentation() {
+    for (NgramRepresentation representation : NgramRepresentation.values()) {
+      LangSwitcherTokenizer represented = tokenizer.withNgramRepresentation(representation);
+      for (String phrase : PHRASES) {
+        check(represented.tokenize(phrase)).hasToString(tokenizer.tokenize(phrase).toString());
+      }
+    }
+  }
+
+  @Test
+  public void reportsComponentsByLanguage() {
+    ModelFootprint footprint = tokenizer.footprint();
+
+    for (String language : new String[] {"en", "ru"}) {
+      check(footprint.heapBytes(ModelFootprint.Component.NGRAMS, language) > 0);
+      check(footprint.heapBytes(ModelFootprint.Component.SWITCHED_NGRAMS, language) > 0);
+      check(footprint.heapBytes(ModelFootprint.Component.LETTERS, language) > 0);
+      check(footprint.heapBytes(ModelFootprint.Component.LAYOUT, language) > 0);
+      check(footprint.heapBytes(ModelFootprint.Component.EXCEPTIONS, language)).is(0L);
+      check(footprint.directBytes(language)).is(0L);
+    }
+    check(footprint.heapBytes(ModelFootprint.Component.EXCEPTIONS) > 0);
+    check(footprint.heapBytes()).is(footprint.heapBytes("en") + footprint.heapBytes("ru")
+        + footprint.heapBytes(ModelFootprint.Component.EXCEPTIONS));
+    check(footprint.toString().contains("switched_ngrams"));
+
+    try {
+      footprint.heapBytes("de");
+      check(false);
+    } catch (IllegalArgumentException e) {
+      check(e.getMessage().contains("de"));
+    }
+  }
+
+  @Test
+  public void reportsRepresentationTradeOff() {
+    ModelFootprint packed = tokenizer.footprint();
+    ModelFootprint strings = tokenizer.withNgramRepresentation(NgramRepresentation.STRINGS).footprint();
+    ModelFootprint offHeap = tokenizer.withNgramRepresentation(NgramRepresentation.OFF_HEAP).footprint();
+
+    long packedNgrams = packed.heapBytes(ModelFootprint.Component.NGRAMS);
+    check(strings.heapBytes(ModelFootprint.Component.NGRAMS) > 3 * packedNgrams);
+    check(offHeap.heapBytes(ModelFootprint.Component.NGRAMS) < packedNgrams / 10);
+    check(offHeap.directBytes() > 0);
+    check(offHeap.heapBytes(ModelFootprint.Component.KNOWN_WORDS))
+        .is(packed.heapBytes(ModelFootprint.Component.KNOWN_WORDS));
+  }
+
+  @Test
+  public void switchesKeysWithoutBoxedMaps() {
+    check(new String(Characters.keysSwitchedTo('б', Lang.EN))).is(",<");
+    check(new String(Characters.keysSwitchedTo('э', Lang.RU))).is("");
+    check(new String(Characters.keysSwitchedTo('\'', Lang.RU))).is("эё");
+    check(new String(Characters.keysSwitchedTo('€', Lang.EN))).is("");
+  }
+
+  private static long[] sorted(long[] packed) {
+    long[] sorted = packed.clone();
+    Arrays.sort(sorted);
+    return sorted;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Footprint and throughput of the bundled model in each {@link NgramRepresentation}, over the bundled
+ * vocabularies and their switched copies.
+ * <p>
+ * Usage: {@code NgramRepresentationBenchmark [STRINGS|PACKED|OFF_HEAP]}, run one representation per JVM to keep
+ * n-gram lookups monomorphic, as they are in production.
+ */
+public class NgramRepresentationBenchmark {
+  private static final int PASSES = 5;
+
+  public static void main(String[] args) {
+    List<String> words = Lists.newArrayList();
+    for (String word : Vocabulary.wordsEn()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.RU));
+    }
+    for (String word : Vocabulary.wordsRu()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.EN));
+    }
+
+    LangSwitcherTokenizer base = LangSwitcherTokenizer.create();
+    for (NgramRepresentation representation : NgramRepresentation.values()) {
+      if (args.length > 0 && !representation.name().equals(args[0])) {
+        continue;
+      }
+      LangSwitcherTokenizer tokenizer = base.withNgramRepresentation(representation);
+      ModelFootprint footprint = tokenizer.footprint();
+      System.out.println(representation + ":\n" + footprint);
+
+      for (int pass = 0; pass < PASSES; pass++) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        int corrected = 0;
+        for (String word : words) {
+          if (tokenizer.tokenize(word).corrected().isPresent()) {
+            corrected++;
+          }
+        }
+        long nanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+        System.out.println(String.format(Locale.ENGLISH,
+            "%-8s n-grams %7.1f KB heap %7.1f KB off-heap, %8.0f words/s, %d corrected",
+            representation, (footprint.heapBytes(ModelFootprint.Component.NGRAMS)
+                + footprint.heapBytes(ModelFootprint.Component.SWITCHED_NGRAMS)) / 1024.0,
+            footprint.directBytes() / 1024.0, words.size() * 1e9 / nanos, corrected));
+      }
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link ParallelTokenizer} with the parallelism of its pool on a single input of vocabulary words,
+ * half of them switched, against {@link LangSwitcherTokenizer#tokenize(String)}.
+ * <p>
+ * Usage: {@code ParallelTokenizerBenchmark [megabytes]}
+ */
+public class ParallelTokenizerBenchmark {
+  private static final int PASSES = 5;
+
+  public static void main(String[] args) {
+    int length = (args.length > 0 ? Integer.parseInt(args[0]) : 4) * 1000 * 1000;
+
+    List<String> words = Lists.newArrayList();
+    for (String word : Vocabulary.wordsEn()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.RU));
+    }
+    for (String word : Vocabulary.wordsRu()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.EN));
+    }
+
+    Random random = new Random(42);
+    StringBuilder builder = new StringBuilder(length + 64);
+    while (builder.length() < length) {
+      builder.append(words.get(random.nextInt(words.size()))).append(random.nextInt(8) == 0 ? ", " : " ");
+    }
+    String input = builder.toString();
+
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    int processors = Runtime.getRuntime().availableProcessors();
+    System.out.println("input: " + input.length() + " chars, " + processors + " processors");
+
+    double sequential = 0;
+    for (int pass = 0; pass < PASSES; pass++) {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      tokenizer.tokenize(input);
+      sequential = stopwatch.elapsed(TimeUnit.NANOSECONDS) / 1e6;
+    }
+    System.out.println(String.format("sequential: %.0f ms", sequential));
+
+    for (int parallelism = 1; parallelism <= processors; parallelism *= 2) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        ParallelTokenizer parallelTokenizer = ParallelTokenizer.create(tokenizer, pool);
+        double parallel = 0;
+        for (int pass = 0; pass < PASSES; pass++) {
+          Stopwatch stopwatch = Stopwatch.createStarted();
+          parallelTokenizer.tokenize(input);
+          parallel = stopwatch.elapsed(TimeUnit.NANOSECONDS) / 1e6;
+        }
+        System.out.println(String.format("parallelism %d: %.0f ms, speedup %.2f",
+            parallelism, parallel, sequential / parallel));
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+}
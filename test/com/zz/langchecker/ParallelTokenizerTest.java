@@ -0,0 +1,75 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class ParallelTokenizerTest {
+  private final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+  @Test
+  public void segmentsStartAtSeparatorRuns() {
+    char[] canonical = "ghbdtn, vbh  ,bkmzhl-- 42 https://ya.ru abc".toCharArray();
+    int[] boundaries = ParallelTokenizer.boundaries(canonical, canonical.length, 4);
+
+    check(boundaries[0] == 0);
+    check(boundaries[boundaries.length - 1] == canonical.length);
+    for (int i = 1; i < boundaries.length - 1; i++) {
+      check(Characters.isSeparator(canonical[boundaries[i]]));
+      check(!Characters.isSeparator(canonical[boundaries[i] - 1]));
+      check(canonical[boundaries[i] - 1] != ':');
+      check(boundaries[i] - boundaries[i - 1] >= 4);
+    }
+    check(boundaries.length > 3);
+  }
+
+  @Test
+  public void sameAsSequentialTokenizer() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ParallelTokenizer parallelTokenizer = ParallelTokenizer.create(tokenizer, pool, 64);
+
+      for (String input : new String[] {phrase(0, 2000), phrase(1, 5000), "ghbdtn vbh", ""}) {
+        TokenizerResponse expected = tokenizer.tokenize(input);
+        TokenizerResponse actual = parallelTokenizer.tokenize(input);
+        check(actual.tokens()).is(expected.tokens());
+        check(actual.corrected()).is(expected.corrected());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /** @return words of vocabularies in both layouts with various separators and upper case words */
+  private static String phrase(int seed, int words) {
+    List<String> vocabulary = Vocabulary.wordsInBothLayouts();
+    String[] separators = {" ", ", ", " - ", " 42 ", "! ", ".", "\n", "  "};
+
+    StringBuilder phrase = new StringBuilder();
+    for (int i = 0; i < words; i++) {
+      String word = vocabulary.get((i * 7919 + seed * 104729) % vocabulary.size());
+      phrase.append(i % 5 == 0 ? word.toUpperCase(Locale.ROOT) : word).append(separators[(i + seed) % separators.length]);
+    }
+    return phrase.toString();
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link PartitionCoordinator} with the number of local worker processes
+ * over a generated corpus of vocabulary phrases, half of words switched.
+ * <p>
+ * Usage: {@code PartitionCoordinatorBenchmark [megabytes]}
+ */
+public class PartitionCoordinatorBenchmark {
+  public static void main(String[] args) throws IOException {
+    long bytes = (args.length > 0 ? Long.parseLong(args[0]) : 50) * 1000 * 1000;
+
+    List<String> words = Lists.newArrayList();
+    for (String word : Vocabulary.wordsEn()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.RU));
+    }
+    for (String word : Vocabulary.wordsRu()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.EN));
+    }
+
+    Path input = Files.createTempFile("partition-benchmark", ".in");
+    Path output = Files.createTempFile("partition-benchmark", ".out");
+    try {
+      Random random = new Random(42);
+      try (Writer writer = Files.newBufferedWriter(input, Charsets.UTF_8)) {
+        long written = 0;
+        while (written < bytes) {
+          StringBuilder line = new StringBuilder();
+          for (int i = 0; i < 8; i++) {
+            line.append(words.get(random.nextInt(words.size()))).append(i < 7 ? ' ' : '\n');
+          }
+          writer.write(line.toString());
+          written += line.length();
+        }
+      }
+      System.out.println("input: " + Files.size(input) / 1000 / 1000 + " MB, "
+          + Runtime.getRuntime().availableProcessors() + " processors");
+
+      long singleNanos = 0;
+      for (int workers = 1; workers <= Runtime.getRuntime().availableProcessors() * 2; workers *= 2) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        List<PartitionCoordinator.PartitionStats> stats =
+            new PartitionCoordinator(PartitionCoordinator.localLauncher(), workers, 1, false).correct(input, output);
+        long nanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+        if (workers == 1) {
+          singleNanos = nanos;
+        }
+        System.out.println(String.format("%d workers: %.1f s, speedup %.2f", workers, nanos / 1e9,
+            (double) singleNanos / nanos));
+        for (PartitionCoordinator.PartitionStats partition : stats) {
+          System.out.println("  " + partition);
+        }
+      }
+    } finally {
+      Files.delete(input);
+      Files.delete(output);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class PartitionCoordinatorTest {
+  private static final String LINES = "hello word руддщ цщкв\n"
+      + "примет мир ghbdtn vbh\r\n"
+      + "\n"
+      + "beautiful lesson\n"
+      + "<>HJ ,bkmzhl\n";
+
+  @Test
+  public void partitionsEndOnLines() throws IOException {
+    byte[] input = repeat(LINES, 10).getBytes(Charsets.UTF_8);
+    Path in = Files.createTempFile("partition", ".in");
+    try {
+      Files.write(in, input);
+      try (FileChannel channel = FileChannel.open(in, StandardOpenOption.READ)) {
+        long[] single = PartitionCoordinator.boundaries(channel, 1);
+        check(single.length).is(2);
+        check(single[1]).is((long) input.length);
+
+        for (int partitions : new int[] {2, 3, 7, 1000}) {
+          long[] boundaries = PartitionCoordinator.boundaries(channel, partitions);
+          check(boundaries[0]).is(0L);
+          check(boundaries[boundaries.length - 1]).is((long) input.length);
+          check(boundaries.length <= partitions + 1);
+          for (int i = 1; i < boundaries.length - 1; i++) {
+            check(boundaries[i] > boundaries[i - 1]);
+            check(input[(int) boundaries[i] - 1]).is((byte) '\n');
+          }
+        }
+      }
+    } finally {
+      Files.delete(in);
+    }
+  }
+
+  @Test
+  public void mergesPartitionsInOrder() throws IOException {
+    String input = repeat(LINES, 200) + "ghbdtn";
+    Path in = Files.createTempFile("partition", ".in");
+    Path expected = Files.createTempFile("partition", ".expected");
+    Path out = Files.createTempFile("partition", ".out");
+    try {
+      Files.write(in, input.getBytes(Charsets.UTF_8));
+      new BulkCorrector(LangSwitcherTokenizer.create(), 1, BulkCorrector.DEFAULT_BLOCK_SIZE, false)
+          .correct(in, expected, null);
+
+      final AtomicInteger launched = new AtomicInteger();
+      PartitionCoordinator.Launcher launcher = new PartitionCoordinator.Launcher() {
+        @Override
+        public Process launch(List<String> arguments) throws IOException {
+          launched.incrementAndGet();
+          return PartitionCoordinator.localLauncher().launch(arguments);
+        }
+      };
+      List<PartitionCoordinator.PartitionStats> stats = new PartitionCoordinator(launcher, 3, 1, false)
+          .correct(in, out);
+
+      check(launched.get()).is(3);
+      check(stats.size()).is(3);
+      long bytesRead = 0;
+      for (PartitionCoordinator.PartitionStats partition : stats) {
+        check(partition.start()).is(bytesRead);
+        bytesRead = partition.end();
+      }
+      check(bytesRead).is(Files.size(in));
+      check(new String(Files.readAllBytes(out), Charsets.UTF_8))
+          .is(new String(Files.readAllBytes(expected), Charsets.UTF_8));
+      check(!Files.exists(out.resolveSibling(out.getFileName() + ".part0")));
+    } finally {
+      Files.delete(in);
+      Files.delete(expected);
+      Files.delete(out);
+    }
+  }
+
+  private static String repeat(String string, int times) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < times; i++) {
+      builder.append(string);
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class PhraseCorrectorTest {
+  private final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+  @Test
+  public void correctsIntoOutputBuffer() {
+    PhraseCorrector corrector = tokenizer.phraseCorrector();
+    char[] output = new char[64];
+
+    int length = corrector.correct("Hello руддщ, ghbdtn мир 24 gjxnf.ru!", output, 2);
+    check(new String(output, 2, length)).is("Hello руддщ, привет мир 24 почта.ru!");
+
+    char[] input = "--Xfcnbwf--".toCharArray();
+    length = corrector.correct(input, 2, 7, output, 0);
+    check(new String(output, 0, length)).is("Частица");
+  }
+
+  @Test
+  public void leavesCorrectPhrases() {
+    PhraseCorrector corrector = tokenizer.phraseCorrector();
+    char[] output = "untouched".toCharArray();
+
+    check(corrector.correct("", output, 0)).is(PhraseCorrector.UNCHANGED);
+    check(corrector.correct("Hello world, привет мир!", output, 0)).is(PhraseCorrector.UNCHANGED);
+    check(new String(output)).is("untouched");
+  }
+
+  @Test
+  public void leavesUrlsAsTyped() {
+    PhraseCorrector corrector = tokenizer.phraseCorrector();
+    char[] output = new char[64];
+
+    check(corrector.correct("http://example.com/path", output, 0)).is(PhraseCorrector.UNCHANGED);
+    check(corrector.correct("see http://ya.ru now", output, 0)).is(PhraseCorrector.UNCHANGED);
+    check(corrector.correct("https://ya.ru", output, 0)).is(PhraseCorrector.UNCHANGED);
+    check(corrector.correct("http://rbc.ru", output, 0)).is(PhraseCorrector.UNCHANGED);
+
+    int length = corrector.correct("https://gjxnf.ru/ghbdtn gjxnf.ru cj,snbt.cj,snbt", output, 0);
+    check(new String(output, 0, length)).is("https://gjxnf.ru/привет почта.ru событие.событие");
+  }
+
+  @Test
+  public void reportsLengthOfTruncatedPhrase() {
+    PhraseCorrector corrector = tokenizer.phraseCorrector();
+    char[] output = new char[4];
+
+    check(corrector.correct("ghbdtn vbh", output, 0)).is(10);
+    check(new String(output)).is("прив");
+  }
+
+  @Test
+  public void sameAsTokenizerOnPhrases() {
+    PhraseCorrector corrector = tokenizer.phraseCorrector();
+    char[] output = new char[16];
+
+    for (String phrase : Vocabulary.phrasesInBothLayouts(" ", ", ", "-", " 42 ", "!", ".")) {
+      if (output.length < phrase.length() * 2) {
+        output = new char[phrase.length() * 2];
+      }
+
+      TokenizerResponse response = tokenizer.tokenize(phrase);
+      int length = corrector.correct(phrase, output, 0);
+      if (response.corrected().isPresent()) {
+        check(new String(output, 0, length)).is(response.corrected().get());
+      } else {
+        check(length).is(PhraseCorrector.UNCHANGED);
+      }
+    }
+  }
+}
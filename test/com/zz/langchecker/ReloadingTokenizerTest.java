@@ -0,0 +1,81 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class ReloadingTokenizerTest {
+  @Test
+  public void usesBundledModelForMissingFiles() throws IOException {
+    Path directory = Files.createTempDirectory("langchecker");
+    try (ReloadingTokenizer tokenizer = ReloadingTokenizer.watch(directory, 0)) {
+      check(tokenizer.tokenize("wtynh")).hasToString("центр");
+      check(tokenizer.tokenize("ghbdtn")).hasToString("привет");
+    } finally {
+      delete(directory);
+    }
+  }
+
+  @Test
+  public void reloadsChangedFiles() throws Exception {
+    Path directory = Files.createTempDirectory("langchecker");
+    try (ReloadingTokenizer tokenizer = ReloadingTokenizer.watch(directory, 0)) {
+      LangSwitcherTokenizer initial = tokenizer.current();
+
+      write(directory.resolve("exceptions.csv"), "ghbdtn|hello\n");
+      for (int i = 0; i < 100 && tokenizer.current() == initial; i++) {
+        Thread.sleep(100);
+      }
+
+      check(tokenizer.tokenize("ghbdtn")).hasToString("hello");
+    } finally {
+      delete(directory);
+    }
+  }
+
+  @Test
+  public void keepsPreviousModelIfCantLoad() throws IOException {
+    Path directory = Files.createTempDirectory("langchecker");
+    try (ReloadingTokenizer tokenizer = ReloadingTokenizer.watch(directory, 0)) {
+      write(directory.resolve("exceptions.csv"), "ghbdtn|hello\n");
+      check(tokenizer.reload());
+
+      write(directory.resolve("exceptions.csv"), "no separator\n");
+      check(!tokenizer.reload());
+      check(tokenizer.lastFailure()).isPresent();
+      check(tokenizer.tokenize("ghbdtn")).hasToString("hello");
+    } finally {
+      delete(directory);
+    }
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.write(file, content.getBytes(Charsets.UTF_8));
+  }
+
+  private static void delete(Path directory) throws IOException {
+    Files.deleteIfExists(directory.resolve("exceptions.csv"));
+    Files.delete(directory);
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays recorded queries, one per line, against two tokenizer configurations and reports throughput and
+ * latency percentiles side by side.
+ * <p>
+ * With {@code --rate} queries are started on a fixed schedule (open loop) and latency is measured from the
+ * scheduled start, so a stall delays the queries behind it and is reported in their latencies instead of being
+ * hidden by the load generator waiting for it (coordinated omission). Without {@code --rate} each of the threads
+ * sends the next query as soon as the previous one is done (closed loop), which measures peak throughput.
+ * <p>
+ * Usage: {@code ReplayHarness [--rate QUERIES_PER_SECOND] [--threads N] [--duration SECONDS] [--warmup SECONDS]
+ * <queries> <config> [<config>]}, where a config is {@code +}-separated options of {@link LangSwitcherTokenizer}:
+ * {@code default}, {@code adaptive}, {@code known-words}, {@code budget=N}, {@code model=DIRECTORY},
+ * {@code parallel}, for example {@code known-words+adaptive}.
+ */
+public class ReplayHarness {
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+  private final List<String> queries;
+  private final int rate;
+  private final int threads;
+  private final long durationNanos;
+
+  /**
+   * @param rate queries per second, 0 for closed loop
+   */
+  ReplayHarness(List<String> queries, int rate, int threads, long duration, TimeUnit unit) {
+    if (queries.isEmpty() || rate < 0 || threads < 1) {
+      throw new IllegalArgumentException("queries should not be empty, rate and threads should be positive");
+    }
+    this.queries = queries;
+    this.rate = rate;
+    this.threads = threads;
+    this.durationNanos = unit.toNanos(duration);
+  }
+
+  public static void main(String[] args) throws IOException {
+    int rate = 0;
+    int threads = 1;
+    int duration = 30;
+    int warmup = 10;
+
+    int i = 0;
+    for (; i < args.length && args[i].startsWith("--"); i++) {
+      switch (args[i]) {
+      case "--rate":
+        rate = Integer.parseInt(args[++i]);
+        break;
+      case "--threads":
+        threads = Integer.parseInt(args[++i]);
+        break;
+      case "--duration":
+        duration = Integer.parseInt(args[++i]);
+        break;
+      case "--warmup":
+        warmup = Integer.parseInt(args[++i]);
+        break;
+      default:
+        usage();
+      }
+    }
+    if (args.length - i < 2 || args.length - i > 3) {
+      usage();
+    }
+
+    List<String> queries = Files.readAllLines(Paths.get(args[i]), Charsets.UTF_8);
+    System.out.println(String.format(Locale.ENGLISH, "%d queries, %s, %d threads, %d s",
+        queries.size(), rate > 0 ? rate + " queries/s" : "closed loop", threads, duration));
+
+    List<String> configs = Lists.newArrayList();
+    List<Result> results = Lists.newArrayList();
+    for (int c = i + 1; c < args.length; c++) {
+      Tokenizer tokenizer = tokenizer(args[c]);
+      new ReplayHarness(queries, rate, threads, warmup, TimeUnit.SECONDS).run(tokenizer);
+      configs.add(args[c]);
+      results.add(new ReplayHarness(queries, rate, threads, duration, TimeUnit.SECONDS).run(tokenizer));
+    }
+    System.out.print(report(configs, results));
+  }
+
+  private static void usage() {
+    System.err.println("Usage: ReplayHarness [--rate QUERIES_PER_SECOND] [--threads N] [--duration SECONDS] "
+        + "[--warmup SECONDS] <queries> <config> [<config>]");
+    System.exit(2);
+  }
+
+  /**
+   * {@code model=DIRECTORY} replaces the bundled model wherever it is in {@code config}, so the other options are
+   * applied to the loaded model.
+   */
+  static Tokenizer tokenizer(String config) {
+    List<String> options = Lists.newArrayList(Splitter.on('+').trimResults().split(config));
+    LangSwitcherTokenizer tokenizer = null;
+    for (String option : options) {
+      if (option.startsWith("model=")) {
+        if (tokenizer != null) {
+          throw new IllegalArgumentException("More than one model in " + config);
+        }
+        tokenizer = LangSwitcherTokenizer.load(Paths.get(option.substring("model=".length())), 0);
+      }
+    }
+    if (tokenizer == null) {
+      tokenizer = LangSwitcherTokenizer.create();
+    }
+
+    boolean parallel = false;
+    for (String option : options) {
+      if (option.equals("default") || option.startsWith("model=")) {
+        continue;
+      } else if (option.equals("adaptive")) {
+        tokenizer = tokenizer.withRuleOrder(AdaptiveRuleOrder.create());
+      } else if (option.equals("known-words")) {
+        tokenizer = tokenizer.withKnownWords(Vocabulary.wordsEn(), Vocabulary.wordsRu());
+      } else if (option.startsWith("budget=")) {
+        tokenizer = tokenizer.withWorkBudget(WorkBudget.of(Integer.parseInt(option.substring("budget=".length()))));
+      } else if (option.equals("parallel")) {
+        parallel = true;
+      } else {
+        throw new IllegalArgumentException("Unknown option " + option + " of " + config);
+      }
+    }
+    return parallel ? ParallelTokenizer.create(tokenizer, new ForkJoinPool()) : tokenizer;
+  }
+
+  Result run(final Tokenizer tokenizer) {
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder().setNameFormat("replay-%d").setDaemon(true).build());
+    try {
+      final LatencyHistogram histogram = new LatencyHistogram();
+      final AtomicLong next = new AtomicLong();
+      final long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+      final long start = System.nanoTime();
+
+      List<Future<?>> workers = Lists.newArrayList();
+      for (int t = 0; t < threads; t++) {
+        workers.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            while (true) {
+              long index = next.getAndIncrement();
+              long scheduled;
+              if (rate > 0) {
+                scheduled = start + index * intervalNanos;
+                if (scheduled - start >= durationNanos) {
+                  return null;
+                }
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0) {
+                  LockSupport.parkNanos(wait);
+                }
+              } else {
+                scheduled = System.nanoTime();
+                if (scheduled - start >= durationNanos) {
+                  return null;
+                }
+              }
+              tokenizer.tokenize(queries.get((int) (index % queries.size())));
+              histogram.record(System.nanoTime() - scheduled);
+            }
+          }
+        }));
+      }
+      for (Future<?> worker : workers) {
+        await(worker);
+      }
+      return new Result(histogram, System.nanoTime() - start);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  static String report(List<String> configs, List<Result> results) {
+    int width = 12;
+    for (String config : configs) {
+      width = Math.max(width, config.length() + 2);
+    }
+    String text = "%" + width + "s";
+    String number = "%" + width + ".1f";
+
+    StringBuilder report = new StringBuilder();
+    report.append(String.format(Locale.ENGLISH, "%-16s", ""));
+    for (String config : configs) {
+      report.append(String.format(Locale.ENGLISH, text, config));
+    }
+    report.append('\n');
+
+    report.append(String.format(Locale.ENGLISH, "%-16s", "queries/s"));
+    for (Result result : results) {
+      report.append(String.format(Locale.ENGLISH, number, result.throughput()));
+    }
+    report.append('\n');
+
+    for (double percentile : PERCENTILES) {
+      report.append(String.format(Locale.ENGLISH, "%-16s", "p" + format(percentile) + ", us"));
+      for (Result result : results) {
+        report.append(String.format(Locale.ENGLISH, number, result.histogram.percentile(percentile) / 1e3));
+      }
+      report.append('\n');
+    }
+
+    report.append(String.format(Locale.ENGLISH, "%-16s", "max, us"));
+    for (Result result : results) {
+      report.append(String.format(Locale.ENGLISH, number, result.histogram.max() / 1e3));
+    }
+    report.append('\n');
+    return report.toString();
+  }
+
+  private static String format(double percentile) {
+    return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+  }
+
+  static final class Result {
+    final LatencyHistogram histogram;
+    final long elapsedNanos;
+
+    Result(LatencyHistogram histogram, long elapsedNanos) {
+      this.histogram = histogram;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    double throughput() {
+      return histogram.count() * 1e9 / Math.max(elapsedNanos, 1);
+    }
+  }
+}
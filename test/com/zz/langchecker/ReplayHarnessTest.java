@@ -0,0 +1,87 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class ReplayHarnessTest {
+  @Test
+  public void appliesOptionsToModelWhereverItIs() throws IOException {
+    Path directory = Files.createTempDirectory("langchecker");
+    try {
+      Files.write(directory.resolve("exceptions.csv"), "ghbdtn|hello\n".getBytes(Charsets.UTF_8));
+      for (String config : new String[] {"model=" + directory + "+budget=1000", "budget=1000+model=" + directory}) {
+        Tokenizer tokenizer = ReplayHarness.tokenizer(config);
+        check(tokenizer instanceof LangSwitcherTokenizer);
+        check(((LangSwitcherTokenizer) tokenizer).countsWork());
+        check(tokenizer.tokenize("ghbdtn")).hasToString("hello");
+      }
+    } finally {
+      Files.deleteIfExists(directory.resolve("exceptions.csv"));
+      Files.delete(directory);
+    }
+  }
+
+  @Test
+  public void parsesOptions() {
+    check(ReplayHarness.tokenizer("default").tokenize("ghbdtn")).hasToString("привет");
+    check(ReplayHarness.tokenizer("known-words+parallel") instanceof ParallelTokenizer);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownOptions() {
+    ReplayHarness.tokenizer("known-words+fast");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsMoreThanOneModel() {
+    ReplayHarness.tokenizer("model=a+model=b");
+  }
+
+  @Test
+  public void reportsConfigsSideBySide() {
+    LatencyHistogram fast = new LatencyHistogram();
+    LatencyHistogram slow = new LatencyHistogram();
+    for (int i = 0; i < 100; i++) {
+      fast.record(TimeUnit.MICROSECONDS.toNanos(10));
+      slow.record(TimeUnit.MICROSECONDS.toNanos(1000));
+    }
+    String report = ReplayHarness.report(
+        ImmutableList.of("default", "known-words+adaptive"),
+        ImmutableList.of(
+            new ReplayHarness.Result(fast, TimeUnit.SECONDS.toNanos(1)),
+            new ReplayHarness.Result(slow, TimeUnit.SECONDS.toNanos(2))));
+
+    String[] lines = report.split("\n");
+    check(lines.length).is(8);
+    check(Arrays.asList(lines[0].trim().split(" +"))).isOf("default", "known-words+adaptive");
+    check(Arrays.asList(lines[1].trim().split(" +"))).isOf("queries/s", "100.0", "50.0");
+    check(lines[2].startsWith("p50, us"));
+    check(lines[5].startsWith("p99.9, us"));
+    check(lines[7].startsWith("max, us"));
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class SlowInputsTest {
+  @Test
+  public void recordsCallsAboveThreshold() {
+    SlowInputs slowInputs = SlowInputs.create(8, 1, TimeUnit.HOURS);
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create().withSlowInputs(slowInputs);
+
+    check(tokenizer.tokenize("ghbdtn vbh").toString()).is("привет мир");
+    check(slowInputs.recorded()).is(0L);
+    check(slowInputs.entries()).isEmpty();
+  }
+
+  @Test
+  public void recordsStagesOfCalls() {
+    SlowInputs slowInputs = SlowInputs.create(8, 0, TimeUnit.NANOSECONDS);
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create().withSlowInputs(slowInputs);
+
+    tokenizer.tokenize("ghbdtn vbh");
+    SlowInputs.Entry entry = slowInputs.entries().get(0);
+    check(entry.input()).is("ghbdtn vbh");
+    check(entry.checks()).is(2);
+    check(!entry.degraded());
+    check(entry.totalNanos()).is(entry.canonicalizeNanos() + entry.splitNanos() + entry.responseNanos());
+    check(entry.splitNanos() > 0);
+  }
+
+  @Test
+  public void keepsSlowestEntries() {
+    SlowInputs slowInputs = SlowInputs.create(3, 0, TimeUnit.NANOSECONDS);
+    long[] nanos = {50, 10, 90, 70, 20, 80, 30};
+    for (int i = 0; i < nanos.length; i++) {
+      slowInputs.record(entry("input" + nanos[i], nanos[i]));
+    }
+
+    check(inputs(slowInputs.entries())).is(Lists.newArrayList("input90", "input80", "input70"));
+    check(slowInputs.recorded()).is((long) nanos.length);
+  }
+
+  @Test
+  public void keepsSlowestEntriesConcurrently() throws Exception {
+    final SlowInputs slowInputs = SlowInputs.create(64, 0, TimeUnit.NANOSECONDS);
+    final int threads = 4;
+    final int calls = 10000;
+    runConcurrently(threads, new Worker() {
+      @Override
+      public void run(int thread) {
+        // interleaved times, so the slowest entries come from all threads
+        for (int i = 0; i < calls; i++) {
+          long nanos = (long) i * threads + thread;
+          slowInputs.record(entry("input" + nanos, nanos));
+        }
+      }
+    });
+
+    check(slowInputs.recorded()).is((long) threads * calls);
+    List<String> expected = Lists.newArrayList();
+    for (long nanos = (long) threads * calls - 1; expected.size() < 64; nanos--) {
+      expected.add("input" + nanos);
+    }
+    check(inputs(slowInputs.entries())).is(expected);
+  }
+
+  @Test
+  public void recordsConcurrently() throws Exception {
+    final SlowInputs slowInputs = SlowInputs.create(64, 0, TimeUnit.NANOSECONDS);
+    final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create().withSlowInputs(slowInputs);
+    final int threads = 4;
+    final int calls = 10000;
+    runConcurrently(threads, new Worker() {
+      @Override
+      public void run(int thread) {
+        for (int i = 0; i < calls; i++) {
+          tokenizer.tokenize("thread" + thread + " " + i);
+        }
+      }
+    });
+
+    check(slowInputs.recorded()).is((long) threads * calls);
+    List<SlowInputs.Entry> entries = slowInputs.entries();
+    check(entries.size()).is(64);
+    check(Sets.newHashSet(inputs(entries)).size()).is(64);
+    for (int i = 1; i < entries.size(); i++) {
+      check(entries.get(i - 1).totalNanos() >= entries.get(i).totalNanos());
+    }
+  }
+
+  private interface Worker {
+    void run(int thread);
+  }
+
+  private static void runConcurrently(int threads, final Worker worker) throws Exception {
+    final CountDownLatch done = new CountDownLatch(threads);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    for (int t = 0; t < threads; t++) {
+      final int thread = t;
+      new Thread() {
+        @Override
+        public void run() {
+          try {
+            worker.run(thread);
+          } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+          } finally {
+            done.countDown();
+          }
+        }
+      }.start();
+    }
+    check(done.await(1, TimeUnit.MINUTES));
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+
+  private static SlowInputs.Entry entry(String input, long nanos) {
+    return new SlowInputs.Entry(input, 0, nanos, 0, 1, false);
+  }
+
+  private static List<String> inputs(List<SlowInputs.Entry> entries) {
+    List<String> inputs = Lists.newArrayList();
+    for (SlowInputs.Entry entry : entries) {
+      inputs.add(entry.input());
+    }
+    return inputs;
+  }
+}
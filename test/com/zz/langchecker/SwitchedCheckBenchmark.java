@@ -0,0 +1,78 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link LangChecker#checkSwitched} against switching a word and checking it
+ * with {@link LangChecker#check(Lang, char[], int, int)}, over vocabulary words typed in the other layout.
+ */
+public class SwitchedCheckBenchmark {
+  private static final int PASSES = 10;
+
+  public static void main(String[] args) {
+    List<char[]> words = Lists.newArrayList();
+    List<Lang> typed = Lists.newArrayList();
+    for (String word : Vocabulary.wordsRu()) {
+      words.add(Characters.switchLang(word, Lang.EN).toCharArray());
+      typed.add(Lang.EN);
+    }
+    for (String word : Vocabulary.wordsEn()) {
+      words.add(Characters.switchLang(word, Lang.RU).toCharArray());
+      typed.add(Lang.RU);
+    }
+
+    Stopwatch creation = Stopwatch.createStarted();
+    LangChecker langChecker = LangChecker.create();
+    System.out.println("created in " + creation.elapsed(TimeUnit.MILLISECONDS) + " ms");
+
+    char[] switched = new char[64];
+    for (int pass = 0; pass < PASSES; pass++) {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      int accepted = 0;
+      for (int i = 0; i < words.size(); i++) {
+        char[] word = words.get(i);
+        Lang other = typed.get(i).other();
+        Characters.switchLang(word, 0, word.length, other, switched, 0);
+        if (langChecker.check(other, switched, 0, word.length)) {
+          accepted++;
+        }
+      }
+      System.out.println("switch and check: " + throughput(stopwatch, words.size()) + ", accepted " + accepted);
+
+      stopwatch = Stopwatch.createStarted();
+      accepted = 0;
+      for (int i = 0; i < words.size(); i++) {
+        char[] word = words.get(i);
+        if (langChecker.checkSwitched(typed.get(i), word, 0, word.length)) {
+          accepted++;
+        }
+      }
+      System.out.println("check switched:   " + throughput(stopwatch, words.size()) + ", accepted " + accepted);
+    }
+  }
+
+  private static String throughput(Stopwatch stopwatch, int words) {
+    return String.format("%.0f words/s", words * 1e9 / stopwatch.elapsed(TimeUnit.NANOSECONDS));
+  }
+}
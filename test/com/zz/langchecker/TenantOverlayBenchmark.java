@@ -0,0 +1,119 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory and throughput of {@link TenantOverlay} tokenizers: {@value #TENANTS} tenants share the bundled model,
+ * each with a few exceptions and allowed and denied n-grams. Words of both vocabularies, half of them typed in
+ * the other layout, are tokenized by the base tokenizer and by tenants in turn.
+ */
+public class TenantOverlayBenchmark {
+  private static final int TENANTS = 1000;
+  private static final int EXCEPTIONS = 8;
+  private static final int NGRAMS = 8;
+  private static final int PASSES = 10;
+
+  public static void main(String[] args) {
+    Random random = new Random(42);
+    List<String> words = Lists.newArrayList();
+    for (String word : Vocabulary.wordsRu()) {
+      words.add(random.nextBoolean() ? word : Characters.switchLang(word, Lang.EN));
+    }
+    for (String word : Vocabulary.wordsEn()) {
+      words.add(random.nextBoolean() ? word : Characters.switchLang(word, Lang.RU));
+    }
+    String[] ngrams = sampleNgrams(random, TENANTS * NGRAMS);
+
+    LangSwitcherTokenizer base = LangSwitcherTokenizer.create();
+    long baseHeap = usedHeap();
+    Stopwatch creation = Stopwatch.createStarted();
+    List<LangSwitcherTokenizer> tenants = Lists.newArrayListWithCapacity(TENANTS);
+    for (int tenant = 0; tenant < TENANTS; tenant++) {
+      TenantOverlay.Builder overlay = TenantOverlay.builder();
+      for (int i = 0; i < EXCEPTIONS; i++) {
+        overlay.putException("tenant" + tenant + "word" + i, "correction" + i);
+      }
+      for (int i = 0; i < NGRAMS; i++) {
+        String ngram = ngrams[tenant * NGRAMS + i];
+        if (i % 2 == 0) {
+          overlay.denyNgram("nonexistent2gram-ru.txt", ngram);
+        } else {
+          overlay.allowNgram("nonexistent2gram-ru.txt", ngram);
+        }
+      }
+      tenants.add(base.withOverlay(overlay.build()));
+    }
+    System.out.println(TENANTS + " tenants created in " + creation.elapsed(TimeUnit.MILLISECONDS) + " ms, "
+        + (usedHeap() - baseHeap) / TENANTS + " bytes per tenant");
+
+    for (int pass = 0; pass < PASSES; pass++) {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      int corrected = 0;
+      for (String word : words) {
+        if (base.tokenize(word).corrected().isPresent()) {
+          corrected++;
+        }
+      }
+      System.out.println("base:    " + throughput(stopwatch, words.size()) + ", corrected " + corrected);
+
+      stopwatch = Stopwatch.createStarted();
+      corrected = 0;
+      for (int i = 0; i < words.size(); i++) {
+        if (tenants.get(i % TENANTS).tokenize(words.get(i)).corrected().isPresent()) {
+          corrected++;
+        }
+      }
+      System.out.println("tenants: " + throughput(stopwatch, words.size()) + ", corrected " + corrected);
+    }
+    // keeps tenants and samples reachable until the end, so they are not collected before heap is measured
+    System.out.println(tenants.size() + " tenants, " + ngrams.length + " n-grams");
+  }
+
+  /** @return Russian 2-grams from starts of vocabulary words */
+  private static String[] sampleNgrams(Random random, int count) {
+    List<String> words = Vocabulary.wordsRu();
+    String[] ngrams = new String[count];
+    for (int i = 0; i < count; i++) {
+      String word;
+      do {
+        word = words.get(random.nextInt(words.size()));
+      } while (word.length() < 3);
+      ngrams[i] = word.substring(0, 2);
+    }
+    return ngrams;
+  }
+
+  private static long usedHeap() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static String throughput(Stopwatch stopwatch, int words) {
+    return String.format("%.0f words/s", words * 1e9 / stopwatch.elapsed(TimeUnit.NANOSECONDS));
+  }
+}
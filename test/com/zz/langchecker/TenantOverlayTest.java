@@ -0,0 +1,76 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class TenantOverlayTest {
+  private final LangSwitcherTokenizer base = LangSwitcherTokenizer.create();
+
+  @Test
+  public void exceptionsOverrideBase() {
+    LangSwitcherTokenizer tenant = base.withOverlay(TenantOverlay.builder()
+        .putException("Wtynh", "center")
+        .putException("ghbdtn", "hi")
+        .build());
+
+    check(tenant.tokenize("wtynh ghbdtn c").toString()).is("center hi с");
+    check(base.tokenize("wtynh ghbdtn c").toString()).is("центр привет с");
+  }
+
+  @Test
+  public void deniedNgramsRejectWords() {
+    LangSwitcherTokenizer tenant = base.withOverlay(TenantOverlay.builder()
+        .denyNgram("nonexistent2gram-ru.txt", "ив")
+        .build());
+
+    check(tenant.tokenize("ghbdtn vbh").toString()).is("ghbdtn мир");
+    check(tenant.termCorrector().correct("ghbdtn".toCharArray(), 0, 6)).is(TermCorrector.Result.UNCHANGED);
+    check(base.tokenize("ghbdtn vbh").toString()).is("привет мир");
+  }
+
+  @Test
+  public void allowedNgramsAcceptWords() {
+    LangSwitcherTokenizer tenant = base.withOverlay(TenantOverlay.builder()
+        .allowNgram("nonexistent2gram-ru.txt", "фф")
+        .build());
+
+    check(tenant.tokenize("faatrn").toString()).is("аффект");
+    check(base.tokenize("faatrn").toString()).is("faatrn");
+  }
+
+  @Test
+  public void sharesModelWithoutNgrams() {
+    LangSwitcherTokenizer tenant = base.withOverlay(TenantOverlay.builder().build());
+
+    check(tenant.langChecker == base.langChecker);
+    check(tenant.exceptions == base.exceptions);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownFiles() {
+    TenantOverlay.builder().denyNgram("nonexistent5gram-ru.txt", "ив");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsLongNgrams() {
+    TenantOverlay.builder().denyNgram("nonexistent4gram-en.txt", "abcde");
+  }
+}
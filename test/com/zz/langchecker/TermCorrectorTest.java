@@ -0,0 +1,75 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.Locale;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class TermCorrectorTest {
+  private final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+  @Test
+  public void correctsInPlace() {
+    TermCorrector corrector = tokenizer.termCorrector();
+
+    char[] term = "--игшдвштп--".toCharArray();
+    check(corrector.correct(term, 2, 8)).is(TermCorrector.Result.CORRECTED);
+    check(new String(term)).is("--building--");
+
+    term = "Xfcnbwf".toCharArray();
+    check(corrector.correct(term, 0, term.length)).is(TermCorrector.Result.CORRECTED);
+    check(new String(term)).is("Частица");
+  }
+
+  @Test
+  public void leavesCorrectAndUnknownTerms() {
+    TermCorrector corrector = tokenizer.termCorrector();
+
+    check(corrector.correct("beautiful".toCharArray(), 0, 9)).is(TermCorrector.Result.UNCHANGED);
+    check(corrector.correct("xcvn".toCharArray(), 0, 4)).is(TermCorrector.Result.UNCHANGED);
+  }
+
+  @Test
+  public void delegatesOtherTermsToTokenizer() {
+    TermCorrector corrector = tokenizer.termCorrector();
+
+    check(corrector.correct(",bkmzhl".toCharArray(), 0, 7)).is(TermCorrector.Result.UNSUPPORTED);
+    check(corrector.correct("4еуые".toCharArray(), 0, 5)).is(TermCorrector.Result.UNSUPPORTED);
+    check(corrector.correct("wtynh".toCharArray(), 0, 5)).is(TermCorrector.Result.UNSUPPORTED);
+  }
+
+  @Test
+  public void sameAsTokenizerOnVocabularies() {
+    TermCorrector corrector = tokenizer.termCorrector();
+
+    for (String word : Vocabulary.wordsInBothLayouts()) {
+      for (String term : new String[] {word, word.toUpperCase(Locale.ROOT), capitalize(word)}) {
+        char[] chars = term.toCharArray();
+        if (corrector.correct(chars, 0, chars.length) != TermCorrector.Result.UNSUPPORTED) {
+          check(new String(chars)).is(tokenizer.tokenize(term).toString());
+        }
+      }
+    }
+  }
+
+  private static String capitalize(String word) {
+    return word.isEmpty() ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Utf8Corrector} against decoding UTF-8 to String, {@code tokenize} and encoding the corrected String,
+ * over phrases of 8 vocabulary words, a quarter of them typed in the other layout.
+ */
+public class Utf8CorrectorBenchmark {
+  private static final int PHRASES = 100000;
+  private static final int PASSES = 5;
+
+  public static void main(String[] args) {
+    List<String> words = Lists.newArrayList();
+    words.addAll(Vocabulary.wordsEn());
+    words.addAll(Vocabulary.wordsRu());
+
+    Random random = new Random(42);
+    List<byte[]> phrases = Lists.newArrayList();
+    for (int i = 0; i < PHRASES; i++) {
+      List<String> phrase = Lists.newArrayList();
+      for (int j = 0; j < 8; j++) {
+        String word = words.get(random.nextInt(words.size()));
+        phrase.add(random.nextInt(4) == 0 ? Characters.switchLang(word, Lang.EN) : word);
+      }
+      phrases.add(Joiner.on(' ').join(phrase).getBytes(Charsets.UTF_8));
+    }
+
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    Utf8Corrector corrector = tokenizer.utf8Corrector();
+    byte[] output = new byte[1024];
+    for (int pass = 0; pass < PASSES; pass++) {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      long checksum = 0;
+      for (byte[] phrase : phrases) {
+        checksum += tokenizer.tokenize(new String(phrase, Charsets.UTF_8)).toString().getBytes(Charsets.UTF_8).length;
+      }
+      System.out.println("String + tokenize: " + throughput(stopwatch) + ", " + checksum);
+
+      stopwatch = Stopwatch.createStarted();
+      checksum = 0;
+      for (byte[] phrase : phrases) {
+        int length = corrector.correct(phrase, 0, phrase.length, output, 0);
+        checksum += length == Utf8Corrector.UNCHANGED ? phrase.length : length;
+      }
+      System.out.println("Utf8Corrector:     " + throughput(stopwatch) + ", " + checksum);
+    }
+  }
+
+  private static String throughput(Stopwatch stopwatch) {
+    return String.format("%.0f phrases/s", PHRASES * 1e9 / stopwatch.elapsed(TimeUnit.NANOSECONDS));
+  }
+}
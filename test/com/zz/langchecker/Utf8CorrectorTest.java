@@ -0,0 +1,170 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Charsets;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class Utf8CorrectorTest {
+  private final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+  @Test
+  public void correctsIntoOutputBuffer() {
+    Utf8Corrector corrector = tokenizer.utf8Corrector();
+    byte[] output = new byte[64];
+
+    byte[] input = utf8("--Hello руддщ, Ghbdtn мир!--");
+    int length = corrector.correct(input, 2, input.length - 4, output, 1);
+    check(new String(output, 1, length, Charsets.UTF_8)).is("Hello руддщ, Привет мир!");
+
+    input = utf8("€ ghbdtn 😀");
+    length = corrector.correct(input, 0, input.length, output, 0);
+    check(new String(output, 0, length, Charsets.UTF_8)).is("€ привет 😀");
+  }
+
+  @Test
+  public void leavesCorrectPhrases() {
+    Utf8Corrector corrector = tokenizer.utf8Corrector();
+    byte[] output = utf8("untouched");
+
+    check(corrector.correct(new byte[0], 0, 0, output, 0)).is(Utf8Corrector.UNCHANGED);
+    byte[] input = utf8("Hello world, привет мир € 😀");
+    check(corrector.correct(input, 0, input.length, output, 0)).is(Utf8Corrector.UNCHANGED);
+    check(new String(output, Charsets.UTF_8)).is("untouched");
+  }
+
+  @Test
+  public void leavesUrlsAsTyped() {
+    Utf8Corrector corrector = tokenizer.utf8Corrector();
+    byte[] output = new byte[64];
+
+    for (String url : new String[] {"http://example.com/path", "see http://ya.ru now", "https://ya.ru"}) {
+      byte[] input = utf8(url);
+      check(corrector.correct(input, 0, input.length, output, 0)).is(Utf8Corrector.UNCHANGED);
+    }
+    byte[] input = utf8("https://ya.ru/ghbdtn");
+    int length = corrector.correct(input, 0, input.length, output, 0);
+    check(new String(output, 0, length, Charsets.UTF_8)).is("https://ya.ru/привет");
+  }
+
+  @Test
+  public void replacesMalformedSequences() {
+    Utf8Corrector corrector = tokenizer.utf8Corrector();
+    byte[] output = new byte[64];
+
+    byte[] input = {'a', (byte) 0xD0, ' ', (byte) 0xC0, (byte) 0x80, (byte) 0xE2, (byte) 0x82};
+    int length = corrector.correct(input, 0, input.length, output, 0);
+    check(Arrays.equals(Arrays.copyOf(output, length), utf8(new String(input, Charsets.UTF_8))));
+  }
+
+  @Test
+  public void reportsLengthOfTruncatedPhrase() {
+    Utf8Corrector corrector = tokenizer.utf8Corrector();
+    byte[] output = new byte[4];
+
+    byte[] input = utf8("ghbdtn");
+    check(corrector.correct(input, 0, input.length, output, 0)).is(12);
+    check(new String(output, Charsets.UTF_8)).is("пр");
+  }
+
+  @Test
+  public void correctsByteBuffers() {
+    Utf8Corrector corrector = tokenizer.utf8Corrector();
+    ByteBuffer output = ByteBuffer.allocateDirect(64);
+
+    ByteBuffer input = ByteBuffer.allocateDirect(32);
+    input.put(utf8("ghbdtn vbh")).flip();
+    check(corrector.correct(input, output)).is(19);
+    check(!input.hasRemaining());
+
+    input = ByteBuffer.wrap(utf8("hello"));
+    check(corrector.correct(input, output)).is(5);
+
+    output.flip();
+    byte[] bytes = new byte[output.remaining()];
+    output.get(bytes);
+    check(new String(bytes, Charsets.UTF_8)).is("привет мирhello");
+  }
+
+  @Test
+  public void keepsPositionsOnOverflow() {
+    Utf8Corrector corrector = tokenizer.utf8Corrector();
+    ByteBuffer input = ByteBuffer.wrap(utf8("ghbdtn"));
+    ByteBuffer output = ByteBuffer.allocate(8);
+
+    try {
+      corrector.correct(input, output);
+      throw new AssertionError("expected overflow");
+    } catch (BufferOverflowException expected) {
+      check(input.position()).is(0);
+      check(output.position()).is(0);
+    }
+  }
+
+  @Test
+  public void sameAsTokenizerOnPhrases() {
+    Utf8Corrector corrector = tokenizer.utf8Corrector();
+    byte[] output = new byte[16];
+
+    for (String phrase : Vocabulary.phrasesInBothLayouts(" ", ", ", "-", " € ", "!", " ")) {
+      output = checkSameAsTokenizer(corrector, utf8(phrase), output);
+    }
+  }
+
+  @Test
+  public void sameAsTokenizerOnRandomBytes() {
+    Utf8Corrector corrector = tokenizer.utf8Corrector();
+    byte[] output = new byte[16];
+    byte[] alphabet = utf8("ghbdtn ,.;'[]`руддщ Ёё€😀");
+    Random random = new Random(42);
+
+    for (int i = 0; i < 100000; i++) {
+      byte[] input = new byte[random.nextInt(16)];
+      for (int j = 0; j < input.length; j++) {
+        // mostly chunks of valid sequences, sometimes cut or random bytes
+        input[j] = random.nextInt(8) == 0 ? (byte) random.nextInt() : alphabet[random.nextInt(alphabet.length)];
+      }
+      output = checkSameAsTokenizer(corrector, input, output);
+    }
+  }
+
+  private byte[] checkSameAsTokenizer(Utf8Corrector corrector, byte[] input, byte[] output) {
+    byte[] expected = utf8(tokenizer.tokenize(new String(input, Charsets.UTF_8)).toString());
+    if (output.length < expected.length) {
+      output = new byte[expected.length * 2];
+    }
+
+    int length = corrector.correct(input, 0, input.length, output, 0);
+    if (length == Utf8Corrector.UNCHANGED) {
+      check(Arrays.equals(input, expected));
+    } else {
+      check(Arrays.equals(Arrays.copyOf(output, length), expected));
+    }
+    return output;
+  }
+
+  private static byte[] utf8(String string) {
+    return string.getBytes(Charsets.UTF_8);
+  }
+}
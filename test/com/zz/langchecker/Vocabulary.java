@@ -20,9 +20,12 @@ package com.zz.langchecker;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.io.Resources;
 import java.io.IOException;
 import java.util.List;
+import java.util.Locale;
 
 public final class Vocabulary {
   private static ImmutableList<String> wordsRu; static {
@@ -55,4 +58,29 @@ public final class Vocabulary {
   public static List<String> wordsEn() {
     return wordsEn;
   }
+
+  /** @return words of both vocabularies as typed, then typed in the other keyboard layout */
+  public static List<String> wordsInBothLayouts() {
+    return ImmutableList.copyOf(Iterables.concat(
+        wordsEn,
+        wordsRu,
+        Lists.transform(wordsEn, Characters.switchLangFunction(Lang.RU)),
+        Lists.transform(wordsRu, Characters.switchLangFunction(Lang.EN))));
+  }
+
+  /**
+   * @return two word phrases of {@link #wordsInBothLayouts()}, words joined by {@code separators} in turn,
+   *     every third phrase starting with an upper case word
+   */
+  public static List<String> phrasesInBothLayouts(String... separators) {
+    List<String> words = wordsInBothLayouts();
+    ImmutableList.Builder<String> phrases = ImmutableList.builder();
+    for (int i = 0; i < words.size(); i++) {
+      String word = words.get(i);
+      phrases.add((i % 3 == 0 ? word.toUpperCase(Locale.ROOT) : word)
+          + separators[i % separators.length]
+          + words.get(words.size() - 1 - i));
+    }
+    return phrases.build();
+  }
 }
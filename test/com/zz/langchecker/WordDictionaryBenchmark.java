@@ -0,0 +1,100 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end tokenizer speedup with known words dictionaries built from the bundled vocabularies,
+ * and heap footprint of {@link WordDictionary} for the vocabularies and for 1M words.
+ */
+public class WordDictionaryBenchmark {
+  private static final int WORDS = 1000000;
+  private static final int PASSES = 5;
+
+  public static void main(String[] args) {
+    List<String> words = Lists.newArrayList();
+    for (String word : Vocabulary.wordsEn()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.RU));
+    }
+    for (String word : Vocabulary.wordsRu()) {
+      words.add(word);
+      words.add(Characters.switchLang(word, Lang.EN));
+    }
+
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    LangSwitcherTokenizer withKnownWords = tokenizer.withKnownWords(Vocabulary.wordsEn(), Vocabulary.wordsRu());
+    System.out.println("Known words: EN " + withKnownWords.knownWords.get(Lang.EN).sizeInBytes() / 1024
+        + " KB, RU " + withKnownWords.knownWords.get(Lang.RU).sizeInBytes() / 1024 + " KB");
+
+    for (int i = 0; i < PASSES; i++) {
+      System.out.println("n-grams only:      " + tokenize(tokenizer, words));
+      System.out.println("known words first: " + tokenize(withKnownWords, words));
+    }
+
+    Random random = new Random(42);
+    Set<String> randomWords = Sets.newHashSetWithExpectedSize(WORDS);
+    while (randomWords.size() < WORDS) {
+      randomWords.add(ExceptionDictionaryTest.randomWord(random));
+    }
+    List<String> wordList = ImmutableList.copyOf(randomWords);
+    randomWords = null;
+
+    long before = usedMemory();
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    WordDictionary dictionary = WordDictionary.of(wordList);
+    System.out.println("1M random words: built in " + stopwatch.stop() + ", heap " + (usedMemory() - before) / 1024
+        + " KB, estimated " + dictionary.sizeInBytes() / 1024 + " KB, " + dictionary.stateCount() + " states");
+
+    before = usedMemory();
+    Set<String> set = Sets.newHashSet();
+    for (String word : wordList) {
+      set.add(new String(word));
+    }
+    System.out.println("1M random words: HashSet heap " + (usedMemory() - before) / 1024 + " KB, " + set.size());
+  }
+
+  private static String tokenize(Tokenizer tokenizer, List<String> words) {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    int corrected = 0;
+    for (String word : words) {
+      if (tokenizer.tokenize(word).corrected().isPresent()) {
+        corrected++;
+      }
+    }
+    long nanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+    return String.format("%.0f words/s, corrected %d of %d", words.size() * 1e9 / nanos, corrected, words.size());
+  }
+
+  private static long usedMemory() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
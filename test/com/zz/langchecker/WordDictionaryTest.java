@@ -0,0 +1,116 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class WordDictionaryTest {
+  @Test
+  public void emptyHasNoWords() {
+    check(WordDictionary.of().isEmpty());
+    check(!WordDictionary.of().contains(""));
+    check(!WordDictionary.of(ImmutableList.of("")).contains("a"));
+  }
+
+  @Test
+  public void containsWordsInCharRanges() {
+    WordDictionary dictionary = WordDictionary.of(ImmutableList.of("tops", "top", "stop", "stops", "top"));
+
+    char[] chars = "--tops--".toCharArray();
+    check(dictionary.contains(chars, 2, 6));
+    check(dictionary.contains(chars, 2, 5));
+    check(!dictionary.contains(chars, 2, 4));
+    check(!dictionary.contains(chars, 1, 6));
+    check(!dictionary.contains("stopss"));
+    check(dictionary.contains("stops"));
+  }
+
+  @Test
+  public void sharesSuffixes() {
+    WordDictionary dictionary = WordDictionary.of(ImmutableList.of("tops", "top", "stop", "stops"));
+    // s -> t -> o -> p -> s, where t, o, p, s of "tops" are the same states
+    check(dictionary.stateCount()).is(6);
+    check(dictionary.arcCount()).is(6);
+  }
+
+  @Test
+  public void containsSwitchedWords() {
+    WordDictionary dictionary = WordDictionary.of(ImmutableList.of("word", "слово"));
+
+    char[] chars = "цщкв ыдщмщ".toCharArray();
+    check(dictionary.containsSwitched(chars, 0, 4, Lang.EN));
+    check(!dictionary.containsSwitched(chars, 0, 3, Lang.EN));
+    check(dictionary.containsSwitched("ckjdj".toCharArray(), 0, 5, Lang.RU));
+  }
+
+  @Test
+  public void containsAllOfManyWords() {
+    Random random = new Random(42);
+    Set<String> words = Sets.newHashSet();
+    while (words.size() < 100000) {
+      words.add(ExceptionDictionaryTest.randomWord(random));
+    }
+    WordDictionary dictionary = WordDictionary.of(words);
+
+    for (String word : words) {
+      check(dictionary.contains(word));
+    }
+    for (int i = 0; i < 100000; i++) {
+      String word = ExceptionDictionaryTest.randomWord(random);
+      check(dictionary.contains(word) == words.contains(word));
+    }
+  }
+
+  @Test
+  public void vocabularyIsSmallerThanItsChars() {
+    List<String> words = Vocabulary.wordsRu();
+    long chars = 0;
+    for (String word : words) {
+      chars += word.length();
+    }
+    WordDictionary dictionary = WordDictionary.of(words);
+
+    check(dictionary.sizeInBytes() < chars * 2);
+    for (String word : words) {
+      check(word.isEmpty() || dictionary.contains(word));
+    }
+  }
+
+  @Test
+  public void tokenizerResolvesKnownWordsFirst() {
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+    check(tokenizer.tokenize("эффект").corrected().get()).is("'aatrn");
+    check(tokenizer.tokenize("фифае").corrected()).isAbsent();
+
+    LangSwitcherTokenizer withKnownWords = tokenizer.withKnownWords(ImmutableList.of("Abaft"), ImmutableList.of("эффект"));
+    check(withKnownWords.tokenize("эффект").corrected()).isAbsent();
+    check(withKnownWords.tokenize("Фифае").corrected().get()).is("Abaft");
+    check(withKnownWords.tokenize("цщкв").corrected().get()).is("word");
+
+    char[] term = "фифае".toCharArray();
+    check(withKnownWords.termCorrector().correct(term, 0, term.length)).is(TermCorrector.Result.CORRECTED);
+    check(new String(term)).is("abaft");
+  }
+}
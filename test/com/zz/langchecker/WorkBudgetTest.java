@@ -0,0 +1,134 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+public class WorkBudgetTest {
+  private final LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create();
+
+  @Test
+  public void leavesRestOfPhraseAsTyped() {
+    WorkBudget budget = WorkBudget.of(2);
+    LangSwitcherTokenizer limited = tokenizer.withWorkBudget(budget);
+
+    check(limited.tokenize("ghbdtn vbh ghbdtn c").toString()).is("привет мир ghbdtn c");
+    check(budget.degradedCalls()).is(1L);
+
+    check(limited.tokenize("ghbdtn vbh").toString()).is("привет мир");
+    check(budget.degradedCalls()).is(1L);
+  }
+
+  @Test
+  public void zeroBudgetLeavesPhraseAsTyped() {
+    WorkBudget budget = WorkBudget.of(0);
+    LangSwitcherTokenizer limited = tokenizer.withWorkBudget(budget);
+
+    TokenizerResponse response = limited.tokenize("Ghbdtn, c");
+    check(!response.corrected().isPresent());
+    check(budget.degradedCalls()).is(1L);
+  }
+
+  @Test
+  public void sameAsUnlimitedWithinBudget() {
+    LangSwitcherTokenizer limited = tokenizer.withWorkBudget(WorkBudget.of(Integer.MAX_VALUE));
+    for (String phrase : new String[] {"Hello руддщ, ghbdtn мир 24 gjxnf.ru!", "k.,jdm b lheu;,f", "T.G.I. friday"}) {
+      check(limited.tokenize(phrase).toString()).is(tokenizer.tokenize(phrase).toString());
+      check(limited.tokenize(phrase).tokens()).is(tokenizer.tokenize(phrase).tokens());
+    }
+  }
+
+  @Test
+  public void boundsChecksOfSeparatorRuns() {
+    StringBuilder phrase = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      phrase.append(",f,b,").append(i % 10 == 0 ? " " : "");
+    }
+    SlowInputs slowInputs = SlowInputs.create(1, 0, TimeUnit.NANOSECONDS);
+    tokenizer.withWorkBudget(WorkBudget.of(100)).withSlowInputs(slowInputs).tokenize(phrase.toString());
+
+    SlowInputs.Entry entry = slowInputs.entries().get(0);
+    check(entry.degraded());
+    check(entry.checks() <= 100);
+  }
+
+  @Test
+  public void boundsChecksInsideLongToken() {
+    // one token, its switched form is not a word, so it is segmented at commas (б in Russian layout)
+    StringBuilder phrase = new StringBuilder("ghbdtn");
+    while (phrase.length() < 140000) {
+      phrase.append("ntcn,");
+    }
+    WorkBudget budget = WorkBudget.of(10);
+    SlowInputs slowInputs = SlowInputs.create(1, 0, TimeUnit.NANOSECONDS);
+    TokenizerResponse response = tokenizer.withWorkBudget(budget).withSlowInputs(slowInputs)
+        .tokenize(phrase.toString());
+
+    // the token is left as typed
+    check(!response.corrected().isPresent());
+    check(budget.degradedCalls()).is(1L);
+    SlowInputs.Entry entry = slowInputs.entries().get(0);
+    check(entry.degraded());
+    check(entry.checks()).is(10);
+  }
+
+  @Test
+  public void notDegradedWhenBudgetIsSpentExactly() {
+    WorkBudget budget = WorkBudget.of(2);
+    check(tokenizer.withWorkBudget(budget).tokenize("ghbdtn vbh").toString()).is("привет мир");
+    check(budget.degradedCalls()).is(0L);
+  }
+
+  @Test
+  public void correctorsRejectCountedTokenizers() {
+    LangSwitcherTokenizer limited = tokenizer.withWorkBudget(WorkBudget.of(10));
+    LangSwitcherTokenizer captured = tokenizer.withSlowInputs(SlowInputs.create(1, 1, TimeUnit.SECONDS));
+    for (LangSwitcherTokenizer counted : new LangSwitcherTokenizer[] {limited, captured}) {
+      try {
+        counted.phraseCorrector();
+        check(false);
+      } catch (IllegalStateException e) {
+        check(e.getMessage().contains("PhraseCorrector"));
+      }
+      try {
+        counted.termCorrector();
+        check(false);
+      } catch (IllegalStateException expected) {
+      }
+      try {
+        counted.utf8Corrector();
+        check(false);
+      } catch (IllegalStateException expected) {
+      }
+      try {
+        counted.layoutDetector();
+        check(false);
+      } catch (IllegalStateException expected) {
+      }
+      try {
+        ParallelTokenizer.create(counted, new ForkJoinPool(1));
+        check(false);
+      } catch (IllegalArgumentException expected) {
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ *
+ *     Copyright 2013-2014 https://github.com/blizznets authors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package com.zz.langchecker.api;
+
+import com.zz.langchecker.AdaptiveRuleOrder;
+import com.zz.langchecker.CheckerRule;
+import com.zz.langchecker.LangSwitcherTokenizer;
+import org.junit.Test;
+import static org.immutables.check.Checkers.*;
+
+/** Uses {@link AdaptiveRuleOrder} as clients do, only through the public API. */
+public class AdaptiveRuleOrderApiTest {
+  @Test
+  public void exposesOrderPerLanguage() {
+    AdaptiveRuleOrder ruleOrder = AdaptiveRuleOrder.create(1, 10);
+    LangSwitcherTokenizer tokenizer = LangSwitcherTokenizer.create().withRuleOrder(ruleOrder);
+    for (int i = 0; i < 100; i++) {
+      check(tokenizer.tokenize("ghbdtn vbh").toString()).is("привет мир");
+    }
+
+    for (String language : new String[] {"en", "ru", "EN"}) {
+      check(ruleOrder.order(language).size()).is(CheckerRule.values().length);
+      check(ruleOrder.statistics(language).size()).is(CheckerRule.values().length);
+    }
+    check(ruleOrder.reorderings("en") + ruleOrder.reorderings("ru") > 0);
+    check(ruleOrder.toString().startsWith("ru: "));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownLanguage() {
+    AdaptiveRuleOrder.create().order("de");
+  }
+}